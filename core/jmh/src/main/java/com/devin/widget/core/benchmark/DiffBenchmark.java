@@ -0,0 +1,96 @@
+package com.devin.widget.core.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.devin.widget.core.GridMetrics;
+import com.devin.widget.core.PositionTable;
+import com.devin.widget.core.Reorder;
+
+/**
+ * Cost of snapshotting and diffing the visible cells around one shift versus visible-cell count,
+ * against diffing the shifted range only.
+ * Run with -prof gc to check that it stays allocation-free.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DiffBenchmark {
+
+	private static final int COLUMNS = 10;
+
+	@Param({"12", "60", "120", "240"})
+	public int visible;
+
+	private GridMetrics mMetrics = new GridMetrics();
+	private PositionTable<Object> mBefore = new PositionTable<Object>();
+	private PositionTable<Object> mAfter = new PositionTable<Object>();
+	private Object mCell = new Object();
+	private long[] mIds;
+
+	@Setup
+	public void setup() {
+		mMetrics.set(COLUMNS, 100, 100, 110, 110);
+		mIds = new long[visible];
+		for (int i = 0; i < visible; i++) {
+			mIds[i] = i * 7919L;
+		}
+	}
+
+	@Benchmark
+	public int snapshotAndDiff() {
+		int drag = 1;
+		int target = visible - 2;
+		mBefore.ensureCapacity(visible);
+		mAfter.ensureCapacity(visible);
+		for (int i = 0; i < visible; i++) {
+			mBefore.put(mIds[i], mCell, mMetrics.getSlotOffsetX(0, i), mMetrics.getSlotOffsetY(0, i));
+		}
+		for (int i = 0; i < visible; i++) {
+			int slot = Reorder.shiftedSlot(i, drag, target);
+			mAfter.put(mIds[i], mCell, mMetrics.getSlotOffsetX(0, slot), mMetrics.getSlotOffsetY(0, slot));
+		}
+		return PositionTable.diff(mBefore, mAfter, mCallback);
+	}
+
+	/**
+	 * A one-row shift diffed over its own range only, flat in visible-cell count.
+	 */
+	@Benchmark
+	public int snapshotAndDiffRange() {
+		int drag = 1;
+		int target = drag + COLUMNS;
+		int count = target - drag + 1;
+		mBefore.ensureCapacity(count);
+		mAfter.ensureCapacity(count);
+		for (int i = drag; i <= target; i++) {
+			mBefore.put(mIds[i], mCell, mMetrics.getSlotOffsetX(0, i), mMetrics.getSlotOffsetY(0, i));
+		}
+		for (int i = drag; i <= target; i++) {
+			int slot = Reorder.shiftedSlot(i, drag, target);
+			mAfter.put(mIds[i], mCell, mMetrics.getSlotOffsetX(0, slot), mMetrics.getSlotOffsetY(0, slot));
+		}
+		return PositionTable.diff(mBefore, mAfter, mCallback);
+	}
+
+	private PositionTable.DiffCallback<Object> mCallback = new PositionTable.DiffCallback<Object>() {
+
+		@Override
+		public void onMoved(long id, Object value, float dx, float dy) {
+		}
+	};
+}
@@ -0,0 +1,64 @@
+package com.devin.widget.core.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.devin.widget.core.GridMetrics;
+
+/**
+ * Throughput of turning touch points into positions on grids of 3 to 10 columns.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HitTestBenchmark {
+
+	private static final int POINTS = 1024;
+	private static final int WIDTH = 1600;
+	private static final int HEIGHT = 2400;
+
+	@Param({"3", "6", "10"})
+	public int columns;
+
+	private GridMetrics mMetrics = new GridMetrics();
+	private int[] mXs = new int[POINTS];
+	private int[] mYs = new int[POINTS];
+	private int mValidCount;
+	private int mIndex;
+
+	@Setup
+	public void setup() {
+		int spacing = 10;
+		int cell = (WIDTH - spacing * (columns - 1)) / columns;
+		mMetrics.set(columns, cell, cell, cell + spacing, cell + spacing);
+		mMetrics.setPadding(0, 0, 0, 0);
+		int rows = HEIGHT / (cell + spacing) + 1;
+		mValidCount = rows * columns - columns / 2;
+		Random random = new Random(42);
+		for (int i = 0; i < POINTS; i++) {
+			mXs[i] = random.nextInt(WIDTH);
+			mYs[i] = random.nextInt(HEIGHT);
+		}
+	}
+
+	@Benchmark
+	public int positionAt() {
+		int i = mIndex++ & (POINTS - 1);
+		return mMetrics.positionAt(mXs[i], mYs[i], WIDTH, HEIGHT, 0, -37, 120, mValidCount);
+	}
+}
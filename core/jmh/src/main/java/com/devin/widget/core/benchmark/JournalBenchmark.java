@@ -0,0 +1,99 @@
+package com.devin.widget.core.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.devin.widget.core.ReorderJournal;
+
+/**
+ * Cost of restoring a persisted order versus its size, from a snapshot plus a nearly full journal
+ * of drag-sized shifts, and of appending one move.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JournalBenchmark {
+
+	/**
+	 * Distance of the journaled shifts, about a screen of cells.
+	 */
+	private static final int DISTANCE = 30;
+
+	@Param({"1000", "100000"})
+	public int size;
+
+	private File mDir;
+	private ReorderJournal mJournal;
+	private long[] mOrder;
+	private Random mRandom = new Random(42);
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		mDir = File.createTempFile("journal", "");
+		mDir.delete();
+		mJournal = new ReorderJournal(mDir);
+		mJournal.open();
+		long[] ids = new long[size];
+		for (int i = 0; i < size; i++) {
+			ids[i] = i * 7919L;
+		}
+		mJournal.reset(ids);
+		mOrder = ids;
+		for (int i = 0; i < ReorderJournal.DEFAULT_CAPACITY - 1; i++) {
+			shift();
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() throws IOException {
+		mJournal.close();
+		for (File file : mDir.listFiles()) {
+			file.delete();
+		}
+		mDir.delete();
+	}
+
+	@Benchmark
+	public long[] restore() throws IOException {
+		return mJournal.open();
+	}
+
+	/**
+	 * Appends and undoes a shift, so the journal compacts every DEFAULT_CAPACITY / 2 calls.
+	 */
+	@Benchmark
+	public void append() throws IOException {
+		int from = mRandom.nextInt(size - DISTANCE);
+		long id = mOrder[from];
+		mJournal.shift(from, from + DISTANCE, id);
+		mJournal.shift(from + DISTANCE, from, id);
+	}
+
+	private void shift() throws IOException {
+		int from = mRandom.nextInt(size - DISTANCE);
+		int to = from + DISTANCE;
+		long id = mOrder[from];
+		mJournal.shift(from, to, id);
+		System.arraycopy(mOrder, from + 1, mOrder, from, DISTANCE);
+		mOrder[to] = id;
+	}
+}
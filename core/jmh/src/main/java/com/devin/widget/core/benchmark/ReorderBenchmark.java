@@ -0,0 +1,77 @@
+package com.devin.widget.core.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.devin.widget.core.IndexedTreeList;
+import com.devin.widget.core.Reorder;
+
+/**
+ * Cost of one shift between random positions versus list size,
+ * the O(distance) list rotation of OnShiftListener against the O(log n) IndexedTreeList.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReorderBenchmark {
+
+	private static final int MOVES = 1024;
+
+	@Param({"1000", "10000", "100000", "1000000"})
+	public int size;
+
+	private List<Integer> mList;
+	private IndexedTreeList<Integer> mTree;
+	private int[] mFrom = new int[MOVES];
+	private int[] mTo = new int[MOVES];
+	private int mIndex;
+
+	@Setup
+	public void setup() {
+		mList = new ArrayList<Integer>(size);
+		for (int i = 0; i < size; i++) {
+			mList.add(i);
+		}
+		mTree = new IndexedTreeList<Integer>(mList);
+		Random random = new Random(42);
+		for (int i = 0; i < MOVES; i++) {
+			mFrom[i] = random.nextInt(size);
+			mTo[i] = random.nextInt(size);
+		}
+	}
+
+	@Benchmark
+	public void listShift() {
+		int i = mIndex++ & (MOVES - 1);
+		Reorder.shift(mList, mFrom[i], mTo[i]);
+	}
+
+	@Benchmark
+	public void treeMove() {
+		int i = mIndex++ & (MOVES - 1);
+		mTree.move(mFrom[i], mTo[i]);
+	}
+
+	@Benchmark
+	public long treeGetId() {
+		int i = mIndex++ & (MOVES - 1);
+		return mTree.getId(mFrom[i]);
+	}
+}
@@ -0,0 +1,81 @@
+package com.devin.widget.core.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.devin.widget.core.SpanGrid;
+
+/**
+ * Cost of a shift of a few tiles in a dashboard of 1x1, 2x1 and 2x2 tiles versus its size,
+ * re-packed from the moved tiles on against packed from scratch, and of a hit-test.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SpanGridBenchmark {
+
+	private static final int COLUMNS = 4;
+	private static final int DISTANCE = 6;
+	private static final int CELL = 100;
+	private static final int STRIDE = 110;
+
+	@Param({"100", "1000", "10000"})
+	public int size;
+
+	private SpanGrid mGrid = new SpanGrid(COLUMNS);
+	private int[] mColumnSpans;
+	private int[] mRowSpans;
+	private Random mRandom = new Random(42);
+
+	@Setup
+	public void setup() {
+		mColumnSpans = new int[size];
+		mRowSpans = new int[size];
+		for (int i = 0; i < size; i++) {
+			int kind = mRandom.nextInt(10);
+			mColumnSpans[i] = kind < 7 ? 1 : 2;
+			mRowSpans[i] = kind < 9 ? 1 : 2;
+		}
+		mGrid.setSpans(mColumnSpans, mRowSpans, size);
+	}
+
+	/**
+	 * Shifts a tile a few places down and back near the top, where a drag on screen usually is.
+	 */
+	@Benchmark
+	public int shift() {
+		int from = mRandom.nextInt(Math.min(size, 40) - DISTANCE);
+		mGrid.shift(from, from + DISTANCE);
+		mGrid.shift(from + DISTANCE, from);
+		return mGrid.getChangedLast();
+	}
+
+	@Benchmark
+	public int layout() {
+		mGrid.setSpans(mColumnSpans, mRowSpans, size);
+		mGrid.setSpans(mColumnSpans, mRowSpans, size);
+		return mGrid.getRowCount();
+	}
+
+	@Benchmark
+	public int hitTest() {
+		int x = mRandom.nextInt(COLUMNS * STRIDE);
+		int y = mRandom.nextInt(mGrid.getRowCount() * STRIDE);
+		return mGrid.positionAt(x, y, CELL, CELL, STRIDE, STRIDE);
+	}
+}
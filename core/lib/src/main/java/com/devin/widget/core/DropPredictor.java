@@ -0,0 +1,154 @@
+package com.devin.widget.core;
+
+/**
+ * Guesses where a dragging finger will come to rest and how long to wait before shifting to the cell under it.
+ * The finger is taken to slow down exponentially, its time constant measured from successive velocity samples,
+ * so it travels velocity * tau further. The dwell grows with the speed in cells per second:
+ * a finger crawling over a cell is about to stop there, a fast one is passing over.
+ * Velocities are in pixels per millisecond, cell sizes in pixels.
+ *
+ * @author Devin Wong
+ *
+ */
+public class DropPredictor {
+
+	public static final long DEFAULT_MIN_DWELL = 40L;
+	public static final long DEFAULT_MAX_DWELL = 200L;
+
+	/**
+	 * Dwell added per cell per second of finger speed, 4 cells per second reaches the default maximum.
+	 */
+	private static final float DWELL_PER_CELL_SPEED = 40f;
+	/**
+	 * Slower than this the finger is resting, 50 pixels per second.
+	 */
+	private static final float REST_SPEED = 0.05f;
+	private static final float MAX_TAU = 150f;
+	/**
+	 * Speeds are compared this far apart, closer samples differ mostly by touch noise.
+	 */
+	private static final long WINDOW = 32L;
+	/**
+	 * A speed ratio over a window beyond this is a change of pace, within it the finger keeps its pace.
+	 */
+	private static final float STEADY_RATIO = 0.9f;
+	/**
+	 * Farther than this from the finger a rest point isn't trusted.
+	 */
+	private static final float MAX_PREDICTED_CELLS = 2f;
+	/**
+	 * Decelerating windows in a row needed to trust the rest point.
+	 */
+	private static final int CONFIDENT_SAMPLES = 2;
+
+	private float mCellWidth = 1f;
+	private float mCellHeight = 1f;
+	private long mMinDwell = DEFAULT_MIN_DWELL;
+	private long mMaxDwell = DEFAULT_MAX_DWELL;
+
+	private long mWindowTime;
+	private float mWindowSpeed;
+	private float mTau;
+	private int mDecelerating;
+
+	private float mRestX;
+	private float mRestY;
+	private long mDwell = DEFAULT_MAX_DWELL;
+	private boolean mConfident;
+
+	public void setCellSize(float width, float height) {
+		if (width <= 0 || height <= 0) {
+			throw new IllegalArgumentException("bad cell size " + width + "x" + height);
+		}
+		mCellWidth = width;
+		mCellHeight = height;
+	}
+
+	public void setDwellRange(long min, long max) {
+		if (min < 0 || max < min) {
+			throw new IllegalArgumentException("bad dwell range [" + min + ", " + max + "]");
+		}
+		mMinDwell = min;
+		mMaxDwell = max;
+	}
+
+	public long getMinDwell() {
+		return mMinDwell;
+	}
+
+	/**
+	 * Forget the gesture, call it when a drag starts.
+	 */
+	public void reset() {
+		mWindowTime = 0;
+		mWindowSpeed = 0;
+		mTau = 0;
+		mDecelerating = 0;
+		mDwell = mMaxDwell;
+		mConfident = false;
+	}
+
+	/**
+	 * Feed a sample of the finger at timeMillis.
+	 */
+	public void update(long timeMillis, float x, float y, float vx, float vy) {
+		float speed = (float) Math.sqrt(vx * vx + vy * vy);
+		long dt = timeMillis - mWindowTime;
+		if (speed < REST_SPEED) {
+			mDecelerating = 0;
+			mTau = 0;
+			mWindowTime = timeMillis;
+			mWindowSpeed = speed;
+		} else if (mWindowTime == 0 || mWindowSpeed < REST_SPEED) {
+			mWindowTime = timeMillis;
+			mWindowSpeed = speed;
+		} else if (dt >= WINDOW) {
+			float ratio = speed / mWindowSpeed;
+			if (ratio < STEADY_RATIO) {
+				// speed(t) = speed(0) * e^(-t / tau)
+				float tau = (float) (-dt / Math.log(ratio));
+				mTau = Math.min(mDecelerating == 0 ? tau : (mTau + tau) / 2, MAX_TAU);
+				mDecelerating++;
+			} else {
+				mDecelerating = 0;
+				mTau = 0;
+			}
+			mWindowTime = timeMillis;
+			mWindowSpeed = speed;
+		}
+
+		mRestX = x + vx * mTau;
+		mRestY = y + vy * mTau;
+		float cellsX = (mRestX - x) / mCellWidth;
+		float cellsY = (mRestY - y) / mCellHeight;
+		mConfident = mDecelerating >= CONFIDENT_SAMPLES
+				&& cellsX * cellsX + cellsY * cellsY <= MAX_PREDICTED_CELLS * MAX_PREDICTED_CELLS;
+
+		float cellSpeedX = vx / mCellWidth;
+		float cellSpeedY = vy / mCellHeight;
+		float cellsPerSecond = (float) Math.sqrt(cellSpeedX * cellSpeedX + cellSpeedY * cellSpeedY) * 1000;
+		mDwell = Reorder.clamp(mMinDwell + (long) (cellsPerSecond * DWELL_PER_CELL_SPEED), mMinDwell, mMaxDwell);
+	}
+
+	/**
+	 * @return whether the finger is steadily slowing down and {@link #getRestX()}, {@link #getRestY()} can be acted on
+	 */
+	public boolean isConfident() {
+		return mConfident;
+	}
+
+	public float getRestX() {
+		return mRestX;
+	}
+
+	public float getRestY() {
+		return mRestY;
+	}
+
+	/**
+	 * @return how long the finger should stay over a cell before it's shifted to, for the last sample's speed
+	 */
+	public long getDwell() {
+		return mDwell;
+	}
+}
@@ -0,0 +1,244 @@
+package com.devin.widget.core;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * A recorded single-pointer touch stream with the grid state at each drag start,
+ * kept in primitive arrays and stored in a compact delta-encoded binary form.
+ *
+ * <p>Binary form: the magic {@code "DGT"} and a version byte, then one record per entry.
+ * A record starts with a byte holding its kind in the high 3 bits and the masked action in the low 5 bits.
+ * Every record follows with the zigzag varint delta of time (millis) from the previous record.
+ * Samples then hold the zigzag varint deltas of x and y (1/16 pixel) from the previous sample,
+ * a drag start holds the varints of first visible position, child count and zigzag scroll offset.
+ * A slow drag costs about 4 bytes per sample.</p>
+ *
+ * @author Devin Wong
+ *
+ */
+public class GestureTrace {
+
+	/**
+	 * A sample delivered as the current position of an event.
+	 */
+	public static final int KIND_EVENT = 0;
+	/**
+	 * A historical sample batched into the next event.
+	 */
+	public static final int KIND_HISTORY = 1;
+	/**
+	 * The grid state when a drag started, read with {@link #firstVisiblePositionAt(int)},
+	 * {@link #childCountAt(int)} and {@link #scrollOffsetAt(int)}.
+	 */
+	public static final int KIND_DRAG_START = 2;
+
+	private static final int MAGIC = 0x444754;
+	private static final int VERSION = 1;
+	private static final int FIXED_POINT = 16;
+	private static final int ACTION_MASK = 0x1f;
+
+	private int[] mKinds = new int[256];
+	private int[] mActions = new int[256];
+	private int[] mXs = new int[256];
+	private int[] mYs = new int[256];
+	private long[] mTimes = new long[256];
+	private int[] mStates = new int[256];
+	private int mSize;
+
+	private long mStartTime = -1;
+
+	public void clear() {
+		mSize = 0;
+		mStartTime = -1;
+	}
+
+	public int size() {
+		return mSize;
+	}
+
+	/**
+	 * @param timeMillis absolute time of the sample, stored relative to the first record
+	 * @param historical whether the sample is batched into a later event
+	 */
+	public void addSample(int action, float x, float y, long timeMillis, boolean historical) {
+		add(historical ? KIND_HISTORY : KIND_EVENT, action & ACTION_MASK,
+				Math.round(x * FIXED_POINT), Math.round(y * FIXED_POINT), relativeTime(timeMillis), 0);
+	}
+
+	/**
+	 * @param timeMillis absolute time of the drag start, on the clock of the samples
+	 */
+	public void addDragStart(int firstVisiblePosition, int childCount, int scrollOffset, long timeMillis) {
+		add(KIND_DRAG_START, 0, firstVisiblePosition, childCount, relativeTime(timeMillis), scrollOffset);
+	}
+
+	private long relativeTime(long timeMillis) {
+		if (mStartTime < 0) {
+			mStartTime = timeMillis;
+		}
+		return timeMillis - mStartTime;
+	}
+
+	public int kindAt(int index) {
+		return mKinds[index];
+	}
+
+	public int actionAt(int index) {
+		return mActions[index];
+	}
+
+	public float xAt(int index) {
+		return (float) mXs[index] / FIXED_POINT;
+	}
+
+	public float yAt(int index) {
+		return (float) mYs[index] / FIXED_POINT;
+	}
+
+	/**
+	 * @return millis since the first record
+	 */
+	public long timeAt(int index) {
+		return mTimes[index];
+	}
+
+	public int firstVisiblePositionAt(int index) {
+		return mXs[index];
+	}
+
+	public int childCountAt(int index) {
+		return mYs[index];
+	}
+
+	public int scrollOffsetAt(int index) {
+		return mStates[index];
+	}
+
+	public long getDuration() {
+		return mSize == 0 ? 0 : mTimes[mSize - 1];
+	}
+
+	private void add(int kind, int action, int x, int y, long time, int state) {
+		if (mSize == mKinds.length) {
+			int capacity = mSize << 1;
+			mKinds = Arrays.copyOf(mKinds, capacity);
+			mActions = Arrays.copyOf(mActions, capacity);
+			mXs = Arrays.copyOf(mXs, capacity);
+			mYs = Arrays.copyOf(mYs, capacity);
+			mTimes = Arrays.copyOf(mTimes, capacity);
+			mStates = Arrays.copyOf(mStates, capacity);
+		}
+		mKinds[mSize] = kind;
+		mActions[mSize] = action;
+		mXs[mSize] = x;
+		mYs[mSize] = y;
+		mTimes[mSize] = time;
+		mStates[mSize] = state;
+		mSize++;
+	}
+
+	/**
+	 * Encode every record to out. out is not closed, wrap it in a buffered stream.
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		out.write(MAGIC >>> 16);
+		out.write((MAGIC >>> 8) & 0xff);
+		out.write(MAGIC & 0xff);
+		out.write(VERSION);
+		long lastTime = 0;
+		int lastX = 0;
+		int lastY = 0;
+		for (int i = 0; i < mSize; i++) {
+			int kind = mKinds[i];
+			out.write(kind << 5 | mActions[i]);
+			writeVarint(out, zigzag(mTimes[i] - lastTime));
+			lastTime = mTimes[i];
+			if (kind == KIND_DRAG_START) {
+				writeVarint(out, mXs[i]);
+				writeVarint(out, mYs[i]);
+				writeVarint(out, zigzag(mStates[i]));
+				continue;
+			}
+			writeVarint(out, zigzag(mXs[i] - lastX));
+			writeVarint(out, zigzag(mYs[i] - lastY));
+			lastX = mXs[i];
+			lastY = mYs[i];
+		}
+	}
+
+	/**
+	 * Decode a trace written by {@link #writeTo(OutputStream)}, reading in until its end.
+	 * @throws IOException if in isn't a trace or is truncated
+	 */
+	public static GestureTrace readFrom(InputStream in) throws IOException {
+		int magic = readByte(in) << 16 | readByte(in) << 8 | readByte(in);
+		int version = readByte(in);
+		if (magic != MAGIC || version != VERSION) {
+			throw new IOException("Not a gesture trace, or an unknown version " + version);
+		}
+		GestureTrace trace = new GestureTrace();
+		trace.mStartTime = 0;
+		long time = 0;
+		int x = 0;
+		int y = 0;
+		int header;
+		while ((header = in.read()) >= 0) {
+			int kind = header >>> 5;
+			int action = header & ACTION_MASK;
+			time += unzigzag(readVarint(in));
+			if (kind == KIND_DRAG_START) {
+				int first = (int) readVarint(in);
+				int count = (int) readVarint(in);
+				int offset = (int) unzigzag(readVarint(in));
+				trace.add(kind, action, first, count, time, offset);
+			} else if (kind == KIND_EVENT || kind == KIND_HISTORY) {
+				x += (int) unzigzag(readVarint(in));
+				y += (int) unzigzag(readVarint(in));
+				trace.add(kind, action, x, y, time, 0);
+			} else {
+				throw new IOException("Unknown record kind " + kind);
+			}
+		}
+		return trace;
+	}
+
+	private static long zigzag(long value) {
+		return (value << 1) ^ (value >> 63);
+	}
+
+	private static long unzigzag(long value) {
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+	private static void writeVarint(OutputStream out, long value) throws IOException {
+		while ((value & ~0x7fL) != 0) {
+			out.write((int) (value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		out.write((int) value);
+	}
+
+	private static long readVarint(InputStream in) throws IOException {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			int b = readByte(in);
+			value |= (long) (b & 0x7f) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("Malformed varint");
+	}
+
+	private static int readByte(InputStream in) throws IOException {
+		int b = in.read();
+		if (b < 0) {
+			throw new EOFException("Truncated gesture trace");
+		}
+		return b;
+	}
+}
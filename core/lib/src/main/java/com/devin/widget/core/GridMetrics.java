@@ -0,0 +1,151 @@
+package com.devin.widget.core;
+
+/**
+ * Arithmetic model of a uniform grid layout: column count, cell size, strides and padding.
+ * Turns a point into a position and a position into a slot offset in constant time.
+ *
+ * @author Devin Wong
+ *
+ */
+public class GridMetrics {
+
+	public static final int INVALID_POSITION = -1;
+
+	private int mNumColumns;
+	private int mCellWidth;
+	private int mCellHeight;
+	private int mColumnStride;
+	private int mRowStride;
+
+	private int mPaddingLeft;
+	private int mPaddingTop;
+	private int mPaddingRight;
+	private int mPaddingBottom;
+
+	private boolean mValid;
+
+	/**
+	 * @param columnStride distance between the left edges of two neighbouring columns
+	 * @param rowStride distance between the top edges of two neighbouring rows
+	 */
+	public void set(int numColumns, int cellWidth, int cellHeight, int columnStride, int rowStride) {
+		mNumColumns = Math.max(1, numColumns);
+		mCellWidth = cellWidth;
+		mCellHeight = cellHeight;
+		mColumnStride = Math.max(columnStride, cellWidth);
+		mRowStride = Math.max(rowStride, cellHeight);
+		mValid = cellWidth > 0 && cellHeight > 0;
+	}
+
+	public void setPadding(int left, int top, int right, int bottom) {
+		mPaddingLeft = left;
+		mPaddingTop = top;
+		mPaddingRight = right;
+		mPaddingBottom = bottom;
+	}
+
+	public void invalidate() {
+		mValid = false;
+	}
+
+	public boolean isValid() {
+		return mValid;
+	}
+
+	public int getNumColumns() {
+		return mNumColumns;
+	}
+
+	public int getCellWidth() {
+		return mCellWidth;
+	}
+
+	public int getCellHeight() {
+		return mCellHeight;
+	}
+
+	public int getColumnStride() {
+		return mColumnStride;
+	}
+
+	public int getRowStride() {
+		return mRowStride;
+	}
+
+	/**
+	 * @return the horizontal distance from the slot of position from to the slot of position to
+	 */
+	public int getSlotOffsetX(int from, int to) {
+		return (to % mNumColumns - from % mNumColumns) * mColumnStride;
+	}
+
+	/**
+	 * @return the vertical distance from the slot of position from to the slot of position to
+	 */
+	public int getSlotOffsetY(int from, int to) {
+		return (to / mNumColumns - from / mNumColumns) * mRowStride;
+	}
+
+	/**
+	 * @param width width of the grid
+	 * @param height height of the grid
+	 * @param firstLeft left of the first visible cell
+	 * @param firstTop top of the first visible cell
+	 * @param firstPosition position of the first visible cell
+	 * @param validCount the number of leading visible cells that can be hit
+	 * @return the position under (x, y), or {@link #INVALID_POSITION} for gaps, padding and cells past validCount
+	 */
+	public int positionAt(int x, int y, int width, int height,
+			int firstLeft, int firstTop, int firstPosition, int validCount) {
+		if (!mValid || validCount <= 0) {
+			return INVALID_POSITION;
+		}
+		if (x < mPaddingLeft || x >= width - mPaddingRight
+				|| y < mPaddingTop || y >= height - mPaddingBottom) {
+			return INVALID_POSITION;
+		}
+		int dx = x - firstLeft;
+		int dy = y - firstTop;
+		if (dx < 0 || dy < 0) {
+			return INVALID_POSITION;
+		}
+		int column = dx / mColumnStride;
+		if (column >= mNumColumns || dx - column * mColumnStride >= mCellWidth) {
+			return INVALID_POSITION;
+		}
+		int row = dy / mRowStride;
+		if (dy - row * mRowStride >= mCellHeight) {
+			return INVALID_POSITION;
+		}
+		int index = row * mNumColumns + column;
+		if (index >= validCount) {
+			return INVALID_POSITION;
+		}
+		return firstPosition + index;
+	}
+
+	/**
+	 * Same parameters as {@link #positionAt(int, int, int, int, int, int, int, int)}.
+	 * @return whether (x, y) is inside the grid and after the last of the validCount cells in reading order,
+	 * on a row below it or right of it on its row. Gaps between cells are not.
+	 */
+	public boolean isPastLast(int x, int y, int width, int height,
+			int firstLeft, int firstTop, int validCount) {
+		if (!mValid || validCount <= 0) {
+			return false;
+		}
+		if (x < mPaddingLeft || x >= width - mPaddingRight
+				|| y < mPaddingTop || y >= height - mPaddingBottom) {
+			return false;
+		}
+		int dx = x - firstLeft;
+		int dy = y - firstTop;
+		if (dx < 0 || dy < 0) {
+			return false;
+		}
+		int lastRow = (validCount - 1) / mNumColumns;
+		int lastColumn = (validCount - 1) % mNumColumns;
+		int row = dy / mRowStride;
+		return row > lastRow || row == lastRow && dx >= lastColumn * mColumnStride + mCellWidth;
+	}
+}
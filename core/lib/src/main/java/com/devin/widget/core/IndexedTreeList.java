@@ -0,0 +1,236 @@
+package com.devin.widget.core;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Random;
+
+/**
+ * An indexed list kept in an implicit treap (an order-statistic balanced tree) held in primitive arrays.
+ * {@link #move(int, int)}, {@link #get(int)}, {@link #insert(int, Object)} and {@link #remove(int)}
+ * cost O(log n) expected instead of shifting elements one at a time.
+ * Each item gets a stable id when it's added, which survives any number of moves.
+ *
+ * @author Devin Wong
+ *
+ */
+public class IndexedTreeList<T> {
+
+	private static final int NIL = 0;
+	private static final int INITIAL_CAPACITY = 16;
+
+	private Object[] mItems;
+	private long[] mIds;
+	private int[] mLeft;
+	private int[] mRight;
+	private int[] mPriority;
+	private int[] mSize;
+
+	private int mRoot = NIL;
+	private int mNextNode = 1;
+	private int mFreeNode = NIL;
+	private long mNextId;
+
+	private int mSplitLeft;
+	private int mSplitRight;
+
+	private Random mRandom = new Random();
+
+	public IndexedTreeList() {
+		allocate(INITIAL_CAPACITY);
+	}
+
+	public IndexedTreeList(Collection<? extends T> items) {
+		allocate(Math.max(INITIAL_CAPACITY, items.size() + 1));
+		for (T item : items) {
+			mRoot = merge(mRoot, newNode(item));
+		}
+	}
+
+	private void allocate(int capacity) {
+		mItems = new Object[capacity];
+		mIds = new long[capacity];
+		mLeft = new int[capacity];
+		mRight = new int[capacity];
+		mPriority = new int[capacity];
+		mSize = new int[capacity];
+	}
+
+	public int size() {
+		return mSize[mRoot];
+	}
+
+	/**
+	 * @return the id given to the item at position when it was added, it survives any number of moves
+	 */
+	public long getId(int position) {
+		return mIds[nodeAt(position)];
+	}
+
+	@SuppressWarnings("unchecked")
+	public T get(int position) {
+		return (T) mItems[nodeAt(position)];
+	}
+
+	public void set(int position, T item) {
+		mItems[nodeAt(position)] = item;
+	}
+
+	public void add(T item) {
+		insert(size(), item);
+	}
+
+	public void insert(int position, T item) {
+		if (position < 0 || position > size()) {
+			throw new IndexOutOfBoundsException("position: " + position + ", count: " + size());
+		}
+		int node = newNode(item);
+		split(mRoot, position);
+		int right = mSplitRight;
+		mRoot = merge(merge(mSplitLeft, node), right);
+	}
+
+	@SuppressWarnings("unchecked")
+	public T remove(int position) {
+		checkPosition(position);
+		int node = detach(position);
+		T item = (T) mItems[node];
+		freeNode(node);
+		return item;
+	}
+
+	public void clear() {
+		Arrays.fill(mItems, null);
+		mRoot = NIL;
+		mNextNode = 1;
+		mFreeNode = NIL;
+	}
+
+	/**
+	 * Move the item at from to to, items between are shifted by one. O(log n).
+	 */
+	public void move(int from, int to) {
+		checkPosition(from);
+		checkPosition(to);
+		if (from == to) {
+			return;
+		}
+		int node = detach(from);
+		split(mRoot, to);
+		int right = mSplitRight;
+		mRoot = merge(merge(mSplitLeft, node), right);
+	}
+
+	private void checkPosition(int position) {
+		if (position < 0 || position >= size()) {
+			throw new IndexOutOfBoundsException("position: " + position + ", count: " + size());
+		}
+	}
+
+	private int detach(int position) {
+		split(mRoot, position);
+		int left = mSplitLeft;
+		split(mSplitRight, 1);
+		int node = mSplitLeft;
+		mRoot = merge(left, mSplitRight);
+		return node;
+	}
+
+	private int nodeAt(int position) {
+		checkPosition(position);
+		int node = mRoot;
+		while (true) {
+			int leftSize = mSize[mLeft[node]];
+			if (position < leftSize) {
+				node = mLeft[node];
+			} else if (position == leftSize) {
+				return node;
+			} else {
+				position -= leftSize + 1;
+				node = mRight[node];
+			}
+		}
+	}
+
+	private int newNode(T item) {
+		int node;
+		if (mFreeNode != NIL) {
+			node = mFreeNode;
+			mFreeNode = mLeft[node];
+		} else {
+			if (mNextNode == mItems.length) {
+				grow();
+			}
+			node = mNextNode++;
+		}
+		mItems[node] = item;
+		mIds[node] = mNextId++;
+		mLeft[node] = NIL;
+		mRight[node] = NIL;
+		mPriority[node] = mRandom.nextInt();
+		mSize[node] = 1;
+		return node;
+	}
+
+	private void freeNode(int node) {
+		mItems[node] = null;
+		mRight[node] = NIL;
+		mSize[node] = 0;
+		mLeft[node] = mFreeNode;
+		mFreeNode = node;
+	}
+
+	private void grow() {
+		int capacity = mItems.length << 1;
+		mItems = Arrays.copyOf(mItems, capacity);
+		mIds = Arrays.copyOf(mIds, capacity);
+		mLeft = Arrays.copyOf(mLeft, capacity);
+		mRight = Arrays.copyOf(mRight, capacity);
+		mPriority = Arrays.copyOf(mPriority, capacity);
+		mSize = Arrays.copyOf(mSize, capacity);
+	}
+
+	private void update(int node) {
+		mSize[node] = mSize[mLeft[node]] + mSize[mRight[node]] + 1;
+	}
+
+	/**
+	 * Split tree into the first k items and the rest, results in mSplitLeft and mSplitRight.
+	 */
+	private void split(int tree, int k) {
+		if (tree == NIL) {
+			mSplitLeft = NIL;
+			mSplitRight = NIL;
+			return;
+		}
+		int leftSize = mSize[mLeft[tree]];
+		if (leftSize < k) {
+			split(mRight[tree], k - leftSize - 1);
+			mRight[tree] = mSplitLeft;
+			update(tree);
+			mSplitLeft = tree;
+		} else {
+			split(mLeft[tree], k);
+			mLeft[tree] = mSplitRight;
+			update(tree);
+			mSplitRight = tree;
+		}
+	}
+
+	private int merge(int left, int right) {
+		if (left == NIL) {
+			return right;
+		}
+		if (right == NIL) {
+			return left;
+		}
+		if (mPriority[left] > mPriority[right]) {
+			mRight[left] = merge(mRight[left], right);
+			update(left);
+			return left;
+		} else {
+			mLeft[right] = merge(left, mLeft[right]);
+			update(right);
+			return right;
+		}
+	}
+}
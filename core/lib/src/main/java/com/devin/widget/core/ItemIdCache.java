@@ -0,0 +1,117 @@
+package com.devin.widget.core;
+
+import java.util.Arrays;
+
+/**
+ * Item ids by adapter position, kept for the duration of a drag so a shift doesn't ask
+ * the adapter again for ids it has already seen. Scrolling doesn't change an id at a position,
+ * a shift is applied to the cache with {@link #shift(int, int)} the way it's applied to the data.
+ * Only a window of positions is kept, the visible ones, so its size and the cost of clearing and
+ * shifting it are bounded by the child count, however far down the list the drag is.
+ *
+ * @author Devin Wong
+ *
+ */
+public class ItemIdCache {
+
+	private static final int INITIAL_CAPACITY = 64;
+
+	private long[] mIds = new long[INITIAL_CAPACITY];
+	private boolean[] mCached = new boolean[INITIAL_CAPACITY];
+
+	/**
+	 * The window is [mFirst, mFirst + mCount), index 0 of the arrays holds mFirst.
+	 */
+	private int mFirst;
+	private int mCount;
+
+	public void clear() {
+		Arrays.fill(mCached, 0, mCount, false);
+	}
+
+	/**
+	 * Keep ids of positions [first, first + count) only, those already cached stay cached.
+	 */
+	public void setWindow(int first, int count) {
+		count = Math.max(0, count);
+		if (first == mFirst && count == mCount) {
+			return;
+		}
+		if (count > mIds.length) {
+			int capacity = mIds.length;
+			while (capacity < count) {
+				capacity <<= 1;
+			}
+			mIds = Arrays.copyOf(mIds, capacity);
+			mCached = Arrays.copyOf(mCached, capacity);
+		}
+		// the part of the old window inside the new one moves to its new index
+		int keepFirst = Math.max(first, mFirst);
+		int keepEnd = Math.min(first + count, mFirst + mCount);
+		if (keepFirst < keepEnd) {
+			System.arraycopy(mIds, keepFirst - mFirst, mIds, keepFirst - first, keepEnd - keepFirst);
+			System.arraycopy(mCached, keepFirst - mFirst, mCached, keepFirst - first, keepEnd - keepFirst);
+			Arrays.fill(mCached, 0, keepFirst - first, false);
+			Arrays.fill(mCached, keepEnd - first, count, false);
+		} else {
+			Arrays.fill(mCached, 0, count, false);
+		}
+		Arrays.fill(mCached, count, Math.max(count, mCount), false);
+		mFirst = first;
+		mCount = count;
+	}
+
+	public boolean contains(int position) {
+		int index = position - mFirst;
+		return index >= 0 && index < mCount && mCached[index];
+	}
+
+	public long get(int position) {
+		return mIds[position - mFirst];
+	}
+
+	/**
+	 * Cache id at position, ignored outside the window.
+	 */
+	public void put(int position, long id) {
+		int index = position - mFirst;
+		if (index >= 0 && index < mCount) {
+			mIds[index] = id;
+			mCached[index] = true;
+		}
+	}
+
+	/**
+	 * Move the id of dragPos to movePos, shifting the ids between by one, as {@link Reorder#shift} does.
+	 * Only the part of that range inside the window costs anything, ids shifted in from outside it aren't cached.
+	 */
+	public void shift(int dragPos, int movePos) {
+		if (dragPos == movePos || dragPos < 0 || movePos < 0) {
+			return;
+		}
+		int first = Math.max(Math.min(dragPos, movePos), mFirst) - mFirst;
+		int last = Math.min(Math.max(dragPos, movePos), mFirst + mCount - 1) - mFirst;
+		if (first > last) {
+			return;
+		}
+		boolean cached = contains(dragPos);
+		long drag = cached ? get(dragPos) : 0;
+		if (dragPos < movePos) {
+			System.arraycopy(mIds, first + 1, mIds, first, last - first);
+			System.arraycopy(mCached, first + 1, mCached, first, last - first);
+			set(last, movePos - mFirst == last, drag, cached);
+		} else {
+			System.arraycopy(mIds, first, mIds, first + 1, last - first);
+			System.arraycopy(mCached, first, mCached, first + 1, last - first);
+			set(first, movePos - mFirst == first, drag, cached);
+		}
+	}
+
+	/**
+	 * Fill the index a shift left open, with the dragged id when it landed there, or uncached.
+	 */
+	private void set(int index, boolean landed, long drag, boolean cached) {
+		mIds[index] = drag;
+		mCached[index] = landed && cached;
+	}
+}
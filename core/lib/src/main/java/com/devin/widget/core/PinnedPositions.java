@@ -0,0 +1,143 @@
+package com.devin.widget.core;
+
+import java.util.Arrays;
+
+/**
+ * Adapter positions that stay put while items are reordered, e.g. headers and ads.
+ * Kept as a sorted list of disjoint, non-adjacent inclusive intervals in two int arrays,
+ * so a pinned range of any length costs two ints and a lookup is a binary search that allocates nothing.
+ *
+ * @author Devin Wong
+ *
+ */
+public class PinnedPositions {
+
+	private static final int INITIAL_CAPACITY = 8;
+
+	private int[] mStarts = new int[INITIAL_CAPACITY];
+	private int[] mEnds = new int[INITIAL_CAPACITY];
+	private int mSize;
+
+	public void clear() {
+		mSize = 0;
+	}
+
+	public boolean isEmpty() {
+		return mSize == 0;
+	}
+
+	public void pin(int position) {
+		pin(position, position);
+	}
+
+	/**
+	 * Pin positions start to end, both included, merging with the intervals it overlaps or touches.
+	 */
+	public void pin(int start, int end) {
+		if (start < 0 || end < start) {
+			throw new IllegalArgumentException("bad interval [" + start + ", " + end + "]");
+		}
+		// first interval that ends at or after start - 1, i.e. touches or follows the new one
+		int first = indexOfEndAtLeast(start - 1);
+		int last = first;
+		while (last < mSize && mStarts[last] <= end + 1) {
+			last++;
+		}
+		if (first < last) {
+			start = Math.min(start, mStarts[first]);
+			end = Math.max(end, mEnds[last - 1]);
+		}
+		int removed = last - first;
+		if (removed == 0) {
+			if (mSize == mStarts.length) {
+				mStarts = Arrays.copyOf(mStarts, mSize * 2);
+				mEnds = Arrays.copyOf(mEnds, mSize * 2);
+			}
+			System.arraycopy(mStarts, first, mStarts, first + 1, mSize - first);
+			System.arraycopy(mEnds, first, mEnds, first + 1, mSize - first);
+			mSize++;
+		} else if (removed > 1) {
+			System.arraycopy(mStarts, last, mStarts, first + 1, mSize - last);
+			System.arraycopy(mEnds, last, mEnds, first + 1, mSize - last);
+			mSize -= removed - 1;
+		}
+		mStarts[first] = start;
+		mEnds[first] = end;
+	}
+
+	/**
+	 * Unpin positions start to end, both included, splitting an interval that spans them.
+	 */
+	public void unpin(int start, int end) {
+		int index = indexOfEndAtLeast(start);
+		if (index < mSize && mStarts[index] < start && mEnds[index] > end) {
+			int tail = mEnds[index];
+			mEnds[index] = start - 1;
+			pin(end + 1, tail);
+			return;
+		}
+		int last = index;
+		while (last < mSize && mStarts[last] <= end) {
+			last++;
+		}
+		if (index < last && mStarts[index] < start) {
+			mEnds[index] = start - 1;
+			index++;
+		}
+		if (index < last && mEnds[last - 1] > end) {
+			mStarts[last - 1] = end + 1;
+			last--;
+		}
+		if (index < last) {
+			System.arraycopy(mStarts, last, mStarts, index, mSize - last);
+			System.arraycopy(mEnds, last, mEnds, index, mSize - last);
+			mSize -= last - index;
+		}
+	}
+
+	public boolean isPinned(int position) {
+		int index = indexOfEndAtLeast(position);
+		return index < mSize && mStarts[index] <= position;
+	}
+
+	/**
+	 * @return position if it isn't pinned, otherwise the closest unpinned one stepping by direction,
+	 * which may be out of the adapter's range
+	 */
+	public int nextUnpinned(int position, int direction) {
+		int index = indexOfEndAtLeast(position);
+		if (index >= mSize || mStarts[index] > position) {
+			return position;
+		}
+		return direction > 0 ? mEnds[index] + 1 : mStarts[index] - 1;
+	}
+
+	public int getIntervalCount() {
+		return mSize;
+	}
+
+	public int getStart(int interval) {
+		return mStarts[interval];
+	}
+
+	public int getEnd(int interval) {
+		return mEnds[interval];
+	}
+
+	/**
+	 * @return the first interval ending at or after position, or the interval count
+	 */
+	public int indexOfEndAtLeast(int position) {
+		int low = 0;
+		int high = mSize;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (mEnds[mid] < position) {
+				low = mid + 1;
+			} else {
+				high = mid;
+			}
+		}
+		return low;
+	}
+}
@@ -0,0 +1,170 @@
+package com.devin.widget.core;
+
+import java.util.Arrays;
+
+/**
+ * An open-addressing map from item id to (value, x, y) snapshots.
+ * Entries live in parallel primitive arrays in insertion order and are
+ * cleared and refilled in place, so taking and diffing snapshots allocates nothing
+ * once the arrays have grown to the number of visible children.
+ *
+ * @author Devin Wong
+ *
+ */
+public class PositionTable<V> {
+
+	public interface DiffCallback<V> {
+		/**
+		 * The entry of id, now holding value, was at (x + dx, y + dy) in the old snapshot.
+		 */
+		public void onMoved(long id, V value, float dx, float dy);
+	}
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private long[] mIds;
+	private Object[] mValues;
+	private float[] mXs;
+	private float[] mYs;
+	private int mSize;
+
+	/**
+	 * Slot table, holds entry index + 1 and 0 for an empty slot. Length is a power of two.
+	 */
+	private int[] mSlots;
+
+	public PositionTable() {
+		allocate(INITIAL_CAPACITY);
+	}
+
+	private void allocate(int capacity) {
+		mIds = new long[capacity];
+		mValues = new Object[capacity];
+		mXs = new float[capacity];
+		mYs = new float[capacity];
+		mSlots = new int[capacity * 2];
+	}
+
+	public void clear() {
+		Arrays.fill(mValues, 0, mSize, null);
+		Arrays.fill(mSlots, 0);
+		mSize = 0;
+	}
+
+	public int size() {
+		return mSize;
+	}
+
+	/**
+	 * Make room for at least count entries. Clears the table.
+	 */
+	public void ensureCapacity(int count) {
+		if (count <= mIds.length) {
+			clear();
+			return;
+		}
+		int capacity = mIds.length;
+		while (capacity < count) {
+			capacity <<= 1;
+		}
+		allocate(capacity);
+		mSize = 0;
+	}
+
+	public void put(long id, V value, float x, float y) {
+		int index = indexOf(id);
+		if (index < 0) {
+			if (mSize == mIds.length) {
+				grow();
+			}
+			index = mSize++;
+			mIds[index] = id;
+			insertSlot(id, index);
+		}
+		mValues[index] = value;
+		mXs[index] = x;
+		mYs[index] = y;
+	}
+
+	/**
+	 * @return the entry index of id, or -1 when it's absent
+	 */
+	public int indexOf(long id) {
+		int mask = mSlots.length - 1;
+		int slot = hash(id) & mask;
+		while (true) {
+			int entry = mSlots[slot];
+			if (entry == 0) {
+				return -1;
+			}
+			if (mIds[entry - 1] == id) {
+				return entry - 1;
+			}
+			slot = (slot + 1) & mask;
+		}
+	}
+
+	public long idAt(int index) {
+		return mIds[index];
+	}
+
+	@SuppressWarnings("unchecked")
+	public V valueAt(int index) {
+		return (V) mValues[index];
+	}
+
+	public float xAt(int index) {
+		return mXs[index];
+	}
+
+	public float yAt(int index) {
+		return mYs[index];
+	}
+
+	/**
+	 * Report every entry of now whose position differs from old, entries absent from old are skipped.
+	 * @return the number of moved entries
+	 */
+	public static <V> int diff(PositionTable<V> old, PositionTable<V> now, DiffCallback<V> callback) {
+		int moved = 0;
+		for (int i = 0; i < now.mSize; i++) {
+			int index = old.indexOf(now.mIds[i]);
+			if (index < 0) {
+				continue;
+			}
+			float dx = old.mXs[index] - now.mXs[i];
+			float dy = old.mYs[index] - now.mYs[i];
+			if (dx != 0 || dy != 0) {
+				moved++;
+				callback.onMoved(now.mIds[i], now.valueAt(i), dx, dy);
+			}
+		}
+		return moved;
+	}
+
+	private void insertSlot(long id, int index) {
+		int mask = mSlots.length - 1;
+		int slot = hash(id) & mask;
+		while (mSlots[slot] != 0) {
+			slot = (slot + 1) & mask;
+		}
+		mSlots[slot] = index + 1;
+	}
+
+	private void grow() {
+		int capacity = mIds.length << 1;
+		mIds = Arrays.copyOf(mIds, capacity);
+		mValues = Arrays.copyOf(mValues, capacity);
+		mXs = Arrays.copyOf(mXs, capacity);
+		mYs = Arrays.copyOf(mYs, capacity);
+		mSlots = new int[capacity * 2];
+		for (int i = 0; i < mSize; i++) {
+			insertSlot(mIds[i], i);
+		}
+	}
+
+	private static int hash(long id) {
+		long h = id * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+}
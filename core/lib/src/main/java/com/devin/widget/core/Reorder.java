@@ -0,0 +1,113 @@
+package com.devin.widget.core;
+
+import java.util.List;
+
+/**
+ * Shift and swap rules of a drag, free of any view.
+ *
+ * @author Devin Wong
+ *
+ */
+public final class Reorder {
+
+	/**
+	 * Receives the plain shifts a shift around pinned positions is made of.
+	 */
+	public interface ShiftSink {
+		public void shift(int dragPos, int movePos);
+	}
+
+	private Reorder() {
+	}
+
+	/**
+	 * Rotate list so that the item at dragPos lands on movePos, or on the end when movePos is
+	 * {@link GridMetrics#INVALID_POSITION}. This is the O(distance) contract of OnShiftListener,
+	 * see {@link IndexedTreeList#move(int, int)} for O(log n).
+	 */
+	public static <T> void shift(List<T> list, int dragPos, int movePos) {
+		if (movePos == GridMetrics.INVALID_POSITION) {
+			movePos = list.size() - 1;
+		}
+		T drag = list.get(dragPos);
+		if (dragPos < movePos) {
+			for (int i = dragPos; i < movePos; i++) {
+				list.set(i, list.get(i + 1));
+			}
+		} else {
+			for (int i = dragPos; i > movePos; i--) {
+				list.set(i, list.get(i - 1));
+			}
+		}
+		list.set(movePos, drag);
+	}
+
+	/**
+	 * Shift dragPos to movePos keeping pinned positions in place, the unpinned items between rotate around them.
+	 * It's delivered to sink as plain shifts, one over the whole range, then one per pinned interval inside it,
+	 * which moves the interval back and the item it displaced past it. Neither dragPos nor movePos may be pinned.
+	 * @return the number of shifts delivered
+	 */
+	public static int shiftAroundPinned(int dragPos, int movePos, PinnedPositions pinned, ShiftSink sink) {
+		if (dragPos == movePos) {
+			return 0;
+		}
+		sink.shift(dragPos, movePos);
+		int count = 1;
+		if (pinned == null) {
+			return count;
+		}
+		int low = Math.min(dragPos, movePos);
+		int high = Math.max(dragPos, movePos);
+		int intervals = pinned.getIntervalCount();
+		for (int i = pinned.indexOfEndAtLeast(low); i < intervals && pinned.getStart(i) <= high; i++) {
+			int start = Math.max(pinned.getStart(i), low + 1);
+			int end = Math.min(pinned.getEnd(i), high - 1);
+			if (start > end) {
+				continue;
+			}
+			if (dragPos < movePos) {
+				// the interval slid to [start - 1, end - 1], the item for start - 1 is at end
+				sink.shift(end, start - 1);
+			} else {
+				// the interval slid to [start + 1, end + 1], the item for end + 1 is at start
+				sink.shift(start, end + 1);
+			}
+			count++;
+		}
+		return count;
+	}
+
+	public static <T> void swap(List<T> list, int dragPos, int movePos) {
+		T temp = list.get(dragPos);
+		list.set(dragPos, list.get(movePos));
+		list.set(movePos, temp);
+	}
+
+	/**
+	 * @return the slot position is displayed at while the item of dragPos hovers over target
+	 */
+	public static int shiftedSlot(int position, int dragPos, int target) {
+		if (dragPos < target && position > dragPos && position <= target) {
+			return position - 1;
+		}
+		if (target < dragPos && position >= target && position < dragPos) {
+			return position + 1;
+		}
+		return position;
+	}
+
+	/**
+	 * Springback lasts 3ms per pixel of travel, clamped to [min, max].
+	 */
+	public static long springbackDuration(int deltaX, int deltaY, long min, long max) {
+		float dx = Math.abs(deltaX);
+		float dy = Math.abs(deltaY);
+		long duration = (long) Math.sqrt(dx * dx + dy * dy);
+		return clamp(duration * 3, min, max);
+	}
+
+	public static long clamp(long x, long min, long max) {
+		return x > max ? max : (x < min ? min : x);
+	}
+}
@@ -0,0 +1,196 @@
+package com.devin.widget.core;
+
+/**
+ * Undo and redo history of reorder operations, kept as (type, from, to) triples in an int ring buffer
+ * that grows up to its depth, the oldest entry is overwritten after that.
+ * Shifts recorded between {@link #beginGesture()} and {@link #endGesture()} coalesce into one entry,
+ * as the dragged item moving from a to b then c is a single shift from a to c,
+ * so a gesture costs three ints however many cells it crossed.
+ *
+ * @author Devin Wong
+ *
+ */
+public class ReorderHistory {
+
+	public static final int TYPE_SHIFT = 1;
+	public static final int TYPE_SWAP = 2;
+
+	public static final int DEFAULT_DEPTH = 32;
+
+	private static final int INITIAL_CAPACITY = 8;
+	private static final int FIELDS = 3;
+
+	private int[] mData = new int[INITIAL_CAPACITY * FIELDS];
+	private int mDepth;
+	/**
+	 * Index of the oldest entry in the ring.
+	 */
+	private int mStart;
+	/**
+	 * Entries kept, done ones first, then the undone ones which can be redone.
+	 */
+	private int mCount;
+	/**
+	 * Entries done, the next undo is entry mCursor - 1.
+	 */
+	private int mCursor;
+
+	private boolean mInGesture;
+	/**
+	 * Whether entry mCursor - 1 was recorded by the current gesture and may be coalesced.
+	 */
+	private boolean mGestureEntry;
+
+	public ReorderHistory() {
+		this(DEFAULT_DEPTH);
+	}
+
+	public ReorderHistory(int depth) {
+		setDepth(depth);
+	}
+
+	/**
+	 * Keep the last depth entries, older ones are dropped.
+	 */
+	public void setDepth(int depth) {
+		if (depth <= 0) {
+			throw new IllegalArgumentException("depth should be positive, but " + depth);
+		}
+		while (mCount > depth) {
+			if (mCursor == mCount) {
+				dropOldest();
+			} else {
+				mCount--;
+			}
+		}
+		mDepth = depth;
+	}
+
+	public int getDepth() {
+		return mDepth;
+	}
+
+	public void clear() {
+		mStart = 0;
+		mCount = 0;
+		mCursor = 0;
+		mGestureEntry = false;
+	}
+
+	public void beginGesture() {
+		mInGesture = true;
+		mGestureEntry = false;
+	}
+
+	public void endGesture() {
+		mInGesture = false;
+		mGestureEntry = false;
+	}
+
+	/**
+	 * Record an operation that's been done, dropping what could be redone.
+	 */
+	public void record(int type, int from, int to) {
+		if (type != TYPE_SHIFT && type != TYPE_SWAP) {
+			throw new IllegalArgumentException("unknown type " + type);
+		}
+		mCount = mCursor;
+		if (mGestureEntry && type == TYPE_SHIFT) {
+			int offset = offsetOf(mCursor - 1);
+			if (mData[offset] == TYPE_SHIFT && mData[offset + 2] == from) {
+				if (mData[offset + 1] == to) {
+					mCount--;
+					mCursor--;
+					mGestureEntry = false;
+				} else {
+					mData[offset + 2] = to;
+				}
+				return;
+			}
+		}
+		if (from == to) {
+			return;
+		}
+		if (mCount == mDepth) {
+			dropOldest();
+		} else if (mCount * FIELDS == mData.length) {
+			grow();
+		}
+		int offset = offsetOf(mCount);
+		mData[offset] = type;
+		mData[offset + 1] = from;
+		mData[offset + 2] = to;
+		mCount++;
+		mCursor++;
+		mGestureEntry = mInGesture;
+	}
+
+	public boolean canUndo() {
+		return mCursor > 0;
+	}
+
+	public boolean canRedo() {
+		return mCursor < mCount;
+	}
+
+	/**
+	 * Step back over the last operation, read it with {@link #getType(int)}, {@link #getFrom(int)}
+	 * and {@link #getTo(int)} and apply its inverse: a shift from to to from, the same swap.
+	 * @return the entry undone, or -1 when there's nothing to undo
+	 */
+	public int undo() {
+		if (!canUndo()) {
+			return -1;
+		}
+		mGestureEntry = false;
+		return --mCursor;
+	}
+
+	/**
+	 * Step forward over the last undone operation, apply it again as read.
+	 * @return the entry redone, or -1 when there's nothing to redo
+	 */
+	public int redo() {
+		if (!canRedo()) {
+			return -1;
+		}
+		mGestureEntry = false;
+		return mCursor++;
+	}
+
+	public int getType(int entry) {
+		return mData[offsetOf(entry)];
+	}
+
+	public int getFrom(int entry) {
+		return mData[offsetOf(entry) + 1];
+	}
+
+	public int getTo(int entry) {
+		return mData[offsetOf(entry) + 2];
+	}
+
+	private int offsetOf(int entry) {
+		int capacity = mData.length / FIELDS;
+		return (mStart + entry) % capacity * FIELDS;
+	}
+
+	private void dropOldest() {
+		mStart = (mStart + 1) % (mData.length / FIELDS);
+		mCount--;
+		mCursor--;
+	}
+
+	/**
+	 * Unroll the ring into a larger array, oldest entry first.
+	 */
+	private void grow() {
+		int capacity = mData.length / FIELDS;
+		int[] data = new int[Math.min(capacity * 2, mDepth) * FIELDS];
+		int head = (capacity - mStart) * FIELDS;
+		System.arraycopy(mData, mStart * FIELDS, data, 0, head);
+		System.arraycopy(mData, 0, data, head, mStart * FIELDS);
+		mData = data;
+		mStart = 0;
+	}
+}
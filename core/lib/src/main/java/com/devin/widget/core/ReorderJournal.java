@@ -0,0 +1,337 @@
+package com.devin.widget.core;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * A persistent item order made of a snapshot of item ids and a memory-mapped, append-only journal
+ * of the moves made since. A move costs one fixed-size record written into the mapping,
+ * the journal is compacted into a new snapshot when it fills up. {@link #open()} rebuilds the order
+ * from the snapshot and the journal tail, which costs the length of the order plus the distance of the tail moves.
+ *
+ * <p>Snapshot file: magic, version, generation, count, then count item ids.
+ * Journal file: magic, version, generation, then records of from, to, item id and kind.
+ * The kind is written last and 0 marks the end, so a record torn by a crash is never replayed.
+ * Its upper 24 bits hold the generation, so a record left over from an older journal, whose kind
+ * a crash kept from being zeroed, isn't replayed either.
+ * A journal is only replayed onto the snapshot of the same generation, a crash between writing
+ * a new snapshot and clearing the journal therefore loses nothing and replays nothing twice.</p>
+ *
+ * <p>Not thread-safe, confine it to one thread.</p>
+ *
+ * @author Devin Wong
+ *
+ */
+public class ReorderJournal implements Closeable {
+
+	public static final int KIND_SHIFT = 1;
+	public static final int KIND_SWAP = 2;
+
+	/**
+	 * Bytes of a record: from, to, item id and kind.
+	 */
+	public static final int RECORD_SIZE = 20;
+	public static final int DEFAULT_CAPACITY = 4096;
+
+	private static final int SNAPSHOT_MAGIC = 0x44475353;
+	private static final int JOURNAL_MAGIC = 0x4447534a;
+	private static final int VERSION = 1;
+	private static final int KIND_MASK = 0xff;
+	private static final int SNAPSHOT_HEADER_SIZE = 20;
+	private static final int JOURNAL_HEADER_SIZE = 16;
+
+	private final File mSnapshotFile;
+	private final File mJournalFile;
+	private final int mCapacity;
+
+	private RandomAccessFile mJournal;
+	private MappedByteBuffer mBuffer;
+	private long mGeneration;
+	private int mCount;
+
+	private long[] mOrder;
+	private int mSize;
+
+	/**
+	 * @param dir where the snapshot and the journal are kept, created if needed
+	 */
+	public ReorderJournal(File dir) {
+		this(dir, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * @param capacity records the journal holds before it's compacted
+	 */
+	public ReorderJournal(File dir, int capacity) {
+		if (capacity <= 0) {
+			throw new IllegalArgumentException("capacity should be positive, but " + capacity);
+		}
+		mSnapshotFile = new File(dir, "order.snapshot");
+		mJournalFile = new File(dir, "order.journal");
+		mCapacity = capacity;
+	}
+
+	/**
+	 * Map the journal and rebuild the order from the snapshot and the journal tail.
+	 * A tail record that doesn't match the order, e.g. torn by a crash, ends the tail.
+	 * @return the item ids in order, or null when nothing was persisted yet, see {@link #reset(long[])}
+	 */
+	public long[] open() throws IOException {
+		close();
+		File dir = mSnapshotFile.getParentFile();
+		if (dir != null && !dir.isDirectory() && !dir.mkdirs()) {
+			throw new IOException("can't create " + dir);
+		}
+		readSnapshot();
+		mJournal = new RandomAccessFile(mJournalFile, "rw");
+		mBuffer = mJournal.getChannel().map(FileChannel.MapMode.READ_WRITE, 0,
+				JOURNAL_HEADER_SIZE + (long) mCapacity * RECORD_SIZE);
+		mBuffer.order(ByteOrder.BIG_ENDIAN);
+		mCount = 0;
+		if (mOrder == null || mBuffer.getInt(0) != JOURNAL_MAGIC || mBuffer.getInt(4) != VERSION
+				|| mBuffer.getLong(8) != mGeneration) {
+			clearJournal();
+		} else {
+			replay();
+		}
+		return mOrder == null ? null : Arrays.copyOf(mOrder, mSize);
+	}
+
+	/**
+	 * Persist ids as the new order, replacing the snapshot and clearing the journal.
+	 */
+	public void reset(long[] ids) throws IOException {
+		checkOpen();
+		mOrder = Arrays.copyOf(ids, Math.max(ids.length, 16));
+		mSize = ids.length;
+		compact();
+	}
+
+	/**
+	 * Append a shift of the item id from from to to, items between are shifted by one.
+	 * @throws IllegalStateException when the order has no id at from, the caller's order and the journal disagree
+	 */
+	public void shift(int from, int to, long id) throws IOException {
+		append(KIND_SHIFT, from, to, id);
+	}
+
+	/**
+	 * Append a swap of the item id at from with the item at to.
+	 */
+	public void swap(int from, int to, long id) throws IOException {
+		append(KIND_SWAP, from, to, id);
+	}
+
+	/**
+	 * Fold the journal into a new snapshot and clear it.
+	 */
+	public void compact() throws IOException {
+		checkOpen();
+		if (mOrder == null) {
+			return;
+		}
+		writeSnapshot(mGeneration + 1);
+		mGeneration++;
+		clearJournal();
+	}
+
+	/**
+	 * @return the number of records in the journal since the last compaction
+	 */
+	public int getJournalSize() {
+		return mCount;
+	}
+
+	/**
+	 * @return the number of items in order, -1 when nothing was persisted yet
+	 */
+	public int size() {
+		return mOrder == null ? -1 : mSize;
+	}
+
+	/**
+	 * Write the mapped journal through to the storage device.
+	 */
+	public void flush() {
+		if (mBuffer != null) {
+			mBuffer.force();
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (mJournal != null) {
+			flush();
+			mBuffer = null;
+			mJournal.close();
+			mJournal = null;
+		}
+	}
+
+	private void append(int kind, int from, int to, long id) throws IOException {
+		checkOpen();
+		if (mOrder == null) {
+			throw new IllegalStateException("no order to journal, reset it first");
+		}
+		if (!apply(kind, from, to, id)) {
+			throw new IllegalStateException("item " + id + " isn't at " + from + " of " + mSize);
+		}
+		if (mCount == mCapacity) {
+			compact();
+			return;
+		}
+		int offset = JOURNAL_HEADER_SIZE + mCount * RECORD_SIZE;
+		mBuffer.putInt(offset, from);
+		mBuffer.putInt(offset + 4, to);
+		mBuffer.putLong(offset + 8, id);
+		mBuffer.putInt(offset + 16, tag(kind));
+		mCount++;
+	}
+
+	private void replay() {
+		while (mCount < mCapacity) {
+			int offset = JOURNAL_HEADER_SIZE + mCount * RECORD_SIZE;
+			int kind = mBuffer.getInt(offset + 16);
+			if (kind == 0 || (kind & ~KIND_MASK) != tag(0) || !apply(kind & KIND_MASK,
+					mBuffer.getInt(offset), mBuffer.getInt(offset + 4), mBuffer.getLong(offset + 8))) {
+				break;
+			}
+			mCount++;
+		}
+		clearRecords(mCount);
+	}
+
+	/**
+	 * @return kind as written in a record of the current generation
+	 */
+	private int tag(int kind) {
+		return (int) mGeneration << 8 | kind;
+	}
+
+	/**
+	 * @return false when the move doesn't fit the order
+	 */
+	private boolean apply(int kind, int from, int to, long id) {
+		if (from < 0 || from >= mSize || to < 0 || to >= mSize || mOrder[from] != id) {
+			return false;
+		}
+		long[] order = mOrder;
+		if (kind == KIND_SWAP) {
+			order[from] = order[to];
+			order[to] = id;
+			return true;
+		}
+		if (kind != KIND_SHIFT) {
+			return false;
+		}
+		if (from < to) {
+			System.arraycopy(order, from + 1, order, from, to - from);
+		} else {
+			System.arraycopy(order, to, order, to + 1, from - to);
+		}
+		order[to] = id;
+		return true;
+	}
+
+	private void readSnapshot() throws IOException {
+		mOrder = null;
+		mSize = 0;
+		mGeneration = 0;
+		if (!mSnapshotFile.isFile()) {
+			return;
+		}
+		RandomAccessFile file = new RandomAccessFile(mSnapshotFile, "r");
+		try {
+			FileChannel channel = file.getChannel();
+			if (channel.size() < SNAPSHOT_HEADER_SIZE) {
+				return;
+			}
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			if (buffer.getInt(0) != SNAPSHOT_MAGIC || buffer.getInt(4) != VERSION) {
+				return;
+			}
+			int count = buffer.getInt(16);
+			if (count < 0 || channel.size() < SNAPSHOT_HEADER_SIZE + (long) count * 8) {
+				return;
+			}
+			long[] order = new long[Math.max(count, 16)];
+			buffer.position(SNAPSHOT_HEADER_SIZE);
+			buffer.slice().asLongBuffer().get(order, 0, count);
+			mGeneration = buffer.getLong(8);
+			mOrder = order;
+			mSize = count;
+		} finally {
+			file.close();
+		}
+	}
+
+	/**
+	 * Write the snapshot aside and rename it over the old one, so a crash leaves either one whole.
+	 */
+	private void writeSnapshot(long generation) throws IOException {
+		File temp = new File(mSnapshotFile.getPath() + ".tmp");
+		RandomAccessFile file = new RandomAccessFile(temp, "rw");
+		try {
+			file.setLength(0);
+			FileChannel channel = file.getChannel();
+			ByteBuffer header = ByteBuffer.allocate(SNAPSHOT_HEADER_SIZE);
+			header.putInt(SNAPSHOT_MAGIC).putInt(VERSION).putLong(generation).putInt(mSize);
+			header.flip();
+			while (header.hasRemaining()) {
+				channel.write(header);
+			}
+			ByteBuffer body = ByteBuffer.allocate(Math.min(mSize, 8192) * 8);
+			LongBuffer longs = body.asLongBuffer();
+			for (int i = 0; i < mSize; i += longs.capacity()) {
+				int count = Math.min(longs.capacity(), mSize - i);
+				longs.clear();
+				longs.put(mOrder, i, count);
+				body.clear();
+				body.limit(count * 8);
+				while (body.hasRemaining()) {
+					channel.write(body);
+				}
+			}
+			channel.force(true);
+		} finally {
+			file.close();
+		}
+		if (!temp.renameTo(mSnapshotFile)) {
+			throw new IOException("can't rename " + temp + " to " + mSnapshotFile);
+		}
+	}
+
+	private void clearJournal() {
+		mBuffer.putInt(0, JOURNAL_MAGIC);
+		mBuffer.putInt(4, VERSION);
+		mBuffer.putLong(8, mGeneration);
+		mCount = 0;
+		clearRecords(0);
+	}
+
+	/**
+	 * Zero the kinds of the records from index on. All of them, as a crash may persist pages out of order.
+	 */
+	private void clearRecords(int index) {
+		for (int i = index; i < mCapacity; i++) {
+			int offset = JOURNAL_HEADER_SIZE + i * RECORD_SIZE + 16;
+			if (mBuffer.getInt(offset) != 0) {
+				mBuffer.putInt(offset, 0);
+			}
+		}
+	}
+
+	private void checkOpen() {
+		if (mBuffer == null) {
+			throw new IllegalStateException("journal isn't open");
+		}
+	}
+}
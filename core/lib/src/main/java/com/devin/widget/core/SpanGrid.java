@@ -0,0 +1,325 @@
+package com.devin.widget.core;
+
+import java.util.Arrays;
+
+/**
+ * Placement of tiles spanning several columns and rows, e.g. 1x1, 2x1 and 2x2 dashboard tiles,
+ * packed in adapter order the way CSS grid auto-placement does: each tile goes to the first free spot
+ * at or after the previous one, so rows of placements never go back up.
+ * A cell table maps each (column, row) to its tile, making a hit-test two divisions and a lookup.
+ * A shift only re-packs from the first tile it moves until the packing is back on its old track,
+ * the rows below keep their tiles untouched.
+ *
+ * @author Devin Wong
+ *
+ */
+public class SpanGrid {
+
+	public static final int INVALID_POSITION = GridMetrics.INVALID_POSITION;
+
+	private static final int EMPTY = -1;
+
+	private final int mNumColumns;
+
+	private int mCount;
+	private int[] mColumnSpans = new int[0];
+	private int[] mRowSpans = new int[0];
+	private int[] mColumns = new int[0];
+	private int[] mRows = new int[0];
+	private int mMaxRowSpan = 1;
+
+	/**
+	 * Tile of each cell, row by row, EMPTY for holes.
+	 */
+	private int[] mCells = new int[0];
+	private int mRowCount;
+
+	/**
+	 * A re-pack leaves the cells of the tiles it re-places where they are and stamps the cells it writes
+	 * with its generation, a cell is taken if it's stamped or belongs to a tile before mFirst.
+	 * What a stamped cell held before is kept in mOldCells, so the old layout can still be read.
+	 */
+	private int mGeneration;
+	private int mFirst;
+	private int[] mStamps = new int[0];
+	private int[] mOldCells = new int[0];
+
+	private int mChangedFirst = INVALID_POSITION;
+	private int mChangedLast = INVALID_POSITION;
+
+	public SpanGrid(int numColumns) {
+		if (numColumns <= 0) {
+			throw new IllegalArgumentException("numColumns should be positive, but " + numColumns);
+		}
+		mNumColumns = numColumns;
+	}
+
+	/**
+	 * Pack count tiles from scratch, spans wider than the grid are narrowed to it.
+	 */
+	public void setSpans(int[] columnSpans, int[] rowSpans, int count) {
+		if (mColumnSpans.length < count) {
+			mColumnSpans = new int[count];
+			mRowSpans = new int[count];
+			mColumns = new int[count];
+			mRows = new int[count];
+		}
+		mCount = count;
+		mMaxRowSpan = 1;
+		for (int i = 0; i < count; i++) {
+			if (columnSpans[i] <= 0 || rowSpans[i] <= 0) {
+				throw new IllegalArgumentException("bad span " + columnSpans[i] + "x" + rowSpans[i] + " at " + i);
+			}
+			mColumnSpans[i] = Math.min(columnSpans[i], mNumColumns);
+			mRowSpans[i] = rowSpans[i];
+			mMaxRowSpan = Math.max(mMaxRowSpan, rowSpans[i]);
+		}
+		Arrays.fill(mCells, 0, mRowCount * mNumColumns, EMPTY);
+		mRowCount = 0;
+		mGeneration++;
+		mFirst = 0;
+		int row = 0;
+		int column = 0;
+		for (int i = 0; i < count; i++) {
+			place(i, row, column);
+			row = mRows[i];
+			column = mColumns[i] + mColumnSpans[i];
+		}
+		mChangedFirst = count > 0 ? 0 : INVALID_POSITION;
+		mChangedLast = count - 1;
+	}
+
+	public int getNumColumns() {
+		return mNumColumns;
+	}
+
+	public int getCount() {
+		return mCount;
+	}
+
+	public int getRowCount() {
+		return mRowCount;
+	}
+
+	public int getColumn(int position) {
+		return mColumns[position];
+	}
+
+	public int getRow(int position) {
+		return mRows[position];
+	}
+
+	public int getColumnSpan(int position) {
+		return mColumnSpans[position];
+	}
+
+	public int getRowSpan(int position) {
+		return mRowSpans[position];
+	}
+
+	/**
+	 * @return the tile covering the cell, or {@link #INVALID_POSITION} for a hole or a cell out of the grid
+	 */
+	public int positionAt(int column, int row) {
+		if (column < 0 || column >= mNumColumns || row < 0 || row >= mRowCount) {
+			return INVALID_POSITION;
+		}
+		int tile = mCells[row * mNumColumns + column];
+		return tile == EMPTY ? INVALID_POSITION : tile;
+	}
+
+	/**
+	 * Hit-test a point relative to the top left of the first cell. A gap between cells belongs to
+	 * the tile spanning both sides of it, otherwise to nothing.
+	 * @param columnStride distance between the left edges of two neighbouring columns
+	 * @param rowStride distance between the top edges of two neighbouring rows
+	 */
+	public int positionAt(int x, int y, int cellWidth, int cellHeight, int columnStride, int rowStride) {
+		if (x < 0 || y < 0) {
+			return INVALID_POSITION;
+		}
+		int column = x / columnStride;
+		int row = y / rowStride;
+		int position = positionAt(column, row);
+		if (position == INVALID_POSITION) {
+			return INVALID_POSITION;
+		}
+		if (x - column * columnStride >= cellWidth && positionAt(column + 1, row) != position) {
+			return INVALID_POSITION;
+		}
+		if (y - row * rowStride >= cellHeight && positionAt(column, row + 1) != position) {
+			return INVALID_POSITION;
+		}
+		return position;
+	}
+
+	/**
+	 * Move the tile at from to to, tiles between move up or down by one as in {@link Reorder#shift},
+	 * and re-pack. Read which tiles may have moved with {@link #getChangedFirst()} and {@link #getChangedLast()}.
+	 */
+	public void shift(int from, int to) {
+		if (from == to) {
+			mChangedFirst = INVALID_POSITION;
+			mChangedLast = INVALID_POSITION;
+			return;
+		}
+		int columnSpan = mColumnSpans[from];
+		int rowSpan = mRowSpans[from];
+		if (from < to) {
+			System.arraycopy(mColumnSpans, from + 1, mColumnSpans, from, to - from);
+			System.arraycopy(mRowSpans, from + 1, mRowSpans, from, to - from);
+		} else {
+			System.arraycopy(mColumnSpans, to, mColumnSpans, to + 1, from - to);
+			System.arraycopy(mRowSpans, to, mRowSpans, to + 1, from - to);
+		}
+		mColumnSpans[to] = columnSpan;
+		mRowSpans[to] = rowSpan;
+		reflow(Math.min(from, to), Math.max(from, to));
+	}
+
+	/**
+	 * @return the first tile the last change may have moved, or {@link #INVALID_POSITION}
+	 */
+	public int getChangedFirst() {
+		return mChangedFirst;
+	}
+
+	/**
+	 * @return the last tile the last change may have moved, tiles after it kept their cells
+	 */
+	public int getChangedLast() {
+		return mChangedLast;
+	}
+
+	/**
+	 * Re-pack from tile first, whose spans changed up to tile last.
+	 */
+	private void reflow(int first, int last) {
+		int startRow = mRows[first];
+		int oldRowCount = mRowCount;
+		mGeneration++;
+		mFirst = first;
+		// tiles before first keep their cells, the lowest of them bounds the rows
+		mRowCount = startRow;
+		for (int i = first - 1; i >= 0 && mRows[i] > startRow - mMaxRowSpan; i--) {
+			mRowCount = Math.max(mRowCount, mRows[i] + mRowSpans[i]);
+		}
+
+		int row = first > 0 ? mRows[first - 1] : 0;
+		int column = first > 0 ? mColumns[first - 1] + mColumnSpans[first - 1] : 0;
+		for (int i = first; i < mCount; i++) {
+			int oldRow = mRows[i];
+			int oldColumn = mColumns[i];
+			place(i, row, column);
+			row = mRows[i];
+			column = mColumns[i] + mColumnSpans[i];
+			if (i >= last && mRows[i] == oldRow && mColumns[i] == oldColumn && sameAsBefore(i, row)) {
+				// tiles after i keep their cells, and the rows, as they can't reach above row
+				mRowCount = Math.max(mRowCount, oldRowCount);
+				clearStale(startRow, Math.min(row + mMaxRowSpan, mRowCount), i);
+				mChangedFirst = first;
+				mChangedLast = i;
+				return;
+			}
+		}
+		clearStale(startRow, Math.max(mRowCount, oldRowCount), mCount - 1);
+		mChangedFirst = first;
+		mChangedLast = mCount - 1;
+	}
+
+	private boolean isTaken(int cell) {
+		return mStamps[cell] == mGeneration || (mCells[cell] != EMPTY && mCells[cell] < mFirst);
+	}
+
+	private int getOldCell(int cell) {
+		return mStamps[cell] == mGeneration ? mOldCells[cell] : mCells[cell];
+	}
+
+	/**
+	 * Whether the cells tiles up to i took from row on are those they had before the re-pack,
+	 * then packing the tiles after i would place them as before. Tiles up to i can't reach
+	 * mMaxRowSpan rows below row.
+	 */
+	private boolean sameAsBefore(int i, int row) {
+		int end = Math.min(row + mMaxRowSpan, mCells.length / mNumColumns) * mNumColumns;
+		for (int cell = row * mNumColumns; cell < end; cell++) {
+			int old = getOldCell(cell);
+			if (isTaken(cell) != (old != EMPTY && old <= i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Empty the cells of rows [fromRow, toRow) still held by the old places of tiles re-placed up to last.
+	 */
+	private void clearStale(int fromRow, int toRow, int last) {
+		int end = Math.min(toRow * mNumColumns, mCells.length);
+		for (int cell = fromRow * mNumColumns; cell < end; cell++) {
+			if (mStamps[cell] != mGeneration && mCells[cell] >= mFirst && mCells[cell] <= last) {
+				mCells[cell] = EMPTY;
+			}
+		}
+	}
+
+	/**
+	 * Place tile i at the first spot it fits at or after (row, column).
+	 */
+	private void place(int i, int row, int column) {
+		int span = mColumnSpans[i];
+		while (true) {
+			if (column + span > mNumColumns) {
+				row++;
+				column = 0;
+			}
+			if (fits(i, row, column)) {
+				mark(i, row, column);
+				return;
+			}
+			column++;
+		}
+	}
+
+	private boolean fits(int i, int row, int column) {
+		int end = Math.min(row + mRowSpans[i], mCells.length / mNumColumns);
+		for (int r = row; r < end; r++) {
+			int offset = r * mNumColumns + column;
+			for (int c = 0; c < mColumnSpans[i]; c++) {
+				if (isTaken(offset + c)) {
+					return false;
+				}
+			}
+		}
+		return true;
+	}
+
+	private void mark(int i, int row, int column) {
+		mRows[i] = row;
+		mColumns[i] = column;
+		int rowEnd = row + mRowSpans[i];
+		ensureRows(rowEnd);
+		mRowCount = Math.max(mRowCount, rowEnd);
+		for (int r = row; r < rowEnd; r++) {
+			int offset = r * mNumColumns + column;
+			for (int cell = offset; cell < offset + mColumnSpans[i]; cell++) {
+				mOldCells[cell] = mCells[cell];
+				mStamps[cell] = mGeneration;
+				mCells[cell] = i;
+			}
+		}
+	}
+
+	private void ensureRows(int rows) {
+		int size = rows * mNumColumns;
+		if (size > mCells.length) {
+			int capacity = Math.max(size, mCells.length * 2);
+			int[] cells = new int[capacity];
+			System.arraycopy(mCells, 0, cells, 0, mCells.length);
+			Arrays.fill(cells, mCells.length, capacity, EMPTY);
+			mCells = cells;
+			mStamps = Arrays.copyOf(mStamps, capacity);
+			mOldCells = Arrays.copyOf(mOldCells, capacity);
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package com.devin.widget.core;
+
+/**
+ * Recent touch samples, historical ones included, resampled to the time a frame is shown at,
+ * the way the framework resamples input for views that consume it once per frame.
+ * Between two samples the position is interpolated, past the last one it's extrapolated
+ * from the last two, by at most {@link #MAX_PREDICTION} and half their interval,
+ * so a frame neither shows where the finger was a touch period ago nor overshoots it.
+ * Times are in milliseconds.
+ *
+ * @author Devin Wong
+ *
+ */
+public class TouchResampler {
+
+	/**
+	 * How far before the frame time to resample, so most frames land between two samples.
+	 */
+	public static final long LATENCY = 5L;
+	public static final long MAX_PREDICTION = 8L;
+	/**
+	 * Samples closer than this are too noisy to extrapolate from, farther apart than MAX_INTERVAL
+	 * the finger has likely stopped in between.
+	 */
+	private static final long MIN_INTERVAL = 2L;
+	private static final long MAX_INTERVAL = 20L;
+
+	private static final int CAPACITY = 16;
+
+	private final long[] mTimes = new long[CAPACITY];
+	private final float[] mXs = new float[CAPACITY];
+	private final float[] mYs = new float[CAPACITY];
+	/**
+	 * Index of the newest sample in the ring.
+	 */
+	private int mHead = -1;
+	private int mSize;
+
+	private float mX;
+	private float mY;
+
+	public void reset() {
+		mHead = -1;
+		mSize = 0;
+	}
+
+	public boolean isEmpty() {
+		return mSize == 0;
+	}
+
+	/**
+	 * Add a sample, older than or as old as the newest one it's dropped.
+	 */
+	public void add(long time, float x, float y) {
+		if (mSize > 0 && time <= mTimes[mHead]) {
+			return;
+		}
+		mHead = (mHead + 1) % CAPACITY;
+		mTimes[mHead] = time;
+		mXs[mHead] = x;
+		mYs[mHead] = y;
+		if (mSize < CAPACITY) {
+			mSize++;
+		}
+	}
+
+	/**
+	 * Resample at time, read the result with {@link #getX()} and {@link #getY()}.
+	 * @return false when there's no sample
+	 */
+	public boolean resample(long time) {
+		if (mSize == 0) {
+			return false;
+		}
+		int newest = mHead;
+		if (time >= mTimes[newest]) {
+			mX = mXs[newest];
+			mY = mYs[newest];
+			if (mSize > 1) {
+				int previous = (newest + CAPACITY - 1) % CAPACITY;
+				long interval = mTimes[newest] - mTimes[previous];
+				if (interval >= MIN_INTERVAL && interval <= MAX_INTERVAL) {
+					long ahead = Math.min(time - mTimes[newest], Math.min(MAX_PREDICTION, interval / 2));
+					float fraction = (float) ahead / interval;
+					mX += (mXs[newest] - mXs[previous]) * fraction;
+					mY += (mYs[newest] - mYs[previous]) * fraction;
+				}
+			}
+			return true;
+		}
+		int later = newest;
+		for (int i = 1; i < mSize; i++) {
+			int earlier = (newest + CAPACITY - i) % CAPACITY;
+			if (mTimes[earlier] <= time) {
+				float fraction = (float) (time - mTimes[earlier]) / (mTimes[later] - mTimes[earlier]);
+				mX = mXs[earlier] + (mXs[later] - mXs[earlier]) * fraction;
+				mY = mYs[earlier] + (mYs[later] - mYs[earlier]) * fraction;
+				return true;
+			}
+			later = earlier;
+		}
+		mX = mXs[later];
+		mY = mYs[later];
+		return true;
+	}
+
+	public float getX() {
+		return mX;
+	}
+
+	public float getY() {
+		return mY;
+	}
+}
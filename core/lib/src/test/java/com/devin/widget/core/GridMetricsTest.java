@@ -0,0 +1,85 @@
+package com.devin.widget.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Hit-testing and slot offsets of a 4 column grid of 100x80 cells with 10 pixel gaps and 5 pixel padding.
+ *
+ * @author Devin Wong
+ *
+ */
+public class GridMetricsTest {
+
+	private static final int WIDTH = 450;
+	private static final int HEIGHT = 1000;
+
+	private GridMetrics mMetrics;
+
+	@Before
+	public void setUp() {
+		mMetrics = new GridMetrics();
+		mMetrics.set(4, 100, 80, 110, 90);
+		mMetrics.setPadding(5, 5, 5, 5);
+	}
+
+	private int positionAt(int x, int y) {
+		return mMetrics.positionAt(x, y, WIDTH, HEIGHT, 5, 5, 0, 20);
+	}
+
+	@Test
+	public void hitsCells() {
+		assertEquals(0, positionAt(5, 5));
+		assertEquals(0, positionAt(104, 84));
+		assertEquals(1, positionAt(115, 5));
+		assertEquals(7, positionAt(335 + 50, 95 + 40));
+	}
+
+	@Test
+	public void missesGapsPaddingAndCellsPastTheCount() {
+		assertEquals(GridMetrics.INVALID_POSITION, positionAt(110, 40));
+		assertEquals(GridMetrics.INVALID_POSITION, positionAt(40, 88));
+		assertEquals(GridMetrics.INVALID_POSITION, positionAt(2, 40));
+		assertEquals(GridMetrics.INVALID_POSITION, positionAt(40, HEIGHT - 2));
+		assertEquals(GridMetrics.INVALID_POSITION, positionAt(40, 5 * 90 + 40));
+	}
+
+	@Test
+	public void onlyPointsAfterTheLastCellArePastIt() {
+		// 18 cells, the last is at column 1 of row 4
+		int lastTop = 5 + 4 * 90;
+		assertTrue(mMetrics.isPastLast(225, lastTop + 40, WIDTH, HEIGHT, 5, 5, 18));
+		assertTrue(mMetrics.isPastLast(40, lastTop + 90 + 40, WIDTH, HEIGHT, 5, 5, 18));
+		assertFalse("the last cell", mMetrics.isPastLast(115, lastTop + 40, WIDTH, HEIGHT, 5, 5, 18));
+		assertFalse("a gap between cells", mMetrics.isPastLast(110, 40, WIDTH, HEIGHT, 5, 5, 18));
+		assertFalse("a gap before the last cell", mMetrics.isPastLast(110, lastTop + 40, WIDTH, HEIGHT, 5, 5, 18));
+		assertFalse("the padding", mMetrics.isPastLast(40, HEIGHT - 2, WIDTH, HEIGHT, 5, 5, 18));
+	}
+
+	@Test
+	public void offsetsByTheFirstVisibleCell() {
+		assertEquals(41, mMetrics.positionAt(115, 5 + 90, WIDTH, HEIGHT, 5, -85, 32, 20));
+		assertEquals(GridMetrics.INVALID_POSITION, mMetrics.positionAt(115, 5, WIDTH, HEIGHT, 5, 20, 32, 20));
+	}
+
+	@Test
+	public void slotOffsets() {
+		assertEquals(3 * 110, mMetrics.getSlotOffsetX(4, 7));
+		assertEquals(-110, mMetrics.getSlotOffsetX(5, 12));
+		assertEquals(2 * 90, mMetrics.getSlotOffsetY(5, 12));
+		assertEquals(-90, mMetrics.getSlotOffsetY(4, 3));
+	}
+
+	@Test
+	public void invalidHitsNothing() {
+		mMetrics.invalidate();
+		assertFalse(mMetrics.isValid());
+		assertEquals(GridMetrics.INVALID_POSITION, positionAt(5, 5));
+		mMetrics.set(4, 0, 80, 110, 90);
+		assertFalse(mMetrics.isValid());
+	}
+}
@@ -0,0 +1,74 @@
+package com.devin.widget.core;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Random edits checked against an ArrayList, ids following their items.
+ *
+ * @author Devin Wong
+ *
+ */
+public class IndexedTreeListTest {
+
+	@Test
+	public void matchesAnArrayList() {
+		Random random = new Random(7);
+		List<Integer> expected = new ArrayList<Integer>();
+		for (int i = 0; i < 50; i++) {
+			expected.add(i);
+		}
+		IndexedTreeList<Integer> list = new IndexedTreeList<Integer>(expected);
+		int next = 50;
+		for (int step = 0; step < 5000; step++) {
+			int size = expected.size();
+			int op = random.nextInt(4);
+			if (op == 0 || size == 0) {
+				int position = random.nextInt(size + 1);
+				expected.add(position, next);
+				list.insert(position, next);
+				next++;
+			} else if (op == 1) {
+				int position = random.nextInt(size);
+				assertEquals(expected.remove(position), list.remove(position));
+			} else if (op == 2) {
+				int from = random.nextInt(size);
+				int to = random.nextInt(size);
+				expected.add(to, expected.remove(from));
+				list.move(from, to);
+			} else {
+				int position = random.nextInt(size);
+				expected.set(position, -next);
+				list.set(position, -next);
+			}
+			assertEquals(expected.size(), list.size());
+		}
+		for (int i = 0; i < expected.size(); i++) {
+			assertEquals(expected.get(i), list.get(i));
+		}
+	}
+
+	@Test
+	public void idsSurviveMoves() {
+		IndexedTreeList<String> list = new IndexedTreeList<String>(Arrays.asList("a", "b", "c", "d"));
+		long a = list.getId(0);
+		long d = list.getId(3);
+		list.move(0, 3);
+		list.move(2, 0);
+		assertEquals("d", list.get(0));
+		assertEquals(d, list.getId(0));
+		assertEquals("a", list.get(3));
+		assertEquals(a, list.getId(3));
+	}
+
+	@Test(expected = IndexOutOfBoundsException.class)
+	public void moveChecksPositions() {
+		new IndexedTreeList<String>(Arrays.asList("a")).move(0, 1);
+	}
+}
@@ -0,0 +1,89 @@
+package com.devin.widget.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * The window of ids follows the visible positions and shifts like the data it caches.
+ *
+ * @author Devin Wong
+ *
+ */
+public class ItemIdCacheTest {
+
+	private static final int COUNT = 200;
+
+	@Test
+	public void cachesOnlyTheWindow() {
+		ItemIdCache cache = new ItemIdCache();
+		cache.setWindow(40000, 20);
+		cache.put(39999, 1L);
+		cache.put(40020, 2L);
+		cache.put(40005, 3L);
+		assertFalse(cache.contains(39999));
+		assertFalse(cache.contains(40020));
+		assertTrue(cache.contains(40005));
+		assertEquals(3L, cache.get(40005));
+	}
+
+	@Test
+	public void movingTheWindowKeepsWhatStaysVisible() {
+		ItemIdCache cache = new ItemIdCache();
+		cache.setWindow(10, 8);
+		for (int position = 10; position < 18; position++) {
+			cache.put(position, position * 10L);
+		}
+		cache.setWindow(14, 8);
+		for (int position = 14; position < 22; position++) {
+			assertEquals("position " + position, position < 18, cache.contains(position));
+		}
+		assertEquals(170L, cache.get(17));
+		cache.setWindow(6, 8);
+		for (int position = 6; position < 14; position++) {
+			assertFalse("position " + position, cache.contains(position));
+		}
+	}
+
+	@Test
+	public void clearForgetsEverything() {
+		ItemIdCache cache = new ItemIdCache();
+		cache.setWindow(0, 4);
+		cache.put(2, 5L);
+		cache.clear();
+		assertFalse(cache.contains(2));
+	}
+
+	@Test
+	public void shiftsLikeTheData() {
+		Random random = new Random(7);
+		List<Long> ids = new ArrayList<Long>();
+		for (int i = 0; i < COUNT; i++) {
+			ids.add((long) i * 3);
+		}
+		ItemIdCache cache = new ItemIdCache();
+		for (int round = 0; round < 500; round++) {
+			int first = random.nextInt(COUNT - 30);
+			cache.setWindow(first, 12 + random.nextInt(18));
+			for (int i = 0; i < 8; i++) {
+				int position = first + random.nextInt(30);
+				cache.put(position, ids.get(position));
+			}
+			int dragPos = random.nextInt(COUNT);
+			int movePos = random.nextInt(COUNT);
+			ids.add(movePos, ids.remove(dragPos));
+			cache.shift(dragPos, movePos);
+			for (int position = 0; position < COUNT; position++) {
+				if (cache.contains(position)) {
+					assertEquals("round " + round + " position " + position, (long) ids.get(position), cache.get(position));
+				}
+			}
+		}
+	}
+}
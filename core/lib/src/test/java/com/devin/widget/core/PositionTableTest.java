@@ -0,0 +1,89 @@
+package com.devin.widget.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Lookups through growth and clears, and the diff of two snapshots.
+ *
+ * @author Devin Wong
+ *
+ */
+public class PositionTableTest {
+
+	@Test
+	public void putAndLookUpThroughGrowth() {
+		PositionTable<String> table = new PositionTable<String>();
+		for (int i = 0; i < 100; i++) {
+			table.put(i * 1000003L, "v" + i, i, -i);
+		}
+		assertEquals(100, table.size());
+		for (int i = 0; i < 100; i++) {
+			int index = table.indexOf(i * 1000003L);
+			assertEquals("v" + i, table.valueAt(index));
+			assertEquals(i, table.xAt(index), 0);
+			assertEquals(-i, table.yAt(index), 0);
+		}
+		assertEquals(-1, table.indexOf(7));
+	}
+
+	@Test
+	public void putReplacesTheEntryOfAnId() {
+		PositionTable<String> table = new PositionTable<String>();
+		table.put(5, "a", 1, 2);
+		table.put(5, "b", 3, 4);
+		assertEquals(1, table.size());
+		assertEquals("b", table.valueAt(0));
+		assertEquals(3, table.xAt(0), 0);
+	}
+
+	@Test
+	public void clearAndEnsureCapacityEmpty() {
+		PositionTable<String> table = new PositionTable<String>();
+		table.put(1, "a", 0, 0);
+		table.clear();
+		assertEquals(0, table.size());
+		assertEquals(-1, table.indexOf(1));
+		table.put(2, "b", 0, 0);
+		table.ensureCapacity(40);
+		assertEquals(0, table.size());
+		assertEquals(-1, table.indexOf(2));
+	}
+
+	@Test
+	public void diffReportsMovedEntriesOnly() {
+		PositionTable<String> old = new PositionTable<String>();
+		PositionTable<String> now = new PositionTable<String>();
+		old.put(1, "a", 0, 0);
+		old.put(2, "b", 100, 0);
+		old.put(3, "c", 200, 0);
+		now.put(1, "a", 0, 0);
+		now.put(2, "b2", 200, 0);
+		now.put(3, "c", 100, 50);
+		now.put(4, "d", 300, 0);
+		final List<String> moved = new ArrayList<String>();
+		final List<Float> offsets = new ArrayList<Float>();
+		int count = PositionTable.diff(old, now, new PositionTable.DiffCallback<String>() {
+
+			@Override
+			public void onMoved(long id, String value, float dx, float dy) {
+				moved.add(id + value);
+				offsets.add(dx);
+				offsets.add(dy);
+			}
+		});
+		assertEquals(2, count);
+		assertEquals("2b2", moved.get(0));
+		assertEquals("3c", moved.get(1));
+		assertEquals(-100f, offsets.get(0), 0);
+		assertEquals(0f, offsets.get(1), 0);
+		assertEquals(100f, offsets.get(2), 0);
+		assertEquals(-50f, offsets.get(3), 0);
+		assertSame("b2", now.valueAt(now.indexOf(2)));
+	}
+}
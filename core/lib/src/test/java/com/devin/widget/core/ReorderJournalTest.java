@@ -0,0 +1,235 @@
+package com.devin.widget.core;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Round-trips of the journal, and the crashes it has to survive, simulated by rewriting its files between opens.
+ *
+ * @author Devin Wong
+ *
+ */
+public class ReorderJournalTest {
+
+	private static final int HEADER_SIZE = 16;
+	private static final int ITEM_COUNT = 100;
+
+	@Rule
+	public TemporaryFolder mFolder = new TemporaryFolder();
+
+	private File mDir;
+	private ReorderJournal mJournal;
+	private long[] mExpected;
+	private Random mRandom = new Random(11);
+
+	@Before
+	public void setUp() throws IOException {
+		mDir = mFolder.newFolder();
+	}
+
+	@After
+	public void tearDown() throws IOException {
+		if (mJournal != null) {
+			mJournal.close();
+		}
+	}
+
+	@Test
+	public void nothingPersistedOpensNull() throws IOException {
+		assertNull(open(16));
+		assertEquals(-1, mJournal.size());
+	}
+
+	/**
+	 * 900 records span several pages, records 408 and 818 straddle a page boundary.
+	 */
+	@Test
+	public void replaysWhatWasAppended() throws IOException {
+		open(1024);
+		reset(ITEM_COUNT);
+		for (int i = 0; i < 900; i++) {
+			randomMove();
+		}
+		assertArrayEquals(mExpected, reopen(1024));
+		assertEquals(900, mJournal.getJournalSize());
+	}
+
+	@Test
+	public void compactsWhenFull() throws IOException {
+		open(8);
+		reset(ITEM_COUNT);
+		for (int i = 0; i < 20; i++) {
+			randomMove();
+		}
+		// the 9th and the 18th moves found the journal full and went into snapshots
+		assertEquals(2, mJournal.getJournalSize());
+		assertArrayEquals(mExpected, reopen(8));
+		assertEquals(2, mJournal.getJournalSize());
+	}
+
+	@Test
+	public void tornKindEndsTheTail() throws IOException {
+		open(64);
+		reset(ITEM_COUNT);
+		for (int i = 0; i < 6; i++) {
+			randomMove();
+		}
+		long[] beforeTorn = mExpected.clone();
+		for (int i = 0; i < 4; i++) {
+			randomMove();
+		}
+		mJournal.close();
+		writeKind(6, 0);
+		assertArrayEquals(beforeTorn, reopen(64));
+		assertEquals(6, mJournal.getJournalSize());
+
+		// the records after the torn one are gone for good, appending goes on from it
+		mExpected = beforeTorn;
+		randomMove();
+		assertArrayEquals(mExpected, reopen(64));
+		assertEquals(7, mJournal.getJournalSize());
+	}
+
+	@Test
+	public void unknownKindEndsTheTail() throws IOException {
+		open(64);
+		reset(ITEM_COUNT);
+		for (int i = 0; i < 3; i++) {
+			randomMove();
+		}
+		long[] beforeTorn = mExpected.clone();
+		randomMove();
+		mJournal.close();
+		writeKind(3, readKind(3) ^ 0x7f);
+		assertArrayEquals(beforeTorn, reopen(64));
+		assertEquals(3, mJournal.getJournalSize());
+	}
+
+	/**
+	 * A crash after the new snapshot is written but before the journal is cleared.
+	 */
+	@Test
+	public void journalOfAnOlderSnapshotIsntReplayed() throws IOException {
+		open(64);
+		reset(ITEM_COUNT);
+		for (int i = 0; i < 5; i++) {
+			randomMove();
+		}
+		mJournal.flush();
+		byte[] journal = Files.readAllBytes(journalFile().toPath());
+		mJournal.compact();
+		mJournal.close();
+		Files.write(journalFile().toPath(), journal);
+		assertArrayEquals(mExpected, reopen(64));
+		assertEquals(0, mJournal.getJournalSize());
+	}
+
+	/**
+	 * A crash after the journal header of a new generation is persisted but before the kinds of
+	 * the old records are zeroed. Swapping the first two items makes every old record fit the order.
+	 */
+	@Test
+	public void staleRecordsPastTheCountArentReplayed() throws IOException {
+		open(64);
+		reset(10);
+		for (int i = 0; i < 10; i++) {
+			swap(0, 1);
+		}
+		mJournal.flush();
+		byte[] journal = Files.readAllBytes(journalFile().toPath());
+		mJournal.compact();
+		for (int i = 0; i < 3; i++) {
+			swap(0, 1);
+		}
+		mJournal.close();
+		RandomAccessFile file = new RandomAccessFile(journalFile(), "rw");
+		try {
+			int offset = HEADER_SIZE + 3 * ReorderJournal.RECORD_SIZE;
+			file.seek(offset);
+			file.write(journal, offset, 7 * ReorderJournal.RECORD_SIZE);
+		} finally {
+			file.close();
+		}
+		assertArrayEquals(mExpected, reopen(64));
+		assertEquals(3, mJournal.getJournalSize());
+	}
+
+	private long[] open(int capacity) throws IOException {
+		mJournal = new ReorderJournal(mDir, capacity);
+		return mJournal.open();
+	}
+
+	private long[] reopen(int capacity) throws IOException {
+		mJournal.close();
+		return open(capacity);
+	}
+
+	private void reset(int count) throws IOException {
+		mExpected = new long[count];
+		for (int i = 0; i < count; i++) {
+			mExpected[i] = 1000 + i;
+		}
+		mJournal.reset(mExpected);
+	}
+
+	private void randomMove() throws IOException {
+		int from = mRandom.nextInt(mExpected.length);
+		int to = mRandom.nextInt(mExpected.length);
+		if (mRandom.nextBoolean()) {
+			swap(from, to);
+			return;
+		}
+		long id = mExpected[from];
+		mJournal.shift(from, to, id);
+		if (from < to) {
+			System.arraycopy(mExpected, from + 1, mExpected, from, to - from);
+		} else {
+			System.arraycopy(mExpected, to, mExpected, to + 1, from - to);
+		}
+		mExpected[to] = id;
+	}
+
+	private void swap(int from, int to) throws IOException {
+		long id = mExpected[from];
+		mJournal.swap(from, to, id);
+		mExpected[from] = mExpected[to];
+		mExpected[to] = id;
+	}
+
+	private File journalFile() {
+		return new File(mDir, "order.journal");
+	}
+
+	private int readKind(int record) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(journalFile(), "r");
+		try {
+			file.seek(HEADER_SIZE + record * ReorderJournal.RECORD_SIZE + 16);
+			return file.readInt();
+		} finally {
+			file.close();
+		}
+	}
+
+	private void writeKind(int record, int kind) throws IOException {
+		RandomAccessFile file = new RandomAccessFile(journalFile(), "rw");
+		try {
+			file.seek(HEADER_SIZE + record * ReorderJournal.RECORD_SIZE + 16);
+			file.writeInt(kind);
+		} finally {
+			file.close();
+		}
+	}
+}
@@ -0,0 +1,146 @@
+package com.devin.widget.core;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Packing of mixed tiles, and shifts checked against packing the shifted spans from scratch.
+ *
+ * @author Devin Wong
+ *
+ */
+public class SpanGridTest {
+
+	private static final int COLUMNS = 4;
+
+	@Test
+	public void packsInAdapterOrder() {
+		// 2x2, 1x1, 1x1, 1x1, 2x1, 1x1: the 2x1 doesn't fit after the third 1x1 and goes to the next row
+		SpanGrid grid = new SpanGrid(COLUMNS);
+		grid.setSpans(new int[] {2, 1, 1, 1, 2, 1}, new int[] {2, 1, 1, 1, 1, 1}, 6);
+		assertPlaced(grid, 0, 0, 0);
+		assertPlaced(grid, 1, 2, 0);
+		assertPlaced(grid, 2, 3, 0);
+		assertPlaced(grid, 3, 2, 1);
+		assertPlaced(grid, 4, 0, 2);
+		// packing doesn't go back up, the hole at (3, 1) stays
+		assertPlaced(grid, 5, 2, 2);
+		assertEquals(3, grid.getRowCount());
+		assertEquals(SpanGrid.INVALID_POSITION, grid.positionAt(3, 1));
+		assertEquals(0, grid.positionAt(1, 1));
+	}
+
+	@Test
+	public void narrowsSpansWiderThanTheGrid() {
+		SpanGrid grid = new SpanGrid(COLUMNS);
+		grid.setSpans(new int[] {9, 1}, new int[] {1, 1}, 2);
+		assertEquals(COLUMNS, grid.getColumnSpan(0));
+		assertPlaced(grid, 1, 0, 1);
+	}
+
+	@Test
+	public void hitTestsGapsOfSpanningTiles() {
+		SpanGrid grid = new SpanGrid(COLUMNS);
+		grid.setSpans(new int[] {2, 1}, new int[] {2, 1}, 2);
+		// 100x80 cells, 10 pixel gaps
+		assertEquals(0, grid.positionAt(105, 40, 100, 80, 110, 90));
+		assertEquals(0, grid.positionAt(40, 85, 100, 80, 110, 90));
+		assertEquals(SpanGrid.INVALID_POSITION, grid.positionAt(215, 40, 100, 80, 110, 90));
+		assertEquals(1, grid.positionAt(225, 40, 100, 80, 110, 90));
+		assertEquals(SpanGrid.INVALID_POSITION, grid.positionAt(225, 85, 100, 80, 110, 90));
+	}
+
+	@Test
+	public void shiftMatchesPackingFromScratch() {
+		Random random = new Random(3);
+		for (int round = 0; round < 40; round++) {
+			int count = 20 + random.nextInt(60);
+			int[] columnSpans = new int[count];
+			int[] rowSpans = new int[count];
+			for (int i = 0; i < count; i++) {
+				columnSpans[i] = randomSpan(random);
+				rowSpans[i] = randomSpan(random);
+			}
+			SpanGrid grid = new SpanGrid(COLUMNS);
+			grid.setSpans(columnSpans, rowSpans, count);
+			for (int step = 0; step < 50; step++) {
+				int from = random.nextInt(count);
+				int to = random.nextInt(count);
+				int[] rows = new int[count];
+				int[] columns = new int[count];
+				for (int i = 0; i < count; i++) {
+					rows[i] = grid.getRow(i);
+					columns[i] = grid.getColumn(i);
+				}
+				shift(columnSpans, from, to);
+				shift(rowSpans, from, to);
+				shift(rows, from, to);
+				shift(columns, from, to);
+				grid.shift(from, to);
+
+				String at = "round " + round + " step " + step + " shift " + from + " to " + to;
+				SpanGrid expected = new SpanGrid(COLUMNS);
+				expected.setSpans(columnSpans, rowSpans, count);
+				assertSame(at, expected, grid);
+				if (from != to) {
+					// tiles outside the changed range kept their cells
+					for (int i = 0; i < count; i++) {
+						if (i < grid.getChangedFirst() || i > grid.getChangedLast()) {
+							assertEquals(at + " row of " + i, rows[i], grid.getRow(i));
+							assertEquals(at + " column of " + i, columns[i], grid.getColumn(i));
+						}
+					}
+				}
+			}
+		}
+	}
+
+	@Test
+	public void shiftInPlaceChangesNothing() {
+		SpanGrid grid = new SpanGrid(COLUMNS);
+		grid.setSpans(new int[] {1, 2, 1}, new int[] {1, 1, 2}, 3);
+		grid.shift(1, 1);
+		assertEquals(SpanGrid.INVALID_POSITION, grid.getChangedFirst());
+		assertPlaced(grid, 1, 1, 0);
+	}
+
+	/**
+	 * Mostly 1, as on a dashboard.
+	 */
+	private static int randomSpan(Random random) {
+		int span = random.nextInt(6);
+		return span < 3 ? 1 : span - 1;
+	}
+
+	private static void shift(int[] values, int from, int to) {
+		int value = values[from];
+		if (from < to) {
+			System.arraycopy(values, from + 1, values, from, to - from);
+		} else {
+			System.arraycopy(values, to, values, to + 1, from - to);
+		}
+		values[to] = value;
+	}
+
+	private static void assertPlaced(SpanGrid grid, int position, int column, int row) {
+		assertEquals("column of " + position, column, grid.getColumn(position));
+		assertEquals("row of " + position, row, grid.getRow(position));
+	}
+
+	private static void assertSame(String at, SpanGrid expected, SpanGrid actual) {
+		for (int i = 0; i < expected.getCount(); i++) {
+			assertEquals(at + " row of " + i, expected.getRow(i), actual.getRow(i));
+			assertEquals(at + " column of " + i, expected.getColumn(i), actual.getColumn(i));
+		}
+		assertEquals(at + " rows", expected.getRowCount(), actual.getRowCount());
+		for (int row = 0; row < expected.getRowCount() + 3; row++) {
+			for (int column = 0; column < COLUMNS; column++) {
+				assertEquals(at + " cell " + column + "," + row,
+						expected.positionAt(column, row), actual.positionAt(column, row));
+			}
+		}
+	}
+}
@@ -0,0 +1,106 @@
+package com.devin.widget.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * A finger moving right at 1 pixel per millisecond, sampled every 8ms unless said otherwise.
+ *
+ * @author Devin Wong
+ *
+ */
+public class TouchResamplerTest {
+
+	private static final float DELTA = 0.001f;
+
+	private TouchResampler mResampler;
+
+	@Before
+	public void setUp() {
+		mResampler = new TouchResampler();
+	}
+
+	@Test
+	public void nothingToResampleWithoutSamples() {
+		assertFalse(mResampler.resample(100));
+		mResampler.add(100, 0, 0);
+		mResampler.reset();
+		assertTrue(mResampler.isEmpty());
+		assertFalse(mResampler.resample(100));
+	}
+
+	@Test
+	public void interpolatesBetweenSamples() {
+		for (int i = 0; i <= 4; i++) {
+			mResampler.add(100 + i * 8, i * 8, 200 - i * 4);
+		}
+		assertResampled(105, 5, 200 - 2.5f);
+		assertResampled(116, 16, 192);
+		assertResampled(127, 27, 200 - 13.5f);
+	}
+
+	@Test
+	public void beforeTheOldestSampleStaysThere() {
+		mResampler.add(100, 10, 20);
+		mResampler.add(108, 18, 20);
+		assertResampled(90, 10, 20);
+	}
+
+	@Test
+	public void extrapolatesByHalfTheIntervalAtMost() {
+		mResampler.add(100, 0, 0);
+		mResampler.add(108, 8, 0);
+		assertResampled(110, 10, 0);
+		// 4ms is half the interval
+		assertResampled(130, 12, 0);
+	}
+
+	@Test
+	public void extrapolatesByMaxPredictionAtMost() {
+		mResampler.add(100, 0, 0);
+		mResampler.add(120, 20, 0);
+		assertResampled(140, 20 + TouchResampler.MAX_PREDICTION, 0);
+	}
+
+	@Test
+	public void doesntExtrapolateFromSamplesTooCloseOrTooFarApart() {
+		mResampler.add(100, 0, 0);
+		mResampler.add(101, 1, 0);
+		assertResampled(110, 1, 0);
+
+		mResampler.reset();
+		mResampler.add(100, 0, 0);
+		mResampler.add(150, 50, 0);
+		assertResampled(160, 50, 0);
+	}
+
+	@Test
+	public void dropsOutOfOrderSamples() {
+		mResampler.add(100, 0, 0);
+		mResampler.add(116, 16, 0);
+		mResampler.add(108, 100, 0);
+		mResampler.add(116, 100, 0);
+		assertResampled(108, 8, 0);
+		assertResampled(116, 16, 0);
+	}
+
+	@Test
+	public void keepsTheNewestSamplesWhenFull() {
+		for (int i = 0; i < 40; i++) {
+			mResampler.add(100 + i * 8, i * 8, 0);
+		}
+		assertResampled(100 + 38 * 8 + 4, 38 * 8 + 4, 0);
+		// older than the ring, the oldest sample it still holds
+		assertResampled(100, 24 * 8, 0);
+	}
+
+	private void assertResampled(long time, float x, float y) {
+		assertTrue(mResampler.resample(time));
+		assertEquals("x at " + time, x, mResampler.getX(), DELTA);
+		assertEquals("y at " + time, y, mResampler.getY(), DELTA);
+	}
+}
@@ -10,12 +10,11 @@ import android.view.Gravity;
 import android.view.View;
 import android.view.ViewGroup;
 import android.widget.AbsListView;
-import android.widget.BaseAdapter;
 import android.widget.TextView;
 
 import com.devin.draggridview.R;
+import com.devin.widget.DragGridAdapter;
 import com.devin.widget.DragGridView;
-import com.devin.widget.DragGridView.OnShiftListener;
 
 public class MainActivity extends Activity {
 
@@ -28,57 +27,15 @@ public class MainActivity extends Activity {
 		for (int i = 0; i < 100; i++) {
 			list.add(i + "");
 		}
-		final CustomAdapter adapter = new CustomAdapter(list);
+		CustomAdapter adapter = new CustomAdapter(list);
 		grid.setAdapter(adapter);
-		grid.setOnShiftListener(new OnShiftListener() {
-			
-			@Override
-			public void onShift(int dragPos, int movePos) {
-				List<String> list = adapter.getList();
-				if (movePos == -1) {
-					String drag = list.get(dragPos);
-					for (int i = dragPos; i < list.size() - 1; i++) {
-						list.set(i, list.get(i + 1));
-					}
-					list.set(list.size() - 1, drag);
-				} else if (dragPos < movePos) {
-					String drag = list.get(dragPos);
-					for (int i = dragPos; i < movePos; i++) {
-						list.set(i, list.get(i + 1));
-					}
-					list.set(movePos, drag);
-				} else {
-					String drag = list.get(dragPos);
-					for (int i = dragPos; i > movePos; i--) {
-						list.set(i, list.get(i - 1));
-					}
-					list.set(movePos, drag);
-				}
-				adapter.notifyDataSetChanged();
-			}
-		});
+		grid.setOnShiftListener(adapter);
 	}
 	
-	class CustomAdapter extends BaseAdapter {
-		
-		List<String> list;
+	class CustomAdapter extends DragGridAdapter<String> {
 
 		public CustomAdapter(List<String> list) {
-			this.list =list;
-		}
-		
-		public List<String> getList() {
-			return list;
-		}
-		
-		@Override
-		public int getCount() {
-			return list.size();
-		}
-
-		@Override
-		public Object getItem(int position) {
-			return list.get(position);
+			super(list);
 		}
 
 		@Override
@@ -92,14 +49,9 @@ public class MainActivity extends Activity {
 				text.setLayoutParams(p);
 			}
 			TextView textview = (TextView) convertView;
-			textview.setText(getItem(position) + "");
+			textview.setText(get(position));
 			return convertView;
 		}
-
-		@Override
-		public long getItemId(int position) {
-			return Long.valueOf(list.get(position));
-		}
 		
 	}
 
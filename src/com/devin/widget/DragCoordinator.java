@@ -0,0 +1,203 @@
+package com.devin.widget;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import android.graphics.Rect;
+import android.os.Build;
+import android.view.ViewGroup;
+
+/**
+ * Drags items between several {@link DragGridView}s, e.g. a favorites dock beside the full catalog.
+ * While a drag is going on the coordinator owns its shadow, in the overlay of a window-level root so no grid clips it.
+ * The shadow is rendered once per gesture by the grid the drag started in, and the same one crosses every grid.
+ * Only the grid under the pointer targets: over the source grid the drag shifts as usual, over another grid
+ * that grid opens a gap where the item would be inserted, and every other grid stands still.
+ * Dropped over another grid, the item is handed off through {@link DragGridView.OnTransferListener}:
+ * the target inserts it, then the source removes it.
+ * The overlay needs JELLY_BEAN_MR2, before that registering is ignored and each grid keeps its drags.
+ *
+ * @author Devin Wong
+ *
+ */
+public class DragCoordinator {
+
+	private final ViewGroup mRoot;
+	private final List<DragGridView> mGrids = new ArrayList<DragGridView>();
+	private DragShadowView mShadowView;
+
+	private DragGridView mSource;
+	/**
+	 * The grid under the pointer, null over none.
+	 */
+	private DragGridView mTarget;
+
+	private int[] mRootLocation = new int[2];
+	private int[] mLocation = new int[2];
+	private Rect mRect = new Rect();
+
+	/**
+	 * @param root a view spanning every registered grid, e.g. the content view of the activity
+	 */
+	public DragCoordinator(ViewGroup root) {
+		mRoot = root;
+	}
+
+	public void register(DragGridView grid) {
+		if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN_MR2) {
+			return;
+		}
+		if (!mGrids.contains(grid)) {
+			mGrids.add(grid);
+		}
+		grid.setDragCoordinator(this);
+	}
+
+	/**
+	 * A drag already going on in grid finishes with its coordinator.
+	 */
+	public void unregister(DragGridView grid) {
+		mGrids.remove(grid);
+		grid.setDragCoordinator(null);
+		if (mTarget == grid && mSource != grid) {
+			grid.exitTransfer();
+			mTarget = null;
+		}
+	}
+
+	/**
+	 * The drag of source starts, show its shadow in the root overlay.
+	 */
+	void beginDrag(DragGridView source, DragShadowDrawable drawable, float alpha) {
+		mSource = source;
+		mTarget = source;
+		if (mShadowView == null) {
+			mShadowView = new DragShadowView(mRoot.getContext());
+		}
+		mShadowView.setAlpha(alpha);
+		mShadowView.setDrawable(drawable);
+		mRoot.getOverlay().add(mShadowView);
+	}
+
+	/**
+	 * The bitmap of the shadow changed, redraw it.
+	 */
+	void invalidateShadow() {
+		if (mShadowView != null) {
+			mShadowView.invalidate();
+		}
+	}
+
+	/**
+	 * Place the shadow at rect, in the coordinates of source.
+	 */
+	void moveShadow(DragGridView source, Rect rect) {
+		mRoot.getLocationInWindow(mRootLocation);
+		source.getLocationInWindow(mLocation);
+		mRect.set(rect);
+		mRect.offset(mLocation[0] - mRootLocation[0], mLocation[1] - mRootLocation[1]);
+		mShadowView.moveTo(mRect);
+	}
+
+	/**
+	 * The pointer of the drag is at (x, y) of source, hand the targeting to the grid under it.
+	 * @return whether source is the grid under it
+	 */
+	boolean dragOver(DragGridView source, int x, int y, long now) {
+		source.getLocationInWindow(mLocation);
+		int windowX = x + mLocation[0];
+		int windowY = y + mLocation[1];
+		DragGridView over = findGridAt(source, windowX, windowY);
+		if (over != mTarget) {
+			if (mTarget != null && mTarget != source) {
+				mTarget.exitTransfer();
+			}
+			mTarget = over;
+		}
+		if (over != null && over != source) {
+			over.getLocationInWindow(mLocation);
+			over.transferOver(windowX - mLocation[0], windowY - mLocation[1], now);
+		}
+		return over == source;
+	}
+
+	/**
+	 * Grids other than source take the drag only if both sides can hand the item off.
+	 */
+	private DragGridView findGridAt(DragGridView source, int windowX, int windowY) {
+		if (contains(source, windowX, windowY)) {
+			return source;
+		}
+		if (source.getOnTransferListener() == null) {
+			return null;
+		}
+		for (int i = 0; i < mGrids.size(); i++) {
+			DragGridView grid = mGrids.get(i);
+			if (grid != source && grid.getOnTransferListener() != null && grid.isShown()
+					&& contains(grid, windowX, windowY)) {
+				return grid;
+			}
+		}
+		return null;
+	}
+
+	private boolean contains(DragGridView grid, int windowX, int windowY) {
+		grid.getLocationInWindow(mLocation);
+		int x = windowX - mLocation[0];
+		int y = windowY - mLocation[1];
+		return x >= 0 && y >= 0 && x < grid.getWidth() && y < grid.getHeight();
+	}
+
+	void doFrame(long now) {
+		if (mTarget != null && mTarget != mSource) {
+			mTarget.doTransferFrame(now);
+		}
+	}
+
+	/**
+	 * @return the grid other than source under the pointer, or null
+	 */
+	DragGridView getTransferTarget(DragGridView source) {
+		return mTarget != source ? mTarget : null;
+	}
+
+	/**
+	 * Hand the item at sourcePosition off from source to the grid under the pointer.
+	 * @param springback receives the slot it's inserted at, in the coordinates of source
+	 */
+	void transfer(DragGridView source, int sourcePosition, Rect springback) {
+		DragGridView target = mTarget;
+		target.receiveTransfer(source, sourcePosition, springback);
+		target.getLocationInWindow(mLocation);
+		int targetX = mLocation[0];
+		int targetY = mLocation[1];
+		source.getLocationInWindow(mLocation);
+		springback.offset(targetX - mLocation[0], targetY - mLocation[1]);
+		source.getOnTransferListener().onRemove(target, sourcePosition);
+	}
+
+	/**
+	 * The drag of source was canceled over another grid, close the gap it opened there.
+	 */
+	void cancelTransfer(DragGridView source) {
+		if (mTarget != null && mTarget != source) {
+			mTarget.exitTransfer();
+		}
+		mTarget = null;
+	}
+
+	/**
+	 * The shadow of source landed, take it down and show the item it was dropped as.
+	 */
+	void endDrag(DragGridView source) {
+		if (mShadowView != null) {
+			mRoot.getOverlay().remove(mShadowView);
+			mShadowView.setDrawable(null);
+		}
+		if (mTarget != null && mTarget != source) {
+			mTarget.endTransfer();
+		}
+		mSource = null;
+		mTarget = null;
+	}
+}
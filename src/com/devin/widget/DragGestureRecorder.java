@@ -0,0 +1,67 @@
+package com.devin.widget;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+import android.widget.AbsListView;
+
+import com.devin.widget.core.GestureTrace;
+
+/**
+ * Records every touch event reaching a {@link DragGridView}, historical samples included,
+ * and the grid state at each drag start, so a session from the field can be replayed
+ * with {@link DragGestureReplayer}. Only the first pointer is recorded, as the grid drags with one.
+ * Attach it with {@link DragGridView#setGestureRecorder(DragGestureRecorder)}.
+ *
+ * @author Devin Wong
+ *
+ */
+public class DragGestureRecorder {
+
+	private final GestureTrace mTrace = new GestureTrace();
+
+	void record(MotionEvent ev) {
+		int action = ev.getActionMasked();
+		for (int h = 0; h < ev.getHistorySize(); h++) {
+			mTrace.addSample(action, ev.getHistoricalX(h), ev.getHistoricalY(h),
+					ev.getHistoricalEventTime(h), true);
+		}
+		mTrace.addSample(action, ev.getX(), ev.getY(), ev.getEventTime(), false);
+	}
+
+	void recordDragStart(AbsListView grid) {
+		int offset = 0;
+		if (grid.getChildCount() > 0) {
+			View first = grid.getChildAt(0);
+			offset = first.getTop() - grid.getPaddingTop();
+		}
+		mTrace.addDragStart(grid.getFirstVisiblePosition(), grid.getChildCount(), offset,
+				SystemClock.uptimeMillis());
+	}
+
+	public GestureTrace getTrace() {
+		return mTrace;
+	}
+
+	public void clear() {
+		mTrace.clear();
+	}
+
+	/**
+	 * Write what's recorded so far to file, replacing it.
+	 */
+	public void writeTo(File file) throws IOException {
+		OutputStream out = new BufferedOutputStream(new FileOutputStream(file));
+		try {
+			mTrace.writeTo(out);
+		} finally {
+			out.close();
+		}
+	}
+}
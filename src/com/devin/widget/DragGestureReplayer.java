@@ -0,0 +1,210 @@
+package com.devin.widget;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import android.os.Build;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+import android.widget.AbsListView;
+
+import com.devin.widget.core.GestureTrace;
+
+/**
+ * Feeds a trace recorded by {@link DragGestureRecorder} back into a view at its original timing
+ * or accelerated, so the exact sequence behind a report can be profiled.
+ * When the target is a list, it's first scrolled to the state of the first recorded drag start,
+ * later states follow from replaying the events themselves.
+ * An accelerated replay keeps the hold from each down to its drag start at the original timing,
+ * so long-presses still fire, but animations keep their own durations and may end differently:
+ * reproduce at speed 1, accelerate to profile.
+ *
+ * @author Devin Wong
+ *
+ */
+public class DragGestureReplayer implements Runnable {
+
+	private static final int STEP_RESTORE_POSITION = 0;
+	private static final int STEP_RESTORE_OFFSET = 1;
+	private static final int STEP_PLAY = 2;
+	private static final int STEP_DONE = 3;
+
+	/**
+	 * Time given to a layout pass between the restoring steps.
+	 */
+	private static final long RESTORE_DELAY = 50;
+
+	private final GestureTrace mTrace;
+
+	private View mTarget;
+	private float mSpeed;
+	private int mStep = STEP_DONE;
+	private int mIndex;
+	private long mStartTime;
+	private long[] mReplayTimes;
+	private long mDownTime;
+
+	public DragGestureReplayer(GestureTrace trace) {
+		mTrace = trace;
+	}
+
+	public static DragGestureReplayer fromFile(File file) throws IOException {
+		InputStream in = new BufferedInputStream(new FileInputStream(file));
+		try {
+			return new DragGestureReplayer(GestureTrace.readFrom(in));
+		} finally {
+			in.close();
+		}
+	}
+
+	public GestureTrace getTrace() {
+		return mTrace;
+	}
+
+	/**
+	 * @param speed 1 for the original timing, 4 to replay 4 times faster
+	 */
+	public void start(View target, float speed) {
+		if (speed <= 0) {
+			throw new IllegalArgumentException("speed must be positive: " + speed);
+		}
+		stop();
+		mTarget = target;
+		mSpeed = speed;
+		mReplayTimes = computeReplayTimes(mTrace, speed);
+		mIndex = 0;
+		mStep = target instanceof AbsListView && findDragStart() >= 0 ? STEP_RESTORE_POSITION : STEP_PLAY;
+		mStartTime = SystemClock.uptimeMillis();
+		target.post(this);
+	}
+
+	public void stop() {
+		if (mTarget != null) {
+			mTarget.removeCallbacks(this);
+		}
+		mStep = STEP_DONE;
+	}
+
+	public boolean isRunning() {
+		return mStep != STEP_DONE;
+	}
+
+	/**
+	 * @return replay duration of the trace at the speed it was started with, restoring excluded
+	 */
+	public long getDuration() {
+		return mReplayTimes == null || mReplayTimes.length == 0 ? 0 : mReplayTimes[mReplayTimes.length - 1];
+	}
+
+	@Override
+	public void run() {
+		switch (mStep) {
+		case STEP_RESTORE_POSITION:
+			((AbsListView) mTarget).setSelection(mTrace.firstVisiblePositionAt(findDragStart()));
+			mStep = STEP_RESTORE_OFFSET;
+			mTarget.postDelayed(this, RESTORE_DELAY);
+			break;
+		case STEP_RESTORE_OFFSET:
+			restoreOffset((AbsListView) mTarget, mTrace.scrollOffsetAt(findDragStart()));
+			mStep = STEP_PLAY;
+			mStartTime = SystemClock.uptimeMillis() + RESTORE_DELAY;
+			mTarget.postDelayed(this, RESTORE_DELAY);
+			break;
+		case STEP_PLAY:
+			play();
+			break;
+		}
+	}
+
+	private void play() {
+		long now = SystemClock.uptimeMillis();
+		int size = mTrace.size();
+		while (mIndex < size) {
+			long time = timeOf(mIndex);
+			if (time > now) {
+				mTarget.postDelayed(this, time - now);
+				return;
+			}
+			int kind = mTrace.kindAt(mIndex);
+			if (kind == GestureTrace.KIND_EVENT) {
+				dispatch(mIndex);
+			}
+			mIndex++;
+		}
+		mStep = STEP_DONE;
+	}
+
+	/**
+	 * Dispatch the event at index, batching the historical samples recorded just before it.
+	 */
+	private void dispatch(int index) {
+		int action = mTrace.actionAt(index);
+		int first = index;
+		while (first > 0 && mTrace.kindAt(first - 1) == GestureTrace.KIND_HISTORY) {
+			first--;
+		}
+		if (action == MotionEvent.ACTION_DOWN) {
+			mDownTime = timeOf(index);
+		}
+		MotionEvent event = MotionEvent.obtain(mDownTime, timeOf(first), action,
+				mTrace.xAt(first), mTrace.yAt(first), 0);
+		for (int i = first + 1; i <= index; i++) {
+			event.addBatch(timeOf(i), mTrace.xAt(i), mTrace.yAt(i), 1f, 1f, 0);
+		}
+		mTarget.dispatchTouchEvent(event);
+		event.recycle();
+	}
+
+	private long timeOf(int index) {
+		return mStartTime + mReplayTimes[index];
+	}
+
+	/**
+	 * @return the replay time of every record, scaled by speed except inside the holds between a down and its drag start
+	 */
+	private static long[] computeReplayTimes(GestureTrace trace, float speed) {
+		int size = trace.size();
+		boolean[] held = new boolean[size];
+		boolean holding = false;
+		for (int i = size - 1; i >= 0; i--) {
+			int kind = trace.kindAt(i);
+			if (kind == GestureTrace.KIND_DRAG_START) {
+				holding = true;
+			}
+			if (kind == GestureTrace.KIND_EVENT && trace.actionAt(i) == MotionEvent.ACTION_DOWN) {
+				holding = false;
+			} else {
+				held[i] = holding;
+			}
+		}
+		long[] times = new long[size];
+		long time = 0;
+		for (int i = 1; i < size; i++) {
+			long delta = trace.timeAt(i) - trace.timeAt(i - 1);
+			time += held[i] ? delta : (long) (delta / speed);
+			times[i] = time;
+		}
+		return times;
+	}
+
+	private int findDragStart() {
+		for (int i = 0; i < mTrace.size(); i++) {
+			if (mTrace.kindAt(i) == GestureTrace.KIND_DRAG_START) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static void restoreOffset(AbsListView list, int offset) {
+		if (list.getChildCount() == 0 || Build.VERSION.SDK_INT < Build.VERSION_CODES.KITKAT) {
+			return;
+		}
+		int current = list.getChildAt(0).getTop() - list.getPaddingTop();
+		list.scrollListBy(current - offset);
+	}
+}
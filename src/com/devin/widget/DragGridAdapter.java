@@ -0,0 +1,147 @@
+package com.devin.widget;
+
+import java.util.Collection;
+
+import android.widget.AdapterView;
+import android.widget.BaseAdapter;
+import android.widget.ListAdapter;
+
+import com.devin.widget.DragGridView.OnDropListener;
+import com.devin.widget.DragGridView.OnShiftListener;
+import com.devin.widget.DragGridView.OnTransferListener;
+import com.devin.widget.core.IndexedTreeList;
+
+/**
+ * A reorderable adapter for {@link DragGridView}.
+ * Items are kept in an {@link IndexedTreeList}, an order-statistic balanced tree,
+ * so {@link #move(int, int)}, {@link #get(int)} and {@link #getItemId(int)} cost O(log n)
+ * instead of rotating a list one element at a time.
+ * Each item gets a stable id when it's added, which survives any number of moves.
+ *
+ * It's an {@link OnShiftListener} and an {@link OnDropListener} itself, register it by
+ * <pre>
+ * 	grid.setAdapter(adapter);
+ * 	grid.setOnShiftListener(adapter); // or grid.setOnDropListener(adapter);
+ * </pre>
+ * and an {@link OnTransferListener} taking items from grids whose adapter is a DragGridAdapter of the same items.
+ *
+ * @author Devin Wong
+ *
+ */
+public abstract class DragGridAdapter<T> extends BaseAdapter implements OnShiftListener, OnDropListener,
+		OnTransferListener, PrefetchAdapter {
+
+	private IndexedTreeList<T> mItems;
+
+	public DragGridAdapter() {
+		mItems = new IndexedTreeList<T>();
+	}
+
+	public DragGridAdapter(Collection<? extends T> items) {
+		mItems = new IndexedTreeList<T>(items);
+	}
+
+	@Override
+	public int getCount() {
+		return mItems.size();
+	}
+
+	@Override
+	public Object getItem(int position) {
+		return mItems.get(position);
+	}
+
+	@Override
+	public long getItemId(int position) {
+		return mItems.getId(position);
+	}
+
+	@Override
+	public boolean hasStableIds() {
+		return true;
+	}
+
+	public T get(int position) {
+		return mItems.get(position);
+	}
+
+	public void set(int position, T item) {
+		mItems.set(position, item);
+	}
+
+	public void add(T item) {
+		mItems.add(item);
+	}
+
+	public void insert(int position, T item) {
+		mItems.insert(position, item);
+	}
+
+	public T remove(int position) {
+		return mItems.remove(position);
+	}
+
+	public void clear() {
+		mItems.clear();
+	}
+
+	/**
+	 * Move the item at from to to, items between are shifted by one. O(log n).
+	 */
+	public void move(int from, int to) {
+		mItems.move(from, to);
+	}
+
+	/**
+	 * Moves dragPos to movePos, or to the end when movePos is {@link AdapterView#INVALID_POSITION},
+	 * then notifies the change.
+	 */
+	@Override
+	public void onShift(int dragPos, int movePos) {
+		if (movePos == AdapterView.INVALID_POSITION) {
+			movePos = getCount() - 1;
+		}
+		move(dragPos, movePos);
+		notifyDataSetChanged();
+	}
+
+	@Override
+	public void onDrop(int dragPos, int dropPos) {
+		move(dragPos, dropPos);
+		notifyDataSetChanged();
+	}
+
+	@Override
+	public void onDropCanceled(int dragPos) {
+	}
+
+	/**
+	 * Inserts the item at sourcePos of the source's adapter, which must be a DragGridAdapter of the same items,
+	 * then notifies the change. Override it to take items from other adapters.
+	 * @throws IllegalArgumentException if the source's adapter isn't a DragGridAdapter
+	 */
+	@SuppressWarnings("unchecked")
+	@Override
+	public void onInsert(DragGridView source, int sourcePos, int position) {
+		ListAdapter adapter = source.getAdapter();
+		if (!(adapter instanceof DragGridAdapter)) {
+			throw new IllegalArgumentException("can't insert an item of " + adapter
+					+ ", it isn't a DragGridAdapter, override onInsert to convert it");
+		}
+		insert(position, ((DragGridAdapter<T>) adapter).get(sourcePos));
+		notifyDataSetChanged();
+	}
+
+	@Override
+	public void onRemove(DragGridView target, int position) {
+		remove(position);
+		notifyDataSetChanged();
+	}
+
+	/**
+	 * Does nothing, override to start loading the data or images of position before it's scrolled in.
+	 */
+	@Override
+	public void onPrefetch(int position) {
+	}
+}
@@ -3,34 +3,42 @@ package com.devin.widget;
 
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 import android.animation.Animator;
 import android.animation.Animator.AnimatorListener;
 import android.animation.AnimatorSet;
 import android.animation.ObjectAnimator;
-import android.animation.PropertyValuesHolder;
-import android.animation.ValueAnimator;
-import android.animation.ValueAnimator.AnimatorUpdateListener;
 import android.content.Context;
+import android.database.DataSetObserver;
 import android.graphics.Bitmap;
 import android.graphics.Canvas;
 import android.graphics.Point;
 import android.graphics.Rect;
-import android.graphics.drawable.BitmapDrawable;
+import android.os.Build;
+import android.os.SystemClock;
 import android.util.AttributeSet;
-import android.util.Property;
+import android.view.Choreographer;
 import android.view.MotionEvent;
+import android.view.VelocityTracker;
 import android.view.View;
 import android.view.ViewConfiguration;
+import android.view.animation.AccelerateDecelerateInterpolator;
 import android.view.animation.DecelerateInterpolator;
 import android.view.animation.Interpolator;
 import android.view.animation.LinearInterpolator;
 import android.widget.AdapterView;
 import android.widget.GridView;
+import android.widget.ListAdapter;
+
+import com.devin.widget.core.DropPredictor;
+import com.devin.widget.core.ItemIdCache;
+import com.devin.widget.core.PinnedPositions;
+import com.devin.widget.core.PositionTable;
+import com.devin.widget.core.Reorder;
+import com.devin.widget.core.ReorderHistory;
+import com.devin.widget.core.TouchResampler;
 
 /**
  * A dragable gridview which has two ways for dragging. 
@@ -40,6 +48,9 @@ import android.widget.GridView;
  * 
  *  See {@link OnSwapListener}
  *  See {@link OnShiftListener}
+ *  See {@link OnDropListener}
+ *  See {@link DragCoordinator}
+ *  See {@link DragGridAdapter}
  *  
  * @author Devin Wong
  *
@@ -56,6 +67,7 @@ public class DragGridView extends GridView {
 	private static final long SPRINGBACK_MIN_DURATION = 700L;
 	private static final long SPRINGBACK_MAX_DURATION = 1200L;
 	private static final long DRIFT_ANIMATION_DURATION = 300L;
+	private static final long FRAME_DELAY = 16L;
 	
 	private Point mLastPoint = new Point();
 	private Point mTouchDownPoint = new Point();
@@ -63,29 +75,120 @@ public class DragGridView extends GridView {
 	private Rect mSpringbackRect = new Rect();
 	private Rect mCurrentDragRect = new Rect();
 	private Rect mDriftDragRect = new Rect();
-	private Rect mGetPositionRect = new Rect();
+	
+	private GridGeometry mGeometry = new GridGeometry();
+	private PositionTable<View> mBeforeShiftPositions = new PositionTable<View>();
+	private PositionTable<View> mAfterShiftPositions = new PositionTable<View>();
+	private PositionTable<View> mShiftVelocities = new PositionTable<View>();
+	private ItemIdCache mItemIds = new ItemIdCache();
+	/**
+	 * Offsets applied to the visible children of a deferred drag, rebuilt into the spare table on each pass
+	 * so children scrolled out of the window are dropped.
+	 */
+	private PositionTable<View> mDeferredOffsets = new PositionTable<View>();
+	private PositionTable<View> mSpareDeferredOffsets = new PositionTable<View>();
 	
 	private View mDragView;
-	private BitmapDrawable mDragDrawable; 
+	private DragShadowDrawable mDragDrawable; 
+	private DragShadowDrawable mShadowDrawable = new DragShadowDrawable();
+	private DragShadowPool mShadowPool = new DragShadowPool();
+	private DragShadowCache mShadowCache = new DragShadowCache(mShadowPool, new DragShadowCache.Callback() {
+
+		@Override
+		public void onShadowReplaced(Bitmap old, Bitmap processed) {
+			if (mShadowDrawable.getBitmap() != old) {
+				return;
+			}
+			mShadowDrawable.setBitmap(processed);
+			if (mShadowCoordinator != null) {
+				mShadowCoordinator.invalidateShadow();
+			} else if (mShadowInOverlay) {
+				mShadowView.setDrawable(mShadowDrawable);
+			} else if (mDragDrawable != null) {
+				invalidate(mDragDrawable.getBounds());
+			}
+		}
+	});
+	private long mDragItemId;
+	private DragShadowView mShadowView;
+	private boolean mShadowInOverlay;
+	/**
+	 * The coordinator this grid is registered with, and the one owning the shadow of the drag going on.
+	 */
+	private DragCoordinator mCoordinator;
+	private DragCoordinator mShadowCoordinator;
+	/**
+	 * The pointer of the drag left this grid for another or for none, it stops targeting until it's back.
+	 */
+	private boolean mPointerOutside;
+	/**
+	 * Where the drag of another grid would be inserted here, and the uptime the gap opens at, 0 when open.
+	 */
+	private int mTransferPosition = INVALID_POSITION;
+	private long mTransferDeadline;
 	
 	private int mDragPosition;
 	private int mMovingPosition;
 	private int mLastMovingPosition;
+	/**
+	 * Positions displaced by the running shift animation, its cells may be retargeted by the next shift.
+	 */
+	private int mShiftFirst = INVALID_POSITION;
+	private int mShiftLast = INVALID_POSITION;
+	private int mDeferredTarget = INVALID_POSITION;
+	private int mPendingDropPosition = INVALID_POSITION;
 	private int mTouchSlop;
 	
-	private int mUpScrollBorder;
-	private int mDownScrollBorder;
-	
-	private boolean mSpringbacking; 
-	private boolean mDragging; 
-	private boolean mShiftAnimating;
-	private boolean mDriftAnimating;
+	/**
+	 * Pressed waits for the long-press, drifting moves the shadow under the finger, dragging follows it
+	 * and becomes shifting while a shift animation runs, springing back ends the drag.
+	 */
+	private static final int STATE_IDLE = 0;
+	private static final int STATE_PRESSED = 1;
+	private static final int STATE_DRIFTING = 2;
+	private static final int STATE_DRAGGING = 3;
+	private static final int STATE_SHIFTING = 4;
+	private static final int STATE_SPRINGING_BACK = 5;
+
+	private int mState = STATE_IDLE;
+	private boolean mFramePosted;
+	private boolean mPrewarmPending;
+	private long mLongPressDeadline;
+	/**
+	 * The latest touch sample of the drag, not yet applied when mTouchPending.
+	 */
+	private Point mTouchPoint = new Point();
+	private boolean mTouchPending;
+	/**
+	 * Every sample of the drag, the shadow is placed once per frame where they say the finger is at that frame.
+	 */
+	private TouchResampler mResampler = new TouchResampler();
     
-	private Set<Integer> mExceptionSet;
+	private PinnedPositions mPinned = new PinnedPositions();
+	/**
+	 * Null unless predictive targeting is on.
+	 */
+	private DropPredictor mPredictor;
+	private VelocityTracker mVelocityTracker;
+	/**
+	 * Uptime the pending shift runs at, 0 when none is pending.
+	 */
+	private long mShiftDeadline;
 	
 	private OnSwapListener mOnSwapListener;
 	private OnShiftListener mOnShiftListener;
+	private OnDropListener mOnDropListener;
+	private OnTransferListener mOnTransferListener;
+	private DragMetricsCollector mMetricsCollector;
+	private DragPerfCounters mPerfCounters;
+	private DragGestureRecorder mGestureRecorder;
+	private ReorderHistory mHistory;
+	/**
+	 * A reorder listener is being called by the grid, the data set changes it notifies are recorded reorders.
+	 */
+	private boolean mReordering;
 	
+	private Interpolator mDriftInterpolator = new AccelerateDecelerateInterpolator();
 	private Interpolator mSwapInterpolator = new DecelerateInterpolator(4);
 	private Interpolator mShiftInterpolator = new LinearInterpolator();
 	private Interpolator mSpringBackInterpolator = new Interpolator() {
@@ -113,115 +216,378 @@ public class DragGridView extends GridView {
 	
 	@Override
 	public boolean dispatchTouchEvent(MotionEvent ev) {
-		if (mSpringbacking) {
+		if (mGestureRecorder != null) {
+			mGestureRecorder.record(ev);
+		}
+		if (mState == STATE_SPRINGING_BACK) {
 			return super.dispatchTouchEvent(ev);
 		}
 		int x = (int) ev.getX();
 		int y = (int) ev.getY();
-		int position = getPosition(x, y);
+		int position;
+		if (mPredictor != null) {
+			if (mVelocityTracker == null) {
+				mVelocityTracker = VelocityTracker.obtain();
+			}
+			mVelocityTracker.addMovement(ev);
+		}
 		switch (ev.getAction()) {
 		case MotionEvent.ACTION_DOWN:
+			position = getPosition(x, y);
 
 			mTouchDownPoint.x = x;
 			mTouchDownPoint.y = y;
-			mUpScrollBorder = getHeight() / 5;
-			mDownScrollBorder = getHeight() * 4 / 5;
 			mDragPosition = position;
 			mLastMovingPosition = position;
-			if (mExceptionSet != null && mExceptionSet.contains(mDragPosition)) {
+			mDeferredTarget = position;
+			mState = STATE_IDLE;
+			if (mPinned.isPinned(mDragPosition)) {
 				mDragPosition = AdapterView.INVALID_POSITION;
 			}
-			if (position == INVALID_POSITION) {
+			if (mDragPosition == INVALID_POSITION) {
 				return super.dispatchTouchEvent(ev);
 			}
 			View dragView = getChildAt(position - getFirstVisiblePosition());
 			mDragView = dragView;
-			postDelayed(mLongClickRunnable, LONG_CLICK_DURATION);
+			if (!getAdapter().hasStableIds()) {
+				mShadowCache.clear();
+			}
+			mDragItemId = getAdapter().getItemId(position);
+			mState = STATE_PRESSED;
+			mPrewarmPending = true;
+			mLongPressDeadline = SystemClock.uptimeMillis() + LONG_CLICK_DURATION;
+			scheduleFrame();
 			break;
 		case MotionEvent.ACTION_UP:
 		case MotionEvent.ACTION_CANCEL:
+			if (mVelocityTracker != null) {
+				mVelocityTracker.recycle();
+				mVelocityTracker = null;
+			}
+			if (mState == STATE_PRESSED) {
+				mState = STATE_IDLE;
+			}
 			if (mDragPosition == INVALID_POSITION) {
 				return super.dispatchTouchEvent(ev);
 			}
-			removeCallbacks(mLongClickRunnable);
-			if (mDragging) {
-				runSwap();
+			mAutoScroller.stop();
+			mPrefetcher.stop();
+			if (isDragging()) {
+				boolean canceled = ev.getAction() == MotionEvent.ACTION_CANCEL;
+				if (mState != STATE_DRIFTING && mTouchPending) {
+					applyTouchSample();
+					moveShadowTo(mTouchPoint.x, mTouchPoint.y);
+				}
+				// the shift the finger was waiting for is committed with the drop
+				if (mShiftDeadline != 0 && !canceled && mOnDropListener == null) {
+					mShiftDeadline = 0;
+					runShift();
+				}
+				mShiftDeadline = 0;
+				if (mMetricsCollector != null) {
+					mMetricsCollector.onUp();
+				}
+				if (mShadowCoordinator != null && mShadowCoordinator.getTransferTarget(this) != null && !canceled) {
+					runTransfer();
+				} else {
+					if (mShadowCoordinator != null) {
+						mShadowCoordinator.cancelTransfer(this);
+					}
+					runSwap();
+					runDrop(canceled);
+				}
+				mState = STATE_IDLE;
 				springbackToProperPosition();
-				mDragging = false;
+				if (mHistory != null) {
+					mHistory.endGesture();
+				}
 				return true;
 			}
 			break;
 		case MotionEvent.ACTION_MOVE:
-			
-			int deltaX = x - mLastPoint.x;
-			int deltaY = y - mLastPoint.y;
-			if (!mDragging) {
+			if (mState == STATE_IDLE || mState == STATE_PRESSED) {
+				int deltaX = x - mLastPoint.x;
+				int deltaY = y - mLastPoint.y;
 				if (Math.abs(deltaX) > mTouchSlop || Math.abs(deltaY) > mTouchSlop) {
-					removeCallbacks(mLongClickRunnable);
+					mState = STATE_IDLE;
 				}
 				return super.dispatchTouchEvent(ev);
 			}
-			if (mDragPosition == INVALID_POSITION  || mDriftAnimating) {
+			if (mDragPosition == INVALID_POSITION || mState == STATE_DRIFTING) {
 				return true;
 			}
-			mMovingPosition = position;
-			View view = getChildAt(position - getFirstVisiblePosition());
-			if (mOnShiftListener != null && !mShiftAnimating) {
-				if (view != null) {
-					setSpringbackRect(view);
-				} else {
-					setSpringbackRect(getChildAt(getValidCount() - 1));
-				}
-			}
-			mCurrentDragRect.offset(deltaX, deltaY);
-			setDrawableRect(mCurrentDragRect);
-			if (mLastMovingPosition != position) {
-				if (!mShiftAnimating) {
-					removeCallbacks(mShiftRunnable);
-					postDelayed(mShiftRunnable, SHIFT_DELAY);
-					mLastMovingPosition = position;
-				}
-			}
-			
-			if (y > mDownScrollBorder) {
-				if (getLastVisiblePosition() < getCount() - 1) {
-					scroll(false);
-				} else if (getLastVisiblePosition() == getCount() - 1) {
-					if (getChildAt(getChildCount() - 1).getBottom() - getHeight() > 0) {
-						scroll(false);
-					}
-				}
-			} else if (y < mUpScrollBorder) {
-				if (getFirstVisiblePosition() > 0) {
-					scroll(true);
-				} else if (getFirstVisiblePosition() == 0) {
-					if (getChildAt(0).getTop() < 0) {
-						scroll(true);
-					}
-				}
+			if (mPredictor != null && mVelocityTracker != null) {
+				mVelocityTracker.computeCurrentVelocity(1);
+				mPredictor.update(ev.getEventTime(), x, y,
+						mVelocityTracker.getXVelocity(), mVelocityTracker.getYVelocity());
 			}
-			if (mDragging) {
-				mLastPoint.set(x, y);
-				return true;
+			// applied on the next frame, however many samples arrive before it
+			int historySize = ev.getHistorySize();
+			for (int i = 0; i < historySize; i++) {
+				mResampler.add(ev.getHistoricalEventTime(i), ev.getHistoricalX(i), ev.getHistoricalY(i));
 			}
+			mResampler.add(ev.getEventTime(), ev.getX(), ev.getY());
+			mTouchPoint.set(x, y);
+			mTouchPending = true;
+			return true;
 		default:
-			if (mDragging) {
+			if (isDragging()) {
 				return true;
 			}
 		}
 		mLastPoint.set(x, y);
 		return super.dispatchTouchEvent(ev);
 	}
+
+	/**
+	 * Runs the tick on the Choreographer since JELLY_BEAN, created there only so older releases never load it.
+	 */
+	private static class FrameCallback implements Choreographer.FrameCallback {
+
+		private final DragGridView mGrid;
+
+		FrameCallback(DragGridView grid) {
+			mGrid = grid;
+		}
+
+		@Override
+		public void doFrame(long frameTimeNanos) {
+			mGrid.doFrame(frameTimeNanos);
+		}
+
+		void post() {
+			Choreographer.getInstance().postFrameCallback(this);
+		}
+
+		void remove() {
+			Choreographer.getInstance().removeFrameCallback(this);
+		}
+	}
+
+	private FrameCallback mFrameCallback;
+	/**
+	 * Runs the tick every FRAME_DELAY through the message queue before JELLY_BEAN.
+	 */
+	private Runnable mFrameRunnable = new Runnable() {
+
+		@Override
+		public void run() {
+			doFrame(SystemClock.uptimeMillis() * 1000000L);
+		}
+	};
+
+	/**
+	 * The drag state machine, advanced once per frame while a press or a drag is going on.
+	 * Touch events only store their sample, long-press and shift deadlines, the drag view and auto-scroll
+	 * are all evaluated here against the latest one, so nothing goes through the message queue per event.
+	 * @param frameTimeNanos the frame time in the {@link System#nanoTime()} base, which is uptime
+	 */
+	private void doFrame(long frameTimeNanos) {
+		mFramePosted = false;
+		long now = SystemClock.uptimeMillis();
+		switch (mState) {
+		case STATE_PRESSED:
+			if (mPrewarmPending) {
+				mPrewarmPending = false;
+				mShadowCache.prepare(mDragItemId, mDragView);
+			}
+			if (now >= mLongPressDeadline) {
+				startDrag();
+			}
+			break;
+		case STATE_DRAGGING:
+		case STATE_SHIFTING:
+			applyTouchSample();
+			if (mResampler.resample(frameTimeNanos / 1000000 - TouchResampler.LATENCY)) {
+				moveShadowTo(Math.round(mResampler.getX()), Math.round(mResampler.getY()));
+			}
+			if (mShadowCoordinator != null) {
+				mShadowCoordinator.doFrame(now);
+			}
+			mAutoScroller.doFrame(frameTimeNanos);
+			if (mShiftDeadline != 0 && now >= mShiftDeadline) {
+				mShiftDeadline = 0;
+				runShift();
+			}
+			mState = mShiftAnimator.isRunning() ? STATE_SHIFTING : STATE_DRAGGING;
+			break;
+		default:
+			break;
+		}
+		if (mState != STATE_IDLE && mState != STATE_SPRINGING_BACK) {
+			scheduleFrame();
+		}
+	}
+
+	private void scheduleFrame() {
+		if (mFramePosted) {
+			return;
+		}
+		mFramePosted = true;
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+			if (mFrameCallback == null) {
+				mFrameCallback = new FrameCallback(this);
+			}
+			mFrameCallback.post();
+		} else {
+			postDelayed(mFrameRunnable, FRAME_DELAY);
+		}
+	}
+
+	private void cancelFrame() {
+		if (mFrameCallback != null) {
+			mFrameCallback.remove();
+		}
+		removeCallbacks(mFrameRunnable);
+		mFramePosted = false;
+	}
+
+	private boolean isDragging() {
+		return mState == STATE_DRIFTING || mState == STATE_DRAGGING || mState == STATE_SHIFTING;
+	}
+
+	/**
+	 * Update the position under the latest touch sample and the edge auto-scroll with it.
+	 */
+	private void applyTouchSample() {
+		if (!mTouchPending) {
+			return;
+		}
+		mTouchPending = false;
+		if (mShadowCoordinator != null && !mShadowCoordinator.dragOver(this, mTouchPoint.x, mTouchPoint.y,
+				SystemClock.uptimeMillis())) {
+			if (!mPointerOutside) {
+				leaveGrid();
+			}
+			return;
+		}
+		if (mPointerOutside) {
+			// back in, the cell under the pointer starts a fresh wait
+			mPointerOutside = false;
+			mLastMovingPosition = INVALID_POSITION;
+		}
+		updateMovingPosition(mTouchPoint.x, mTouchPoint.y);
+		mAutoScroller.update(mTouchPoint.y);
+	}
+
+	/**
+	 * The pointer left for another grid or for none: finish the shift animation, drop any pending shift
+	 * and put a deferred drag back where it started, so only the grid under the pointer animates.
+	 */
+	private void leaveGrid() {
+		mPointerOutside = true;
+		mAutoScroller.stop();
+		mPrefetcher.stop();
+		mShiftAnimator.cancel();
+		mShiftDeadline = 0;
+		mMovingPosition = INVALID_POSITION;
+		mLastMovingPosition = INVALID_POSITION;
+		if (mOnDropListener != null && mDeferredTarget != mDragPosition) {
+			mDeferredTarget = mDragPosition;
+			applyDeferredOffsets(false);
+		}
+		setSpringbackRect();
+	}
+
+	/**
+	 * Keep the drag view where it was relative to the finger, with the finger at (x, y).
+	 */
+	private void moveShadowTo(int x, int y) {
+		if (x == mLastPoint.x && y == mLastPoint.y) {
+			return;
+		}
+		mCurrentDragRect.offset(x - mLastPoint.x, y - mLastPoint.y);
+		setDrawableRect(mCurrentDragRect);
+		mLastPoint.set(x, y);
+	}
+	
+	private void updateMovingPosition(int x, int y) {
+		int position = getPosition(x, y);
+		if (position == INVALID_POSITION && !isPastLastItem(x, y)) {
+			// a gap between cells changes nothing, only past the last item means the end
+			return;
+		}
+		long delay = SHIFT_DELAY;
+		// past the last item keeps the full wait
+		if (mPredictor != null && !mAutoScroller.isRunning() && position != INVALID_POSITION) {
+			delay = mPredictor.getDwell();
+			if (mPredictor.isConfident()) {
+				int restX = (int) Math.max(0, Math.min(mPredictor.getRestX(), getWidth() - 1));
+				int restY = (int) Math.max(0, Math.min(mPredictor.getRestY(), getHeight() - 1));
+				int predicted = getPosition(restX, restY);
+				if (predicted != INVALID_POSITION) {
+					position = predicted;
+					delay = mPredictor.getMinDwell();
+				}
+			}
+		}
+		mMovingPosition = position;
+		View view = getChildAt(position - getFirstVisiblePosition());
+		if (mOnShiftListener != null && !mPinned.isPinned(position)) {
+			if (view != null) {
+				setSpringbackRect(view);
+			} else {
+				setSpringbackRect(getChildAt(getValidCount() - 1));
+			}
+		}
+		long now = SystemClock.uptimeMillis();
+		// a new cell restarts the wait, a finger slowing down over the same cell shortens it
+		if (mLastMovingPosition != position || now + delay < mShiftDeadline) {
+			mShiftDeadline = now + delay;
+			mLastMovingPosition = position;
+		}
+	}
+	
+	/**
+	 * Predictive targeting tracks the finger's velocity: a finger steadily slowing down shifts to the cell
+	 * it's about to rest on before it gets there, cells crossed quickly are skipped, and the wait before
+	 * a shift shrinks from 200ms to 40ms as the finger slows down. Off by default.
+	 */
+	public void setPredictiveTargeting(boolean enabled) {
+		if (!enabled) {
+			mPredictor = null;
+		} else if (mPredictor == null) {
+			mPredictor = new DropPredictor();
+		}
+	}
+	
+	private EdgeAutoScroller mAutoScroller = new EdgeAutoScroller(this, new EdgeAutoScroller.Callback() {
+
+		@Override
+		public void onAutoScrolled(int dy) {
+			updateMovingPosition(mTouchPoint.x, mTouchPoint.y);
+			mPrefetcher.onScrolled(dy);
+		}
+	});
+	
+	private ViewPrefetcher mPrefetcher = new ViewPrefetcher(this, mGeometry);
+	
+	/**
+	 * @param pixelsPerSecond edge auto-scroll speed with the finger at the very edge
+	 */
+	public void setAutoScrollMaxSpeed(float pixelsPerSecond) {
+		mAutoScroller.setMaxSpeed(pixelsPerSecond);
+	}
 	
+	/**
+	 * @param ratio height of the top and bottom auto-scroll zones as a fraction of the view height, 1/5 by default
+	 */
+	public void setAutoScrollZoneRatio(float ratio) {
+		mAutoScroller.setZoneRatio(ratio);
+	}
+	
+	/**
+	 * Scroll by a fixed step, dragging near the edges auto-scrolls once per frame instead.
+	 */
 	public void scroll(boolean up) {
-		removeCallbacks(mShiftRunnable);
 		if (up) {
 			smoothScrollBy(-50, 0);
+			mPrefetcher.onScrolled(-50);
 		} else {
 			smoothScrollBy(50, 0);
+			mPrefetcher.onScrolled(50);
 		}
-		postDelayed(mShiftRunnable, SHIFT_DELAY);
-		
+		mShiftDeadline = SystemClock.uptimeMillis() + SHIFT_DELAY;
 	}
 	
     @Override
@@ -229,321 +595,217 @@ public class DragGridView extends GridView {
 		return super.onTouchEvent(ev);
 	}
 
-	public int getPosition(int x, int y) {
-		Rect frame = mGetPositionRect;
-        final int count = getChildCount();
-        for (int i = count - 1; i >= 0; i--) {
-            final View child = getChildAt(i);
-            child.getHitRect(frame);
-            if (frame.contains(x, y)) {
-            	if (i >= getValidCount()) {
-            		return INVALID_POSITION;
-            	} else {
-            		return getFirstVisiblePosition() + i;
-            	}
-            }
-        }
-        return INVALID_POSITION;
-    }
-	
-	class DrawableProxy {
-		
-		public static final String LEFT = "left";
-		public static final String TOP = "top";
-		public static final String RIGHT = "right";
-		public static final String BOTTOM = "bottom";
-		
-		private int left;
-		private int top;
-		private int right;
-		private int bottom;
-		
-		public int getLeft() {
-			return left;
-		}
-		public void setLeft(int left) {
-			this.left = left;
-		}
-		public int getTop() {
-			return top;
+	@Override
+	protected void layoutChildren() {
+		super.layoutChildren();
+		if (mPerfCounters != null) {
+			mPerfCounters.onLayout();
 		}
-		public void setTop(int top) {
-			this.top = top;
+		mGeometry.update(this);
+		if (isDeferredDragging()) {
+			applyDeferredOffsets(false);
+		} else if (mPendingDropPosition != INVALID_POSITION) {
+			hideOnly(mPendingDropPosition);
 		}
-		public int getRight() {
-			return right;
+	}
+
+	@Override
+	protected void onScrollChanged(int l, int t, int oldl, int oldt) {
+		super.onScrollChanged(l, t, oldl, oldt);
+		if (isDeferredDragging()) {
+			applyDeferredOffsets(false);
 		}
-		public void setRight(int right) {
-			this.right = right;
+	}
+
+	public int getPosition(int x, int y) {
+		if (!mGeometry.isValid()) {
+			mGeometry.update(this);
 		}
-		public int getBottom() {
-			return bottom;
+		return mGeometry.getPosition(this, x, y, getValidCount());
+	}
+
+	/**
+	 * @return whether (x, y) is after the last item of the adapter, which is then visible
+	 */
+	private boolean isPastLastItem(int x, int y) {
+		if (getAdapter() == null || getLastVisiblePosition() != getAdapter().getCount() - 1) {
+			return false;
 		}
-		public void setBottom(int bottom) {
-			this.bottom = bottom;
+		if (!mGeometry.isValid()) {
+			mGeometry.update(this);
 		}
-		
-		Property<DrawableProxy, Integer> leftProperty = new IntegerProperty<DrawableProxy>(DrawableProxy.LEFT) {
+		return mGeometry.isPastLast(this, x, y, getValidCount());
+	}
+	
+	private RectAnimator.Callback mDriftCallback = new RectAnimator.Callback() {
 
-			@Override
-			public void setValue(DrawableProxy object, int value) {
-				object.setLeft(value);
-			}
+		@Override
+		public void onRectAnimationStart(RectAnimator animator) {
+		}
 
-			@Override
-			public Integer get(DrawableProxy object) {
-				return object.getLeft();
-			}
-			
-		};
-		Property<DrawableProxy, Integer> topProperty = new IntegerProperty<DrawableProxy>(DrawableProxy.TOP) {
+		@Override
+		public void onRectAnimationUpdate(RectAnimator animator, Rect rect) {
+			setDrawableRect(rect);
+		}
 
-			@Override
-			public void setValue(DrawableProxy object, int value) {
-				object.setTop(value);
+		@Override
+		public void onRectAnimationEnd(RectAnimator animator) {
+			if (mState == STATE_DRIFTING) {
+				mState = STATE_DRAGGING;
 			}
+		}
+	};
 
-			@Override
-			public Integer get(DrawableProxy object) {
-				return object.getTop();
-			}
-			
-		};
-		
-		Property<DrawableProxy, Integer> rightProperty = new IntegerProperty<DrawableProxy>(DrawableProxy.RIGHT) {
+	private RectAnimator.Callback mSpringbackCallback = new RectAnimator.Callback() {
 
-			@Override
-			public void setValue(DrawableProxy object, int value) {
-				object.setRight(value);
-			}
+		@Override
+		public void onRectAnimationStart(RectAnimator animator) {
+			mState = STATE_SPRINGING_BACK;
+		}
 
-			@Override
-			public Integer get(DrawableProxy object) {
-				return object.getRight();
-			}
-			
-		};
-		
-		Property<DrawableProxy, Integer> bottomProperty = new IntegerProperty<DrawableProxy>(DrawableProxy.BOTTOM) {
+		@Override
+		public void onRectAnimationUpdate(RectAnimator animator, Rect rect) {
+			setDrawableRect(rect);
+		}
 
-			@Override
-			public void setValue(DrawableProxy object, int value) {
-				object.setBottom(value);
+		@Override
+		public void onRectAnimationEnd(RectAnimator animator) {
+			mState = STATE_IDLE;
+			if (mMetricsCollector != null) {
+				mMetricsCollector.end();
 			}
-
-			@Override
-			public Integer get(DrawableProxy object) {
-				return object.getBottom();
+			mDragDrawable = null;
+			detachShadow();
+			mShadowCache.release();
+			mShadowDrawable.setBitmap(null);
+			mPendingDropPosition = INVALID_POSITION;
+			for (int i = 0; i < getValidCount(); i++) {
+				getChildAt(i).setVisibility(View.VISIBLE);
 			}
-			
-		};
-
-		//framework的IntProperty被@hide, Copy it
-		public abstract class IntegerProperty<T> extends Property<T, Integer> {
-
-		    public IntegerProperty(String name) {
-		        super(Integer.class, name);
-		    }
+		}
+	};
 
-		    public abstract void setValue(T object, int value);
+	private RectAnimator mDriftAnimator = new RectAnimator(mDriftDragRect, mDriftCallback);
+	private RectAnimator mSpringbackAnimator = new RectAnimator(mCurrentDragRect, mSpringbackCallback);
 
-		    @Override
-		    final public void set(T object, Integer value) {
-		        setValue(object, value.intValue());
-		    }
-		}
-	}
-	
-	public ObjectAnimator createDrawableProxyAnimator(DrawableProxy proxy, Rect origin, Rect des) {
-		PropertyValuesHolder leftHolder = PropertyValuesHolder.ofInt(proxy.leftProperty, origin.left, des.left);
-		PropertyValuesHolder topHolder = PropertyValuesHolder.ofInt(proxy.topProperty, origin.top, des.top);
-		PropertyValuesHolder rightHolder = PropertyValuesHolder.ofInt(proxy.rightProperty, origin.right, des.right);
-		PropertyValuesHolder bottomHolder = PropertyValuesHolder.ofInt(proxy.bottomProperty, origin.bottom, des.bottom);
-		ObjectAnimator animator = ObjectAnimator.ofPropertyValuesHolder(proxy, leftHolder, topHolder, rightHolder, bottomHolder);
-		return animator;
-	}
-	
 	private void sticktoFinger() {
 		if (mDragDrawable != null) {
-			final DrawableProxy proxy = new DrawableProxy();
-			ObjectAnimator animator = createDrawableProxyAnimator(proxy, mDriftDragRect, mCurrentDragRect);
-			animator.addUpdateListener(new AnimatorUpdateListener() {
-				
-				@Override
-				public void onAnimationUpdate(ValueAnimator animation) {
-					mDriftDragRect.set(proxy.left, proxy.top, proxy.right, proxy.bottom);
-					setDrawableRect(mDriftDragRect);
-				}
-			});
-			animator.addListener(new AnimatorListener() {
-				
-				@Override
-				public void onAnimationStart(Animator animation) {
-					mDriftAnimating = true;
-				}
-				
-				@Override
-				public void onAnimationRepeat(Animator animation) {
-					mDriftAnimating = true;
-					
-				}
-				
-				@Override
-				public void onAnimationEnd(Animator animation) {
-					mDriftAnimating = false;
-					
-				}
-				
-				@Override
-				public void onAnimationCancel(Animator animation) {
-					mDriftAnimating = false;
-				}
-			});
-			animator.setDuration(DRIFT_ANIMATION_DURATION);
-			animator.start();
+			mDriftAnimator.start(mDriftDragRect, mCurrentDragRect, DRIFT_ANIMATION_DURATION, mDriftInterpolator);
 		}
 	}
 
 	private void springbackToProperPosition() {
 		if (mDragDrawable != null) {
-			final DrawableProxy proxy = new DrawableProxy();
-			ObjectAnimator animator = createDrawableProxyAnimator(proxy, mCurrentDragRect, mSpringbackRect);
-			animator.addUpdateListener(new AnimatorUpdateListener() {
-				
-				@Override
-				public void onAnimationUpdate(ValueAnimator animation) {
-					mCurrentDragRect.set(proxy.left, proxy.top, proxy.right, proxy.bottom);
-					setDrawableRect(mCurrentDragRect);
-				}
-			});
-			animator.addListener(new AnimatorListener() {
-				
-				@Override
-				public void onAnimationStart(Animator animation) {
-					mSpringbacking = true;
-				}
-				
-				@Override
-				public void onAnimationRepeat(Animator animation) {
-					mSpringbacking = true;
-				}
-				
-				@Override
-				public void onAnimationEnd(Animator animation) {
-					mSpringbacking = false;
-					mDragDrawable = null;
-					for (int i = 0; i < getValidCount(); i++) {
-						getChildAt(i).setVisibility(View.VISIBLE);
-					}
-				}
-				
-				@Override
-				public void onAnimationCancel(Animator animation) {
-					mSpringbacking = false;
-				}
-			});
-			animator.setInterpolator(mSpringBackInterpolator);
-			float deltaX = Math.abs(mSpringbackRect.left - mCurrentDragRect.left);
-			float deltaY = Math.abs(mSpringbackRect.top - mCurrentDragRect.top);
-			long duration = (long) Math.sqrt(deltaX * deltaX + deltaY * deltaY);
-			duration = clamp(duration * 3, SPRINGBACK_MIN_DURATION, SPRINGBACK_MAX_DURATION);
-			animator.setInterpolator(mSpringBackInterpolator);
-			animator.setDuration(duration);
-			animator.start();
+			long duration = Reorder.springbackDuration(mSpringbackRect.left - mCurrentDragRect.left,
+					mSpringbackRect.top - mCurrentDragRect.top, SPRINGBACK_MIN_DURATION, SPRINGBACK_MAX_DURATION);
+			mSpringbackAnimator.start(mCurrentDragRect, mSpringbackRect, duration, mSpringBackInterpolator);
 		}
 	}
 	
 	public static long clamp(long x, long min, long max) {
-        return x > max ? max : (x < min ?  min : x);
+        return Reorder.clamp(x, min, max);
     }
 	
-	private static class ViewPositionInfo {
-		public View view;
-		public float x;
-		public float y;
+	/**
+	 * Snapshot the visible children of positions [first, last] into map, keyed by item id.
+	 * @param visual true for where the children are drawn, mid-shift included, false for their slots
+	 */
+	private void collectViewPositionInfo(PositionTable<View> map, boolean visual, int first, int last) {
+		int offset = getFirstVisiblePosition();
+		int start = Math.max(first - offset, 0);
+		int end = Math.min(last - offset, getValidCount() - 1);
+		map.ensureCapacity(end - start + 1);
+		for (int i = start; i <= end; ++i) {
+			View child = getChildAt(i);
+			if (visual) {
+				map.put(getItemIdAt(offset + i), child, child.getX(), child.getY());
+			} else {
+				map.put(getItemIdAt(offset + i), child, child.getLeft(), child.getTop());
+			}
+		}
 	}
-	   
-		
-	private Map<Long, ViewPositionInfo> collectViewPositionInfo() {
-		int childCount = getValidCount();
-		if (childCount > 0) {
-			Map<Long, ViewPositionInfo> info = new HashMap<Long, ViewPositionInfo>();
-			int offset = getFirstVisiblePosition();
-			for (int i = 0; i < childCount; ++i) {
-				ViewPositionInfo inf = new ViewPositionInfo();
-				View child = getChildAt(i);
-				inf.view = child;
-				inf.x = child.getX();
-				inf.y = child.getY();
-				info.put(getAdapter().getItemId(offset + i), inf);
+	
+	/**
+	 * Snapshot the speed of the children of positions [first, last] still sliding from the last shift, keyed by item id.
+	 */
+	private void collectShiftVelocities(PositionTable<View> map, int first, int last) {
+		map.clear();
+		if (!mShiftAnimator.isRunning()) {
+			return;
+		}
+		int offset = getFirstVisiblePosition();
+		int start = Math.max(first - offset, 0);
+		int end = Math.min(last - offset, getValidCount() - 1);
+		for (int i = start; i <= end; ++i) {
+			View child = getChildAt(i);
+			long id = getItemIdAt(offset + i);
+			int index = mShiftAnimator.indexOf(id, child);
+			if (index >= 0) {
+				map.put(id, child,
+						mShiftAnimator.getVelocityXAt(index), mShiftAnimator.getVelocityYAt(index));
 			}
-			return info;
 		}
-		return null;
 	}
 	
-	private void startAnimationForShift(Map<Long, ViewPositionInfo> oldInfo, Map<Long, ViewPositionInfo> newInfo) {
-		List<Animator> animators = new ArrayList<Animator>();
-		if (newInfo != null) {
-			for (Long id : newInfo.keySet()) {
-				ViewPositionInfo oldInf = oldInfo.get(id);
-				ViewPositionInfo newInf = newInfo.get(id);
-				float xDiff = 0;
-				float yDiff = 0;
-				if (oldInf == null) {
-				} else {
-					xDiff = oldInf.x - newInf.x;
-					yDiff = oldInf.y - newInf.y;
-				}
-				if (xDiff != 0) {
-					animators.add(ObjectAnimator.ofFloat(newInf.view, TRANSLATION_X, xDiff, 0));
-				}
-				if (yDiff != 0) {
-					animators.add(ObjectAnimator.ofFloat(newInf.view, TRANSLATION_Y, yDiff, 0));
-				}
+	/**
+	 * @return the item id at position, asking the adapter once per position and drag
+	 */
+	private long getItemIdAt(int position) {
+		mItemIds.setWindow(getFirstVisiblePosition(), getChildCount());
+		if (mItemIds.contains(position)) {
+			return mItemIds.get(position);
+		}
+		long id = getAdapter().getItemId(position);
+		mItemIds.put(position, id);
+		return id;
+	}
+	
+	private PositionTable.DiffCallback<View> mShiftDiffCallback = new PositionTable.DiffCallback<View>() {
+
+		@Override
+		public void onMoved(long id, View view, float dx, float dy) {
+			int index = mShiftVelocities.indexOf(id);
+			if (index < 0) {
+				// a cell at rest leaves at the speed it arrives with, which keeps its motion linear
+				mShiftAnimator.add(id, view, dx, dy, -dx / SHIFT_ANIMATION_DURATION, -dy / SHIFT_ANIMATION_DURATION);
+			} else {
+				mShiftAnimator.add(id, view, dx, dy, mShiftVelocities.xAt(index), mShiftVelocities.yAt(index));
 			}
 		}
-		if (animators.size() > 0) {
-			AnimatorSet set = new AnimatorSet();
-			set.addListener(new AnimatorListener() {
-				
-				@Override
-				public void onAnimationStart(Animator animation) {
-					mShiftAnimating = true;
-					mDragView.setVisibility(View.VISIBLE);
-					View dragView = null;
-					if (mMovingPosition == INVALID_POSITION) {
-						dragView = getChildAt(getValidCount() - 1);
-						mDragPosition = getValidCount() - 1;
-					} else {
-						dragView = getChildAt(mMovingPosition - getFirstVisiblePosition());
-						mDragPosition = mMovingPosition;
-					}
-					dragView.setVisibility(View.INVISIBLE);
-					mDragView = dragView;
-					setSpringbackRect(dragView);
-				}
-				
-				@Override
-				public void onAnimationRepeat(Animator animation) {
-					mShiftAnimating = true;
-				}
-				
-				@Override
-				public void onAnimationEnd(Animator animation) {
-					mShiftAnimating = false;
-				}
-				
-				@Override
-				public void onAnimationCancel(Animator animation) {
-					mShiftAnimating = false;
-				}
-			});
-			set.playTogether(animators);
-			set.setInterpolator(mShiftInterpolator);
-			set.setDuration(SHIFT_ANIMATION_DURATION);
-			set.start();
+	};
+	
+	private ShiftAnimator mShiftAnimator = new ShiftAnimator();
+	
+	/**
+	 * Hide the child now holding the dragged item and show the one which held it.
+	 * The item may be scrolled out of view, its slot is where the shadow springs back to then.
+	 */
+	private void moveDragView() {
+		if (mDragView != null) {
+			mDragView.setVisibility(View.VISIBLE);
 		}
+		mDragPosition = mMovingPosition == INVALID_POSITION ? getAdapter().getCount() - 1 : mMovingPosition;
+		mDragView = getChildAt(mDragPosition - getFirstVisiblePosition());
+		if (mDragView != null) {
+			mDragView.setVisibility(View.INVISIBLE);
+		}
+		setSpringbackRect();
+	}
+	
+	/**
+	 * Spring back to the child of the dragged item, or to its slot when it isn't visible.
+	 */
+	private void setSpringbackRect() {
+		if (mDragView != null) {
+			setSpringbackRect(mDragView);
+		} else if (mGeometry.isValid()) {
+			mGeometry.getSlotRect(this, mDragPosition, mSpringbackRect);
+		}
+	}
+	
+	private void startAnimationForShift(PositionTable<View> oldInfo, PositionTable<View> newInfo) {
+		PositionTable.diff(oldInfo, newInfo, mShiftDiffCallback);
+		mShiftAnimator.start(SHIFT_ANIMATION_DURATION, mShiftInterpolator);
 	}
 	
 	private void startAnimationForSwap(int start, int end) {
@@ -576,76 +838,438 @@ public class DragGridView extends GridView {
 		List<Animator> animators = new ArrayList<Animator>();
 		animators.add(ObjectAnimator.ofFloat(startView, X, endView.getX(), startView.getX()));
 		animators.add(ObjectAnimator.ofFloat(startView, Y, endView.getY(), startView.getY()));
+		if (mPerfCounters != null) {
+			mPerfCounters.onAnimatorsCreated(animators.size());
+		}
 		set.playTogether(animators);
 		set.setInterpolator(mSwapInterpolator);
 		set.setDuration(SWAP_ANIMATION_DURATION);
 		set.start();
 	}
 
-	private Runnable mSwapRunnable = new Runnable() {
-
-		@Override
-		public void run() {
-			runSwap();
-		}
-
-	};
-	
 	private void runSwap() {
 		if (mOnSwapListener != null) {
-			if (mExceptionSet != null && mExceptionSet.contains(mMovingPosition)) {
+			if (mPinned.isPinned(mMovingPosition)) {
 				mMovingPosition = AdapterView.INVALID_POSITION;
 			}
 			if (mMovingPosition == INVALID_POSITION) {
 				return;
 			}
+			mReordering = true;
 			mOnSwapListener.onSwap(mDragPosition, mMovingPosition);
+			mReordering = false;
+			if (mHistory != null) {
+				mHistory.record(ReorderHistory.TYPE_SWAP, mDragPosition, mMovingPosition);
+			}
+			if (mMetricsCollector != null) {
+				mMetricsCollector.onSwap();
+			}
 			startAnimationForSwap(mDragPosition, mMovingPosition);
 		}
 	}
 	
-	private Runnable mShiftRunnable = new Runnable() {
+	private boolean isDeferredDragging() {
+		return mOnDropListener != null && isDragging() && mDragPosition != INVALID_POSITION;
+	}
 
-		@Override
-		public void run() {
-			if (mOnShiftListener != null) {
-				Map<Long, ViewPositionInfo> beforeSwapMap = collectViewPositionInfo();
-				mOnShiftListener.onShift(mDragPosition, mMovingPosition);
-				Map<Long, ViewPositionInfo> afterSwapMap = collectViewPositionInfo();
-				startAnimationForShift(beforeSwapMap, afterSwapMap);
+	/**
+	 * Translate visible children to their slots in the in-view permutation, the adapter is untouched.
+	 * Only children whose offset changed are touched, and only the visible ones are remembered.
+	 */
+	private void applyDeferredOffsets(boolean animate) {
+		if (!mGeometry.isValid()) {
+			return;
+		}
+		int first = getFirstVisiblePosition();
+		int childCount = getValidCount();
+		PositionTable<View> applied = mDeferredOffsets;
+		PositionTable<View> visible = mSpareDeferredOffsets;
+		visible.ensureCapacity(childCount);
+		for (int i = 0; i < childCount; i++) {
+			View child = getChildAt(i);
+			int position = first + i;
+			if (position == mDragPosition) {
+				child.setVisibility(View.INVISIBLE);
+				continue;
+			}
+			child.setVisibility(View.VISIBLE);
+			int slot = Reorder.shiftedSlot(position, mDragPosition, mDeferredTarget);
+			float dx = mGeometry.getSlotOffsetX(position, slot);
+			float dy = mGeometry.getSlotOffsetY(position, slot);
+			long id = getItemIdAt(position);
+			visible.put(id, child, dx, dy);
+			int index = applied.indexOf(id);
+			if (index >= 0 && applied.valueAt(index) == child
+					&& applied.xAt(index) == dx && applied.yAt(index) == dy) {
+				continue;
+			}
+			if (animate) {
+				child.animate().translationX(dx).translationY(dy)
+						.setDuration(SHIFT_ANIMATION_DURATION).setInterpolator(mShiftInterpolator);
+			} else {
+				child.animate().cancel();
+				child.setTranslationX(dx);
+				child.setTranslationY(dy);
 			}
 		}
-	};
+		applied.clear();
+		mDeferredOffsets = visible;
+		mSpareDeferredOffsets = applied;
+	}
+
+	private void runDeferredShift() {
+		if (!mGeometry.isValid() || mMovingPosition == INVALID_POSITION || mMovingPosition == mDeferredTarget) {
+			return;
+		}
+		mDeferredTarget = mMovingPosition;
+		applyDeferredOffsets(true);
+		mGeometry.getSlotRect(this, mDeferredTarget, mSpringbackRect);
+	}
+
+	/**
+	 * Deliver the net move of a deferred drag and drop the in-view permutation.
+	 */
+	private void runDrop(boolean canceled) {
+		if (mOnDropListener == null) {
+			return;
+		}
+		mShiftDeadline = 0;
+		int from = mDragPosition;
+		int to = canceled ? from : mDeferredTarget;
+		if (mGeometry.isValid()) {
+			mGeometry.getSlotRect(this, to, mSpringbackRect);
+		}
+		int childCount = getChildCount();
+		for (int i = 0; i < childCount; i++) {
+			View child = getChildAt(i);
+			child.animate().cancel();
+			child.setTranslationX(0);
+			child.setTranslationY(0);
+		}
+		mDeferredOffsets.clear();
+		mDeferredTarget = INVALID_POSITION;
+		mPendingDropPosition = to;
+		hideOnly(to);
+		mReordering = true;
+		if (from == to) {
+			mOnDropListener.onDropCanceled(from);
+		} else {
+			if (mHistory != null) {
+				mHistory.record(ReorderHistory.TYPE_SHIFT, from, to);
+			}
+			mOnDropListener.onDrop(from, to);
+			if (mMetricsCollector != null) {
+				mMetricsCollector.onDrop();
+			}
+		}
+		mReordering = false;
+	}
+
+	/**
+	 * Hand the dragged item off to the grid under the pointer and spring back to its slot there.
+	 * A deferred drag was put back where it started when the pointer left, its translations are dropped.
+	 * The history of both grids is cleared, it can't replay a move between them.
+	 */
+	private void runTransfer() {
+		int childCount = getChildCount();
+		for (int i = 0; i < childCount; i++) {
+			View child = getChildAt(i);
+			child.animate().cancel();
+			child.setTranslationX(0);
+			child.setTranslationY(0);
+		}
+		mDeferredOffsets.clear();
+		mDeferredTarget = INVALID_POSITION;
+		mPendingDropPosition = INVALID_POSITION;
+		clearHistory();
+		mShadowCoordinator.transfer(this, mDragPosition, mSpringbackRect);
+		hideOnly(INVALID_POSITION);
+	}
+
+	/**
+	 * The drag of another grid is at (x, y) of this one, a gap opens where its item would be inserted
+	 * once the pointer rests there for the shift delay. A gap between cells keeps the last position,
+	 * only past the last item or over an empty grid inserts at the end.
+	 */
+	void transferOver(int x, int y, long now) {
+		int position = getPosition(x, y);
+		if (position == INVALID_POSITION) {
+			if (getAdapter().getCount() > 0 && !isPastLastItem(x, y)) {
+				return;
+			}
+			position = getAdapter().getCount();
+		}
+		position = insertPosition(position);
+		if (position != mTransferPosition) {
+			mTransferPosition = position;
+			mTransferDeadline = now + SHIFT_DELAY;
+		}
+	}
+
+	void doTransferFrame(long now) {
+		if (mTransferDeadline != 0 && now >= mTransferDeadline) {
+			mTransferDeadline = 0;
+			applyTransferOffsets(mTransferPosition, true);
+		}
+	}
+
+	/**
+	 * The drag of another grid left, close the gap at once.
+	 */
+	void exitTransfer() {
+		mTransferPosition = INVALID_POSITION;
+		mTransferDeadline = 0;
+		applyTransferOffsets(INVALID_POSITION, false);
+	}
+
+	/**
+	 * Insert the item of another grid's drag where the pointer is, even if the gap isn't open yet.
+	 * The inserted item stays hidden until {@link #endTransfer()}, while the shadow lands on it.
+	 * @param out receives the slot of the inserted item
+	 */
+	void receiveTransfer(DragGridView source, int sourcePosition, Rect out) {
+		// the pointer never rested on a cell, e.g. it came in over a gap and was released there
+		int position = insertPosition(mTransferPosition == INVALID_POSITION
+				? getAdapter().getCount() : mTransferPosition);
+		mTransferPosition = INVALID_POSITION;
+		mTransferDeadline = 0;
+		applyTransferOffsets(INVALID_POSITION, false);
+		if (mGeometry.isValid()) {
+			mGeometry.getSlotRect(this, position, out);
+		} else {
+			out.offsetTo(getPaddingLeft(), getPaddingTop());
+		}
+		mPendingDropPosition = position;
+		clearHistory();
+		mOnTransferListener.onInsert(source, sourcePosition, position);
+	}
+
+	/**
+	 * @return position, or the closest unpinned one after it, an item can't be inserted in a pinned slot
+	 */
+	private int insertPosition(int position) {
+		if (mPinned.isEmpty()) {
+			return position;
+		}
+		return Math.min(mPinned.nextUnpinned(position, 1), getAdapter().getCount());
+	}
+
+	void endTransfer() {
+		exitTransfer();
+		mPendingDropPosition = INVALID_POSITION;
+		hideOnly(INVALID_POSITION);
+	}
+
+	/**
+	 * Translate visible children to their slots with an item inserted at position, the adapter is untouched.
+	 * @param position {@link AdapterView#INVALID_POSITION} puts every child back in its slot
+	 */
+	private void applyTransferOffsets(int position, boolean animate) {
+		if (!mGeometry.isValid()) {
+			return;
+		}
+		int first = getFirstVisiblePosition();
+		int count = getAdapter().getCount();
+		int childCount = getValidCount();
+		for (int i = 0; i < childCount; i++) {
+			View child = getChildAt(i);
+			int slot = position == INVALID_POSITION ? first + i : Reorder.shiftedSlot(first + i, count, position);
+			float dx = mGeometry.getSlotOffsetX(first + i, slot);
+			float dy = mGeometry.getSlotOffsetY(first + i, slot);
+			if (animate) {
+				child.animate().translationX(dx).translationY(dy)
+						.setDuration(SHIFT_ANIMATION_DURATION).setInterpolator(mShiftInterpolator);
+			} else {
+				child.animate().cancel();
+				child.setTranslationX(dx);
+				child.setTranslationY(dy);
+			}
+		}
+	}
+
+	private void hideOnly(int position) {
+		int first = getFirstVisiblePosition();
+		int childCount = getValidCount();
+		for (int i = 0; i < childCount; i++) {
+			getChildAt(i).setVisibility(first + i == position ? View.INVISIBLE : View.VISIBLE);
+		}
+	}
+
+	private void runShift() {
+		if (mOnDropListener != null) {
+			runDeferredShift();
+		} else if (mOnShiftListener != null) {
+			int to = mMovingPosition == INVALID_POSITION ? getAdapter().getCount() - 1 : mMovingPosition;
+			if (!mPinned.isEmpty()) {
+				// hovering a pinned cell targets the closest unpinned one on the dragged item's side
+				to = mPinned.nextUnpinned(to, to > mDragPosition ? -1 : 1);
+				if (to == mDragPosition) {
+					return;
+				}
+				mMovingPosition = to;
+			}
+			if (mHistory != null) {
+				mHistory.record(ReorderHistory.TYPE_SHIFT, mDragPosition, to);
+			}
+			reorder(ReorderHistory.TYPE_SHIFT, mDragPosition, mMovingPosition);
+		}
+	}
 	
+	/**
+	 * Run a shift or a swap through its listener, sliding the visible children it displaces
+	 * from where they're drawn to their new slots. During a drag the drag view follows the moving position.
+	 * @param to {@link AdapterView#INVALID_POSITION} shifts to the end
+	 */
+	private void reorder(int type, int from, int to) {
+		if (!isDragging()) {
+			mItemIds.clear();
+		}
+		int first = Math.min(from, to);
+		int last = Math.max(from, to);
+		if (to == INVALID_POSITION) {
+			first = from;
+			last = getLastVisiblePosition();
+		}
+		if (mShiftAnimator.isRunning()) {
+			first = Math.min(first, mShiftFirst);
+			last = Math.max(last, mShiftLast);
+		}
+		collectViewPositionInfo(mBeforeShiftPositions, true, first, last);
+		collectShiftVelocities(mShiftVelocities, first, last);
+		if (type == ReorderHistory.TYPE_SWAP) {
+			mReordering = true;
+			mOnSwapListener.onSwap(from, to);
+			mReordering = false;
+			mItemIds.clear();
+		} else {
+			if (to == INVALID_POSITION) {
+				mShiftSink.shift(from, to);
+				mItemIds.clear();
+			} else {
+				// deferred drags don't know pins, their drop is undone as the plain shift it was
+				Reorder.shiftAroundPinned(from, to, mOnShiftListener != null ? mPinned : null, mShiftSink);
+			}
+			if (isDragging() && mMetricsCollector != null) {
+				mMetricsCollector.onShift();
+			}
+		}
+		collectViewPositionInfo(mAfterShiftPositions, false, first, last);
+		if (isDragging()) {
+			moveDragView();
+		}
+		startAnimationForShift(mBeforeShiftPositions, mAfterShiftPositions);
+		mShiftFirst = first;
+		mShiftLast = last;
+		mBeforeShiftPositions.clear();
+		mAfterShiftPositions.clear();
+		mShiftVelocities.clear();
+	}
 	
-	private Runnable mLongClickRunnable = new Runnable() {
+	private Reorder.ShiftSink mShiftSink = new Reorder.ShiftSink() {
 
 		@Override
-		public void run() {
-			View dragView = mDragView;
-			if (dragView != null) {
-				dragView.setVisibility(View.INVISIBLE);
-				dragView.setDrawingCacheEnabled(true);
-				Bitmap bitmap = Bitmap.createBitmap(dragView.getDrawingCache());
-				mDragDrawable = new BitmapDrawable(getResources(), bitmap);
-				dragView.destroyDrawingCache();
-				setSpringbackRect(dragView);
-				mCurrentDragRect.set(mSpringbackRect);
-				mDriftDragRect.set(mSpringbackRect);
-				setDrawableRect(mCurrentDragRect);
-				int deltaX = mTouchDownPoint.x - mSpringbackRect.centerX();
-				int deltaY = mTouchDownPoint.y - mSpringbackRect.centerY();
-				mCurrentDragRect.offset(deltaX - FINGER_OFFSET, deltaY - FINGER_OFFSET);
-				sticktoFinger();
-				mDragging = true;
+		public void shift(int dragPos, int movePos) {
+			mReordering = true;
+			if (mOnShiftListener != null) {
+				mOnShiftListener.onShift(dragPos, movePos);
+			} else {
+				mOnDropListener.onDrop(dragPos, movePos);
+			}
+			mReordering = false;
+			if (!getAdapter().hasStableIds()) {
+				mItemIds.clear();
+			} else {
+				mItemIds.shift(dragPos, movePos);
 			}
 		}
 	};
 	
+	/**
+	 * The long-press fired, lift the pressed item into the shadow and drift it under the finger.
+	 */
+	private void startDrag() {
+		View dragView = mDragView;
+		if (dragView == null) {
+			mState = STATE_IDLE;
+			return;
+		}
+		mShadowDrawable.setBitmap(mShadowCache.take(mDragItemId, dragView));
+		mDragDrawable = mShadowDrawable;
+		attachShadow();
+		dragView.setVisibility(View.INVISIBLE);
+		setSpringbackRect(dragView);
+		mCurrentDragRect.set(mSpringbackRect);
+		mDriftDragRect.set(mSpringbackRect);
+		setDrawableRect(mCurrentDragRect);
+		int deltaX = mTouchDownPoint.x - mSpringbackRect.centerX();
+		int deltaY = mTouchDownPoint.y - mSpringbackRect.centerY();
+		mCurrentDragRect.offset(deltaX - FINGER_OFFSET, deltaY - FINGER_OFFSET);
+		mState = STATE_DRIFTING;
+		mTouchPending = false;
+		mPointerOutside = false;
+		mResampler.reset();
+		mShiftDeadline = 0;
+		sticktoFinger();
+		mItemIds.clear();
+		if (mPredictor != null) {
+			mPredictor.reset();
+			if (mGeometry.isValid() && mGeometry.getColumnStride() > 0 && mGeometry.getRowStride() > 0) {
+				mPredictor.setCellSize(mGeometry.getColumnStride(), mGeometry.getRowStride());
+			}
+		}
+		if (mHistory != null) {
+			mHistory.beginGesture();
+		}
+		if (mMetricsCollector != null) {
+			mMetricsCollector.begin();
+		}
+		if (mGestureRecorder != null) {
+			mGestureRecorder.recordDragStart(this);
+		}
+	}
 	
-	
+	/**
+	 * Since JELLY_BEAN_MR2 the shadow lives in a hardware layer in the overlay and moves by translation,
+	 * before that it's drawn in {@link #dispatchDraw(Canvas)}. With a {@link DragCoordinator} the overlay is
+	 * the one of its root, shared by every grid the drag crosses.
+	 */
+	private void attachShadow() {
+		if (mCoordinator != null) {
+			mShadowDrawable.setAlpha(255);
+			mShadowCoordinator = mCoordinator;
+			mShadowCoordinator.beginDrag(this, mShadowDrawable, DRIFT_ALPHA / 255f);
+		} else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+			if (mShadowView == null) {
+				mShadowView = new DragShadowView(getContext());
+				mShadowView.setAlpha(DRIFT_ALPHA / 255f);
+			}
+			mShadowDrawable.setAlpha(255);
+			mShadowView.setDrawable(mShadowDrawable);
+			getOverlay().add(mShadowView);
+			mShadowInOverlay = true;
+		} else {
+			mShadowDrawable.setAlpha(DRIFT_ALPHA);
+		}
+	}
+
+	private void detachShadow() {
+		if (mShadowCoordinator != null) {
+			mShadowCoordinator.endDrag(this);
+			mShadowCoordinator = null;
+		}
+		if (mShadowInOverlay) {
+			getOverlay().remove(mShadowView);
+			mShadowView.setDrawable(null);
+			mShadowInOverlay = false;
+		}
+	}
+
 	private void setDrawableRect(Rect rect) {
-		if (mDragDrawable != null) {
+		if (mShadowCoordinator != null) {
+			mShadowCoordinator.moveShadow(this, rect);
+		} else if (mShadowInOverlay) {
+			mShadowView.moveTo(rect);
+		} else if (mDragDrawable != null) {
 			Rect r = mDragDrawable.getBounds();
 			invalidate(r);
 			mDragDrawable.setBounds(rect);
@@ -661,14 +1285,39 @@ public class DragGridView extends GridView {
 	@Override
 	protected void dispatchDraw(Canvas canvas) {
 		super.dispatchDraw(canvas);
-		if (mDragDrawable != null) {
-			mDragDrawable.setAlpha(DRIFT_ALPHA);
+		if (mDragDrawable != null && !mShadowInOverlay) {
 			mDragDrawable.draw(canvas);
 		}
 	}
 
+	/**
+	 * Pinned positions can't be dragged nor swapped, and shifts move the unpinned items around them,
+	 * which {@link OnShiftListener} receives as a few plain shifts in a row. Undo assumes the pins
+	 * it was recorded with, {@link #clearHistory()} after changing them.
+	 * @param pinned null unpins everything
+	 */
+	public void setPinnedPositions(PinnedPositions pinned) {
+		mPinned = pinned != null ? pinned : new PinnedPositions();
+	}
+
+	/**
+	 * @return the live pinned positions, pin and unpin on it directly
+	 */
+	public PinnedPositions getPinnedPositions() {
+		return mPinned;
+	}
+
+	/**
+	 * @deprecated pins a copy of set, use {@link #setPinnedPositions(PinnedPositions)}
+	 */
+	@Deprecated
 	public void setExceptionPosition(Set<Integer> set) {
-		mExceptionSet = set;
+		mPinned.clear();
+		if (set != null) {
+			for (int position : set) {
+				mPinned.pin(position);
+			}
+		}
 	}
 	
 
@@ -686,10 +1335,11 @@ public class DragGridView extends GridView {
 	
 	/**
 	 * You should return single itemId();
+	 * {@link DragGridAdapter} implements it with an O(log n) move, prefer it for large data.
 	 */
 	public interface OnShiftListener {
 		/**
-		 * OnShift example：
+		 * OnShift example (O(distance), see {@link DragGridAdapter#move(int, int)} for O(log n))：
 		 * 	List list = adapter.getList();
 			if (movePos == -1) {
 				Object drag = list.get(dragPos);
@@ -715,10 +1365,46 @@ public class DragGridView extends GridView {
 		public void onShift(int dragPos, int movePos);
 	}
 	
+	/**
+	 * Deferred-commit shift: items are reordered visually while dragging,
+	 * the adapter is left untouched and a single net move is delivered on drop.
+	 */
+	public interface OnDropListener {
+		/**
+		 * Move the item at dragPos to dropPos, items between are shifted by one.
+		 * Called once per gesture, see {@link DragGridAdapter#move(int, int)}.
+		 */
+		public void onDrop(int dragPos, int dropPos);
+
+		/**
+		 * The item was dropped back where it was, or the gesture was canceled.
+		 */
+		public void onDropCanceled(int dragPos);
+	}
+	
+	/**
+	 * Moves between grids of a {@link DragCoordinator}, on top of the reorders within each grid.
+	 * The target inserts first, so the item can still be read from the source.
+	 */
+	public interface OnTransferListener {
+		/**
+		 * Insert the item at sourcePos of source at position, items from position on move down by one.
+		 */
+		public void onInsert(DragGridView source, int sourcePos, int position);
+
+		/**
+		 * Remove the item at position, target has inserted it.
+		 */
+		public void onRemove(DragGridView target, int position);
+	}
+	
 	public void setOnSwapListener(OnSwapListener listener) {
 		if (mOnShiftListener != null) {
 			throw new IllegalStateException("DragGridView has registered OnShiftListener, please set either");
 		}
+		if (mOnDropListener != null) {
+			throw new IllegalStateException("DragGridView has registered OnDropListener, please set either");
+		}
 		mOnSwapListener = listener;
 	}
 	
@@ -726,13 +1412,262 @@ public class DragGridView extends GridView {
 		if (mOnSwapListener != null) {
 			throw new IllegalStateException("DragGridView has registered OnSwapListener, please set either");
 		}
+		if (mOnDropListener != null) {
+			throw new IllegalStateException("DragGridView has registered OnDropListener, please set either");
+		}
 		mOnShiftListener = listener;
 	}
 	
+	public void setOnDropListener(OnDropListener listener) {
+		if (mOnSwapListener != null) {
+			throw new IllegalStateException("DragGridView has registered OnSwapListener, please set either");
+		}
+		if (mOnShiftListener != null) {
+			throw new IllegalStateException("DragGridView has registered OnShiftListener, please set either");
+		}
+		mOnDropListener = listener;
+	}
+	
+	/**
+	 * Accept items dragged in from, and hand items off to, other grids of the same {@link DragCoordinator}.
+	 */
+	public void setOnTransferListener(OnTransferListener listener) {
+		mOnTransferListener = listener;
+	}
+
+	OnTransferListener getOnTransferListener() {
+		return mOnTransferListener;
+	}
+
+	/**
+	 * Set by {@link DragCoordinator#register(DragGridView)}, a drag going on keeps the coordinator it started with.
+	 */
+	void setDragCoordinator(DragCoordinator coordinator) {
+		mCoordinator = coordinator;
+	}
+
 	public int getValidCount() {
 		return getChildCount();
 	}
 	
+	/**
+	 * Opt in to frame timing of every drag session, pass null to stop measuring.
+	 * Frames are timed by the Choreographer, so nothing is measured before JELLY_BEAN.
+	 */
+	public void setDragMetricsListener(DragMetricsListener listener) {
+		if (mMetricsCollector != null) {
+			mMetricsCollector.cancel();
+		}
+		mMetricsCollector = listener == null || Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN
+				? null : new DragMetricsCollector(getContext(), listener);		mShadowDrawable.setDrawListener(mMetricsCollector);
+	}
+	
+	/**
+	 * Count layouts, invalidates and animators, pass null to stop counting.
+	 */
+	public void setPerfCounters(DragPerfCounters counters) {
+		mPerfCounters = counters;
+	}
+
+	/**
+	 * Record every touch event and drag start for {@link DragGestureReplayer}, pass null to stop recording.
+	 */
+	public void setGestureRecorder(DragGestureRecorder recorder) {
+		mGestureRecorder = recorder;
+	}
+
+	@Override
+	public void invalidate() {
+		super.invalidate();
+		if (mPerfCounters != null) {
+			mPerfCounters.onInvalidate();
+		}
+	}
+
+	@Override
+	public void invalidate(Rect dirty) {
+		super.invalidate(dirty);
+		if (mPerfCounters != null) {
+			mPerfCounters.onInvalidate();
+		}
+	}
+
+	@Override
+	public void invalidate(int l, int t, int r, int b) {
+		super.invalidate(l, t, r, b);
+		if (mPerfCounters != null) {
+			mPerfCounters.onInvalidate();
+		}
+	}
+	
+	/**
+	 * Share a pool between grids, or configure the budget, scale and config of drag shadows.
+	 */
+	public void setDragShadowPool(DragShadowPool pool) {
+		mShadowPool = pool;
+		mShadowCache.setPool(pool);
+	}
+	
+	public DragShadowPool getDragShadowPool() {
+		return mShadowPool;
+	}
+	
+	/**
+	 * Post-process drag shadows off the UI thread, e.g. round their corners, pass null for none.
+	 */
+	public void setDragShadowProcessor(DragShadowProcessor processor) {
+		mShadowCache.setProcessor(processor);
+		mShadowCache.clear();
+	}
+	
+	/**
+	 * Drop the drag shadow cached for the item with id, its next drag renders it again.
+	 * Shadows are kept across drags and dropped only when the adapter notifies a change, so call this
+	 * when an item changes its look without one, e.g. when an image it shows finishes loading.
+	 */
+	public void invalidateDragShadow(long id) {
+		mShadowCache.invalidate(id);
+	}
+	
+	/**
+	 * Bytes of rendered shadows kept by item id for the next drags, 4MB by default.
+	 */
+	public void setDragShadowCacheSize(int bytes) {
+		mShadowCache.setMemoryBudget(bytes);
+	}
+	
+	/**
+	 * Keep the last depth reorders for {@link #undo()} and {@link #redo()}, 0 turns history off.
+	 * A drag counts as one reorder however many cells it crossed.
+	 */
+	public void setUndoDepth(int depth) {
+		if (depth <= 0) {
+			mHistory = null;
+		} else if (mHistory == null) {
+			mHistory = new ReorderHistory(depth);
+		} else {
+			mHistory.setDepth(depth);
+		}
+	}
+	
+	public boolean canUndo() {
+		return mHistory != null && mHistory.canUndo() && !isDragging() && mState != STATE_SPRINGING_BACK && getAdapter() != null;
+	}
+	
+	public boolean canRedo() {
+		return mHistory != null && mHistory.canRedo() && !isDragging() && mState != STATE_SPRINGING_BACK && getAdapter() != null;
+	}
+	
+	/**
+	 * @return whether reorders of type can be replayed, history recorded through another listener can't
+	 */
+	private boolean hasListenerFor(int type) {
+		if (type == ReorderHistory.TYPE_SWAP) {
+			return mOnSwapListener != null;
+		}
+		return mOnShiftListener != null || mOnDropListener != null;
+	}
+	
+	/**
+	 * Revert the last reorder through the listener that made it, animated. Ignored during a drag.
+	 * @return false when there was nothing to undo
+	 */
+	public boolean undo() {
+		if (!canUndo()) {
+			return false;
+		}
+		int entry = mHistory.undo();
+		if (!hasListenerFor(mHistory.getType(entry))) {
+			mHistory.clear();
+			return false;
+		}
+		int from = mHistory.getFrom(entry);
+		int to = mHistory.getTo(entry);
+		if (mHistory.getType(entry) == ReorderHistory.TYPE_SWAP) {
+			reorder(ReorderHistory.TYPE_SWAP, from, to);
+		} else {
+			reorder(ReorderHistory.TYPE_SHIFT, to, from);
+		}
+		return true;
+	}
+	
+	/**
+	 * Apply the last undone reorder again, animated. Ignored during a drag.
+	 * @return false when there was nothing to redo
+	 */
+	public boolean redo() {
+		if (!canRedo()) {
+			return false;
+		}
+		int entry = mHistory.redo();
+		if (!hasListenerFor(mHistory.getType(entry))) {
+			mHistory.clear();
+			return false;
+		}
+		reorder(mHistory.getType(entry), mHistory.getFrom(entry), mHistory.getTo(entry));
+		return true;
+	}
+	
+	/**
+	 * Forget every reorder. Done for you when the adapter notifies a change other than the reorders
+	 * the grid's listeners make, or when it's replaced.
+	 */
+	public void clearHistory() {
+		if (mHistory != null) {
+			mHistory.clear();
+		}
+	}
+	
+	@Override
+	public void setAdapter(ListAdapter adapter) {
+		ListAdapter old = getAdapter();
+		if (old != null) {
+			old.unregisterDataSetObserver(mDataSetObserver);
+		}
+		mShadowCache.clear();
+		clearHistory();
+		super.setAdapter(adapter);
+		if (adapter != null) {
+			adapter.registerDataSetObserver(mDataSetObserver);
+		}
+	}
+	
+	/**
+	 * Changes made outside a drag may change how items look, drop their shadows. Changes not made by a reorder
+	 * listener may move items, the positions in history no longer hold, drop it.
+	 */
+	private DataSetObserver mDataSetObserver = new DataSetObserver() {
+
+		@Override
+		public void onChanged() {
+			if (!mReordering) {
+				clearHistory();
+			}
+			if (!isDragging() && mState != STATE_SPRINGING_BACK) {
+				mShadowCache.clear();
+			}
+		}
+
+		@Override
+		public void onInvalidated() {
+			clearHistory();
+			mShadowCache.clear();
+		}
+	};
+
+	@Override
+	protected void onDetachedFromWindow() {
+		super.onDetachedFromWindow();
+		cancelFrame();
+		mAutoScroller.stop();
+		mPrefetcher.stop();
+		if (mMetricsCollector != null) {
+			mMetricsCollector.cancel();
+		}
+		mShadowCache.clear();
+		mShadowPool.clear();
+	}
+	
 
 
 	@Override
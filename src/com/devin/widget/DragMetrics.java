@@ -0,0 +1,156 @@
+package com.devin.widget;
+
+import java.util.Arrays;
+
+/**
+ * Frame timing and callback counts of one drag session, from long-press to the end of springback.
+ * The instance is reused for every session, copy what you need in
+ * {@link DragMetricsListener#onDragMetrics(DragMetrics)}.
+ *
+ * @author Devin Wong
+ *
+ */
+public class DragMetrics {
+
+	/**
+	 * Upper bounds (exclusive) of the frame duration buckets in milliseconds,
+	 * frames of at least the last bound fall into an extra overflow bucket.
+	 */
+	private static final int[] BUCKET_UPPER_BOUNDS_MILLIS = {8, 12, 17, 25, 34, 50, 67, 100, 150, 250};
+
+	private final int[] mBuckets = new int[BUCKET_UPPER_BOUNDS_MILLIS.length + 1];
+	private int mFrameCount;
+	private int mDroppedFrameCount;
+	private long mMaxFrameNanos;
+	private long mTotalFrameNanos;
+
+	private int mShiftCount;
+	private int mSwapCount;
+	private int mDropCount;
+
+	private long mDragStartLatencyNanos = -1;
+	private long mDropLatencyNanos = -1;
+	private long mSessionNanos;
+
+	public static int getBucketCount() {
+		return BUCKET_UPPER_BOUNDS_MILLIS.length + 1;
+	}
+
+	/**
+	 * @return the exclusive upper bound of bucket in milliseconds, or Integer.MAX_VALUE for the overflow bucket
+	 */
+	public static int getBucketUpperBoundMillis(int bucket) {
+		return bucket < BUCKET_UPPER_BOUNDS_MILLIS.length ? BUCKET_UPPER_BOUNDS_MILLIS[bucket] : Integer.MAX_VALUE;
+	}
+
+	public int getFrameCountInBucket(int bucket) {
+		return mBuckets[bucket];
+	}
+
+	public int getFrameCount() {
+		return mFrameCount;
+	}
+
+	/**
+	 * @return the number of vsyncs missed, a 50ms frame at 60Hz counts as 2
+	 */
+	public int getDroppedFrameCount() {
+		return mDroppedFrameCount;
+	}
+
+	public long getMaxFrameNanos() {
+		return mMaxFrameNanos;
+	}
+
+	public long getAverageFrameNanos() {
+		return mFrameCount == 0 ? 0 : mTotalFrameNanos / mFrameCount;
+	}
+
+	public int getShiftCount() {
+		return mShiftCount;
+	}
+
+	public int getSwapCount() {
+		return mSwapCount;
+	}
+
+	public int getDropCount() {
+		return mDropCount;
+	}
+
+	/**
+	 * @return nanos from the long-press firing to the first draw of the shadow, -1 if it never drew
+	 */
+	public long getDragStartLatencyNanos() {
+		return mDragStartLatencyNanos;
+	}
+
+	/**
+	 * @return nanos from ACTION_UP to the end of springback, -1 if unknown
+	 */
+	public long getDropLatencyNanos() {
+		return mDropLatencyNanos;
+	}
+
+	public long getSessionNanos() {
+		return mSessionNanos;
+	}
+
+	void reset() {
+		Arrays.fill(mBuckets, 0);
+		mFrameCount = 0;
+		mDroppedFrameCount = 0;
+		mMaxFrameNanos = 0;
+		mTotalFrameNanos = 0;
+		mShiftCount = 0;
+		mSwapCount = 0;
+		mDropCount = 0;
+		mDragStartLatencyNanos = -1;
+		mDropLatencyNanos = -1;
+		mSessionNanos = 0;
+	}
+
+	void addFrame(long frameNanos, long vsyncNanos) {
+		mFrameCount++;
+		mTotalFrameNanos += frameNanos;
+		if (frameNanos > mMaxFrameNanos) {
+			mMaxFrameNanos = frameNanos;
+		}
+		long millis = frameNanos / 1000000;
+		int bucket = 0;
+		while (bucket < BUCKET_UPPER_BOUNDS_MILLIS.length && millis >= BUCKET_UPPER_BOUNDS_MILLIS[bucket]) {
+			bucket++;
+		}
+		mBuckets[bucket]++;
+		if (vsyncNanos > 0) {
+			long missed = (frameNanos + vsyncNanos / 2) / vsyncNanos - 1;
+			if (missed > 0) {
+				mDroppedFrameCount += missed;
+			}
+		}
+	}
+
+	void addShift() {
+		mShiftCount++;
+	}
+
+	void addSwap() {
+		mSwapCount++;
+	}
+
+	void addDrop() {
+		mDropCount++;
+	}
+
+	void setDragStartLatencyNanos(long nanos) {
+		mDragStartLatencyNanos = nanos;
+	}
+
+	void setDropLatencyNanos(long nanos) {
+		mDropLatencyNanos = nanos;
+	}
+
+	void setSessionNanos(long nanos) {
+		mSessionNanos = nanos;
+	}
+}
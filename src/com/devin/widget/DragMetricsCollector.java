@@ -0,0 +1,123 @@
+package com.devin.widget;
+
+import android.content.Context;
+import android.view.Choreographer;
+import android.view.WindowManager;
+
+/**
+ * Feeds {@link DragMetrics} from a Choreographer frame callback during a drag session,
+ * and from the first draw of the shadow for the drag-start latency.
+ * Everything is recorded into primitives of one reused {@link DragMetrics}, so measuring allocates nothing.
+ *
+ * @author Devin Wong
+ *
+ */
+class DragMetricsCollector implements Choreographer.FrameCallback, DragShadowDrawable.DrawListener {
+
+	private final DragMetrics mMetrics = new DragMetrics();
+	private final DragMetricsListener mListener;
+	private final long mVsyncNanos;
+
+	private boolean mRunning;
+	private long mSessionStartNanos;
+	private long mLastFrameTimeNanos;
+	private long mUpNanos;
+	private boolean mShadowDrawn;
+
+	public DragMetricsCollector(Context context, DragMetricsListener listener) {
+		mListener = listener;
+		WindowManager wm = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+		float refreshRate = wm.getDefaultDisplay().getRefreshRate();
+		if (refreshRate < 10f) {
+			refreshRate = 60f;
+		}
+		mVsyncNanos = (long) (1000000000L / refreshRate);
+	}
+
+	/**
+	 * The long-press fired, a session starts.
+	 */
+	public void begin() {
+		if (mRunning) {
+			Choreographer.getInstance().removeFrameCallback(this);
+		}
+		mMetrics.reset();
+		mRunning = true;
+		mSessionStartNanos = System.nanoTime();
+		mLastFrameTimeNanos = 0;
+		mUpNanos = 0;
+		mShadowDrawn = false;
+		Choreographer.getInstance().postFrameCallback(this);
+	}
+
+	/**
+	 * The shadow was drawn, the first time stops the drag-start latency.
+	 */
+	@Override
+	public void onShadowDrawn() {
+		if (mRunning && !mShadowDrawn) {
+			mShadowDrawn = true;
+			mMetrics.setDragStartLatencyNanos(System.nanoTime() - mSessionStartNanos);
+		}
+	}
+
+	public void onShift() {
+		if (mRunning) {
+			mMetrics.addShift();
+		}
+	}
+
+	public void onSwap() {
+		if (mRunning) {
+			mMetrics.addSwap();
+		}
+	}
+
+	public void onDrop() {
+		if (mRunning) {
+			mMetrics.addDrop();
+		}
+	}
+
+	public void onUp() {
+		if (mRunning) {
+			mUpNanos = System.nanoTime();
+		}
+	}
+
+	/**
+	 * Springback ended, the session is reported.
+	 */
+	public void end() {
+		if (!mRunning) {
+			return;
+		}
+		mRunning = false;
+		Choreographer.getInstance().removeFrameCallback(this);
+		long now = System.nanoTime();
+		if (mUpNanos != 0) {
+			mMetrics.setDropLatencyNanos(now - mUpNanos);
+		}
+		mMetrics.setSessionNanos(now - mSessionStartNanos);
+		mListener.onDragMetrics(mMetrics);
+	}
+
+	public void cancel() {
+		if (mRunning) {
+			mRunning = false;
+			Choreographer.getInstance().removeFrameCallback(this);
+		}
+	}
+
+	@Override
+	public void doFrame(long frameTimeNanos) {
+		if (!mRunning) {
+			return;
+		}
+		if (mLastFrameTimeNanos != 0) {
+			mMetrics.addFrame(frameTimeNanos - mLastFrameTimeNanos, mVsyncNanos);
+		}
+		mLastFrameTimeNanos = frameTimeNanos;
+		Choreographer.getInstance().postFrameCallback(this);
+	}
+}
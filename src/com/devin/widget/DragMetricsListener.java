@@ -0,0 +1,14 @@
+package com.devin.widget;
+
+/**
+ * Receives the frame timing of each drag session of a {@link DragGridView}.
+ *
+ * @author Devin Wong
+ *
+ */
+public interface DragMetricsListener {
+	/**
+	 * Called when the springback of a drag ends. metrics is reused by the next session.
+	 */
+	public void onDragMetrics(DragMetrics metrics);
+}
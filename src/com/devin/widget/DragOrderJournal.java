@@ -0,0 +1,209 @@
+package com.devin.widget;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import com.devin.widget.core.ReorderJournal;
+
+/**
+ * Persists a user's item order without rewriting it on every move.
+ * Feed it from your {@link DragGridView.OnShiftListener}, {@link DragGridView.OnSwapListener}
+ * or {@link DragGridView.OnDropListener} along with the id of the dragged item,
+ * each move is appended to a {@link ReorderJournal} on a background thread, so the UI thread never waits on storage.
+ * <pre>
+ * 	public void onShift(int dragPos, int movePos) {
+ * 		if (movePos == AdapterView.INVALID_POSITION) {
+ * 			movePos = getCount() - 1;
+ * 		}
+ * 		journal.shift(dragPos, movePos, getItemId(dragPos));
+ * 		move(dragPos, movePos);
+ * 		notifyDataSetChanged();
+ * 	}
+ * </pre>
+ * Item ids must identify items across launches, as {@link #restore(OnRestoreListener)} hands them back.
+ *
+ * @author Devin Wong
+ *
+ */
+public class DragOrderJournal {
+
+	private static final String TAG = "DragOrderJournal";
+
+	public interface OnRestoreListener {
+		/**
+		 * Called on the UI thread.
+		 * @param ids the item ids in order, or null when nothing was persisted yet, {@link #reset(long[])} it then
+		 */
+		public void onRestored(long[] ids);
+
+		/**
+		 * The journal can't be read, called on the UI thread. It's still opened on the next move or reset.
+		 */
+		public void onRestoreFailed(IOException e);
+	}
+
+	private final ReorderJournal mJournal;
+	private final ExecutorService mExecutor = Executors.newSingleThreadExecutor();
+	private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+	private boolean mOpen;
+
+	/**
+	 * @param dir a directory of its own, e.g. new File(context.getFilesDir(), "order")
+	 */
+	public DragOrderJournal(File dir) {
+		mJournal = new ReorderJournal(dir);
+	}
+
+	/**
+	 * Open the journal and rebuild the persisted order on the journal's thread, a 100k-item order reads in milliseconds.
+	 * Moves fed meanwhile are appended after it's read, so they don't show in the order handed back.
+	 */
+	public void restore(final OnRestoreListener listener) {
+		mExecutor.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				long[] order = null;
+				IOException failure = null;
+				synchronized (mJournal) {
+					try {
+						order = mJournal.open();
+						mOpen = true;
+					} catch (IOException e) {
+						failure = e;
+					}
+				}
+				final long[] ids = order;
+				final IOException error = failure;
+				mHandler.post(new Runnable() {
+
+					@Override
+					public void run() {
+						if (error != null) {
+							listener.onRestoreFailed(error);
+						} else {
+							listener.onRestored(ids);
+						}
+					}
+				});
+			}
+		});
+	}
+
+	/**
+	 * Persist ids as the whole order, e.g. the initial one or after items were added or removed.
+	 */
+	public void reset(final long[] ids) {
+		final long[] copy = ids.clone();
+		mExecutor.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				synchronized (mJournal) {
+					try {
+						ensureOpen();
+						mJournal.reset(copy);
+					} catch (IOException e) {
+						Log.w(TAG, "can't reset the order", e);
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * The item id moved from from to to, items between are shifted by one.
+	 */
+	public void shift(int from, int to, long id) {
+		append(ReorderJournal.KIND_SHIFT, from, to, id);
+	}
+
+	/**
+	 * The item id at from was swapped with the item at to.
+	 */
+	public void swap(int from, int to, long id) {
+		append(ReorderJournal.KIND_SWAP, from, to, id);
+	}
+
+	/**
+	 * Fold the journal into a snapshot now, e.g. when the app goes to background.
+	 */
+	public void compact() {
+		mExecutor.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				synchronized (mJournal) {
+					try {
+						if (mOpen) {
+							mJournal.compact();
+						}
+					} catch (IOException e) {
+						Log.w(TAG, "can't compact the journal", e);
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Write what's pending through and close, the journal can't be fed afterwards.
+	 */
+	public void close() {
+		mExecutor.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				synchronized (mJournal) {
+					try {
+						mJournal.close();
+						mOpen = false;
+					} catch (IOException e) {
+						Log.w(TAG, "can't close the journal", e);
+					}
+				}
+			}
+		});
+		mExecutor.shutdown();
+	}
+
+	private void append(final int kind, final int from, final int to, final long id) {
+		mExecutor.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				synchronized (mJournal) {
+					try {
+						ensureOpen();
+						if (mJournal.size() < 0) {
+							return;
+						}
+						if (kind == ReorderJournal.KIND_SWAP) {
+							mJournal.swap(from, to, id);
+						} else {
+							mJournal.shift(from, to, id);
+						}
+					} catch (IOException e) {
+						Log.w(TAG, "can't journal a move", e);
+					} catch (IllegalStateException e) {
+						Log.w(TAG, "the journal is out of sync with the order, reset it", e);
+					}
+				}
+			}
+		});
+	}
+
+	private void ensureOpen() throws IOException {
+		if (!mOpen) {
+			mJournal.open();
+			mOpen = true;
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package com.devin.widget;
+
+/**
+ * Counts the expensive work a {@link DragGridView} does, for performance regression tests.
+ * Attach it with {@link DragGridView#setPerfCounters(DragPerfCounters)}.
+ *
+ * @author Devin Wong
+ *
+ */
+public class DragPerfCounters {
+
+	private int mLayoutCount;
+	private int mInvalidateCount;
+	private int mAnimatorCount;
+
+	public void reset() {
+		mLayoutCount = 0;
+		mInvalidateCount = 0;
+		mAnimatorCount = 0;
+	}
+
+	/**
+	 * @return layout passes of the grid children
+	 */
+	public int getLayoutCount() {
+		return mLayoutCount;
+	}
+
+	/**
+	 * @return invalidate calls on the grid itself
+	 */
+	public int getInvalidateCount() {
+		return mInvalidateCount;
+	}
+
+	/**
+	 * @return animators created for shifts and swaps
+	 */
+	public int getAnimatorCount() {
+		return mAnimatorCount;
+	}
+
+	void onLayout() {
+		mLayoutCount++;
+	}
+
+	void onInvalidate() {
+		mInvalidateCount++;
+	}
+
+	void onAnimatorsCreated(int count) {
+		mAnimatorCount += count;
+	}
+}
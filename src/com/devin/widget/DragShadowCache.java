@@ -0,0 +1,258 @@
+package com.devin.widget;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.Executor;
+
+import android.graphics.Bitmap;
+import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+import android.view.View;
+
+/**
+ * Rendered drag shadows keyed by item id and view size, least recently used evicted first
+ * within a memory budget. A shadow is prepared while the long-press is pending, post-processed
+ * off the UI thread by an optional {@link DragShadowProcessor}, and taken when the drag starts,
+ * so turning a long-press into a drag doesn't render anything.
+ * Evicted bitmaps go back to the {@link DragShadowPool}.
+ *
+ * @author Devin Wong
+ *
+ */
+class DragShadowCache {
+
+	private static final String TAG = "DragShadowCache";
+
+	public interface Callback {
+		/**
+		 * The shadow of the drag in progress was replaced by its processed version, old goes back to the pool next.
+		 */
+		public void onShadowReplaced(Bitmap old, Bitmap processed);
+	}
+
+	public static final int DEFAULT_MEMORY_BUDGET = 4 * 1024 * 1024;
+
+	private static class Entry {
+		int width;
+		int height;
+		Bitmap bitmap;
+		boolean inUse;
+		boolean processing;
+		boolean dropped;
+	}
+
+	private final LinkedHashMap<Long, Entry> mEntries = new LinkedHashMap<Long, Entry>(16, 0.75f, true);
+	private final Handler mHandler = new Handler(Looper.getMainLooper());
+	private final Callback mCallback;
+
+	/**
+	 * The entry of the drag in progress, it's neither evicted nor released until given back.
+	 */
+	private Entry mTaken;
+	private DragShadowPool mPool;
+	private DragShadowProcessor mProcessor;
+	private Executor mExecutor = AsyncTask.THREAD_POOL_EXECUTOR;
+	private int mMemoryBudget = DEFAULT_MEMORY_BUDGET;
+	private int mCachedBytes;
+
+	public DragShadowCache(DragShadowPool pool, Callback callback) {
+		mPool = pool;
+		mCallback = callback;
+	}
+
+	public void setPool(DragShadowPool pool) {
+		mPool = pool;
+	}
+
+	public void setProcessor(DragShadowProcessor processor) {
+		mProcessor = processor;
+	}
+
+	/**
+	 * Run processors on executor, the AsyncTask thread pool by default.
+	 */
+	void setExecutor(Executor executor) {
+		mExecutor = executor;
+	}
+
+	/**
+	 * Bytes of shadows kept, the shadow of a drag in progress may exceed it.
+	 */
+	public void setMemoryBudget(int bytes) {
+		mMemoryBudget = bytes;
+		trimTo(bytes);
+	}
+
+	/**
+	 * Render the shadow of id from view unless it's cached at the size of view.
+	 */
+	public void prepare(long id, View view) {
+		obtain(id, view);
+		trimTo(mMemoryBudget);
+	}
+
+	/**
+	 * @return the shadow of id for a drag, rendered now only if it wasn't prepared
+	 */
+	public Bitmap take(long id, View view) {
+		Entry entry = obtain(id, view);
+		entry.inUse = true;
+		mTaken = entry;
+		trimTo(mMemoryBudget);
+		return entry.bitmap;
+	}
+
+	/**
+	 * Give back the shadow taken for the drag that's over.
+	 */
+	public void release() {
+		Entry entry = mTaken;
+		if (entry == null) {
+			return;
+		}
+		mTaken = null;
+		entry.inUse = false;
+		if (!entry.dropped) {
+			trimTo(mMemoryBudget);
+		} else if (!entry.processing) {
+			mPool.release(entry.bitmap);
+		}
+	}
+
+	/**
+	 * Drop the shadow of id, for when its item looks different. A drag in progress keeps it until it's over.
+	 */
+	public void invalidate(long id) {
+		Entry entry = mEntries.remove(id);
+		if (entry != null) {
+			drop(entry);
+		}
+	}
+
+	/**
+	 * Drop every shadow, for when items may look different.
+	 */
+	public void clear() {
+		Iterator<Entry> it = mEntries.values().iterator();
+		while (it.hasNext()) {
+			Entry entry = it.next();
+			it.remove();
+			drop(entry);
+		}
+	}
+
+	private Entry obtain(long id, View view) {
+		int width = view.getWidth();
+		int height = view.getHeight();
+		Entry entry = mEntries.get(id);
+		if (entry != null) {
+			if (entry.width == width && entry.height == height) {
+				return entry;
+			}
+			mEntries.remove(id);
+			drop(entry);
+		}
+		entry = new Entry();
+		entry.width = width;
+		entry.height = height;
+		entry.bitmap = mPool.render(view);
+		mEntries.put(id, entry);
+		mCachedBytes += bytes(entry.bitmap);
+		if (mProcessor != null) {
+			process(entry);
+		}
+		return entry;
+	}
+
+	/**
+	 * Process the shadow of entry into a bitmap of its own, the shadow keeps being drawn meanwhile,
+	 * and swap it in once it's done. A processor that throws leaves the shadow unprocessed.
+	 */
+	private void process(final Entry entry) {
+		final Bitmap source = entry.bitmap;
+		final Bitmap target = mPool.obtain(source.getWidth(), source.getHeight(), source.getConfig());
+		final DragShadowProcessor processor = mProcessor;
+		entry.processing = true;
+		mExecutor.execute(new Runnable() {
+
+			@Override
+			public void run() {
+				boolean processed = false;
+				try {
+					processor.process(source, target);
+					processed = true;
+				} catch (RuntimeException e) {
+					Log.w(TAG, "can't process a drag shadow, it's kept as rendered", e);
+				}
+				final boolean done = processed;
+				mHandler.post(new Runnable() {
+
+					@Override
+					public void run() {
+						if (done) {
+							onProcessed(entry, source, target);
+						} else {
+							onProcessFailed(entry, target);
+						}
+					}
+				});
+			}
+		});
+	}
+
+	private void onProcessed(Entry entry, Bitmap source, Bitmap processed) {
+		entry.processing = false;
+		entry.bitmap = processed;
+		if (entry.inUse) {
+			mCallback.onShadowReplaced(source, processed);
+		}
+		mPool.release(source);
+		if (entry.dropped) {
+			if (!entry.inUse) {
+				mPool.release(processed);
+			}
+		} else {
+			trimTo(mMemoryBudget);
+		}
+	}
+
+	private void onProcessFailed(Entry entry, Bitmap target) {
+		entry.processing = false;
+		mPool.release(target);
+		if (entry.dropped) {
+			if (!entry.inUse) {
+				mPool.release(entry.bitmap);
+			}
+		} else {
+			trimTo(mMemoryBudget);
+		}
+	}
+
+	/**
+	 * Account for an entry removed from the map, its bitmap is released once nothing uses it.
+	 */
+	private void drop(Entry entry) {
+		mCachedBytes -= bytes(entry.bitmap);
+		entry.dropped = true;
+		if (!entry.inUse && !entry.processing) {
+			mPool.release(entry.bitmap);
+		}
+	}
+
+	private void trimTo(int bytes) {
+		Iterator<Entry> it = mEntries.values().iterator();
+		while (mCachedBytes > bytes && it.hasNext()) {
+			Entry entry = it.next();
+			if (!entry.inUse && !entry.processing) {
+				it.remove();
+				drop(entry);
+			}
+		}
+	}
+
+	private static int bytes(Bitmap bitmap) {
+		return bitmap.getRowBytes() * bitmap.getHeight();
+	}
+}
@@ -0,0 +1,82 @@
+package com.devin.widget;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.ColorFilter;
+import android.graphics.Paint;
+import android.graphics.PixelFormat;
+import android.graphics.drawable.Drawable;
+
+/**
+ * A drawable of the drag shadow which can be pointed at another bitmap,
+ * so one instance serves every drag. The bitmap is stretched to the bounds,
+ * which draws downscaled shadows at full size.
+ *
+ * @author Devin Wong
+ *
+ */
+class DragShadowDrawable extends Drawable {
+
+	/**
+	 * Told each time the shadow is drawn, wherever it lives.
+	 */
+	interface DrawListener {
+		public void onShadowDrawn();
+	}
+
+	private Bitmap mBitmap;
+	private Paint mPaint = new Paint(Paint.FILTER_BITMAP_FLAG);
+	private DrawListener mDrawListener;
+
+	public void setBitmap(Bitmap bitmap) {
+		mBitmap = bitmap;
+		invalidateSelf();
+	}
+
+	public Bitmap getBitmap() {
+		return mBitmap;
+	}
+
+	public void setDrawListener(DrawListener listener) {
+		mDrawListener = listener;
+	}
+
+	@Override
+	public void draw(Canvas canvas) {
+		if (mBitmap != null) {
+			canvas.drawBitmap(mBitmap, null, getBounds(), mPaint);
+			if (mDrawListener != null) {
+				mDrawListener.onShadowDrawn();
+			}
+		}
+	}
+
+	@Override
+	public void setAlpha(int alpha) {
+		if (mPaint.getAlpha() != alpha) {
+			mPaint.setAlpha(alpha);
+			invalidateSelf();
+		}
+	}
+
+	@Override
+	public void setColorFilter(ColorFilter cf) {
+		mPaint.setColorFilter(cf);
+		invalidateSelf();
+	}
+
+	@Override
+	public int getOpacity() {
+		return PixelFormat.TRANSLUCENT;
+	}
+
+	@Override
+	public int getIntrinsicWidth() {
+		return mBitmap == null ? -1 : mBitmap.getWidth();
+	}
+
+	@Override
+	public int getIntrinsicHeight() {
+		return mBitmap == null ? -1 : mBitmap.getHeight();
+	}
+}
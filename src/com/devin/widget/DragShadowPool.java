@@ -0,0 +1,144 @@
+package com.devin.widget;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.support.v4.util.LongSparseArray;
+import android.view.View;
+
+/**
+ * A pool of drag-shadow bitmaps, bucketed by dimensions and config.
+ * Shadows are rendered straight into a pooled bitmap instead of copying the drawing cache,
+ * and are returned with {@link #release(Bitmap)} when the drag is over.
+ * Free bitmaps are kept within a memory budget, the least recently released are recycled first.
+ *
+ * @author Devin Wong
+ *
+ */
+public class DragShadowPool {
+
+	public static final int DEFAULT_MEMORY_BUDGET = 8 * 1024 * 1024;
+
+	private LongSparseArray<List<Bitmap>> mBuckets = new LongSparseArray<List<Bitmap>>();
+	private List<Bitmap> mLru = new ArrayList<Bitmap>();
+	private Canvas mCanvas = new Canvas();
+
+	private int mMemoryBudget = DEFAULT_MEMORY_BUDGET;
+	private int mPooledBytes;
+	private float mScale = 1f;
+	private Bitmap.Config mConfig = Bitmap.Config.ARGB_8888;
+
+	/**
+	 * Bytes of free bitmaps kept for reuse, 0 disables pooling.
+	 */
+	public void setMemoryBudget(int bytes) {
+		mMemoryBudget = bytes;
+		trimTo(bytes);
+	}
+
+	public int getMemoryBudget() {
+		return mMemoryBudget;
+	}
+
+	/**
+	 * Render shadows at a fraction of the view size, e.g. 0.5f. They are scaled up when drawn.
+	 */
+	public void setScale(float scale) {
+		if (scale <= 0 || scale > 1) {
+			throw new IllegalArgumentException("scale should be in (0, 1], but " + scale);
+		}
+		mScale = scale;
+	}
+
+	public float getScale() {
+		return mScale;
+	}
+
+	/**
+	 * {@link Bitmap.Config#RGB_565} halves the memory of opaque tiles.
+	 */
+	public void setConfig(Bitmap.Config config) {
+		mConfig = config;
+	}
+
+	public Bitmap.Config getConfig() {
+		return mConfig;
+	}
+
+	/**
+	 * Render view into a pooled bitmap.
+	 */
+	public Bitmap render(View view) {
+		int width = Math.max(1, (int) Math.ceil(view.getWidth() * mScale));
+		int height = Math.max(1, (int) Math.ceil(view.getHeight() * mScale));
+		Bitmap bitmap = obtain(width, height, mConfig);
+		Canvas canvas = mCanvas;
+		canvas.setBitmap(bitmap);
+		int count = canvas.save();
+		canvas.scale(mScale, mScale);
+		canvas.translate(-view.getScrollX(), -view.getScrollY());
+		view.draw(canvas);
+		canvas.restoreToCount(count);
+		canvas.setBitmap(null);
+		return bitmap;
+	}
+
+	public Bitmap obtain(int width, int height, Bitmap.Config config) {
+		List<Bitmap> bucket = mBuckets.get(key(width, height, config));
+		if (bucket != null && !bucket.isEmpty()) {
+			Bitmap bitmap = bucket.remove(bucket.size() - 1);
+			mLru.remove(bitmap);
+			mPooledBytes -= bitmap.getRowBytes() * bitmap.getHeight();
+			bitmap.eraseColor(Color.TRANSPARENT);
+			return bitmap;
+		}
+		return Bitmap.createBitmap(width, height, config);
+	}
+
+	/**
+	 * Give bitmap back to the pool, it may be recycled right away if it's over budget.
+	 */
+	public void release(Bitmap bitmap) {
+		if (bitmap == null || bitmap.isRecycled()) {
+			return;
+		}
+		int bytes = bitmap.getRowBytes() * bitmap.getHeight();
+		if (bytes > mMemoryBudget) {
+			bitmap.recycle();
+			return;
+		}
+		trimTo(mMemoryBudget - bytes);
+		long key = key(bitmap.getWidth(), bitmap.getHeight(), bitmap.getConfig());
+		List<Bitmap> bucket = mBuckets.get(key);
+		if (bucket == null) {
+			bucket = new ArrayList<Bitmap>(2);
+			mBuckets.put(key, bucket);
+		}
+		bucket.add(bitmap);
+		mLru.add(bitmap);
+		mPooledBytes += bytes;
+	}
+
+	/**
+	 * Recycle every free bitmap.
+	 */
+	public void clear() {
+		trimTo(0);
+	}
+
+	private void trimTo(int bytes) {
+		while (mPooledBytes > bytes && !mLru.isEmpty()) {
+			Bitmap eldest = mLru.remove(0);
+			mBuckets.get(key(eldest.getWidth(), eldest.getHeight(), eldest.getConfig())).remove(eldest);
+			mPooledBytes -= eldest.getRowBytes() * eldest.getHeight();
+			eldest.recycle();
+		}
+	}
+
+	private static long key(int width, int height, Bitmap.Config config) {
+		return ((long) width << 36) | ((long) height << 8) | config.ordinal();
+	}
+}
@@ -0,0 +1,18 @@
+package com.devin.widget;
+
+import android.graphics.Bitmap;
+
+/**
+ * Post-processes a freshly rendered drag shadow, e.g. rounds its corners or adds an elevation shadow.
+ * Set it with {@link DragGridView#setDragShadowProcessor(DragShadowProcessor)}.
+ *
+ * @author Devin Wong
+ *
+ */
+public interface DragShadowProcessor {
+	/**
+	 * Called on a background thread. Draw shadow, processed, into target, a blank bitmap of the same size
+	 * and config which replaces it when you return. The shadow may be on screen meanwhile, don't modify or recycle it.
+	 */
+	public void process(Bitmap shadow, Bitmap target);
+}
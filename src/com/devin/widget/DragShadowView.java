@@ -0,0 +1,56 @@
+package com.devin.widget;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Rect;
+import android.view.View;
+
+/**
+ * The drag shadow as a standalone, hardware-layer-backed view living in the grid's overlay.
+ * It's rendered into its layer once per drag and moved by translation only,
+ * so moving the shadow redraws neither itself nor the grid children beneath.
+ *
+ * @author Devin Wong
+ *
+ */
+class DragShadowView extends View {
+
+	private DragShadowDrawable mDrawable;
+
+	public DragShadowView(Context context) {
+		super(context);
+		setLayerType(LAYER_TYPE_HARDWARE, null);
+	}
+
+	public void setDrawable(DragShadowDrawable drawable) {
+		mDrawable = drawable;
+		if (drawable != null) {
+			drawable.setBounds(0, 0, getWidth(), getHeight());
+		}
+		invalidate();
+	}
+
+	/**
+	 * Place the shadow at rect, relayout only when its size changes.
+	 */
+	public void moveTo(Rect rect) {
+		int width = rect.width();
+		int height = rect.height();
+		if (width != getWidth() || height != getHeight()) {
+			layout(0, 0, width, height);
+			if (mDrawable != null) {
+				mDrawable.setBounds(0, 0, width, height);
+			}
+			invalidate();
+		}
+		setTranslationX(rect.left);
+		setTranslationY(rect.top);
+	}
+
+	@Override
+	protected void onDraw(Canvas canvas) {
+		if (mDrawable != null) {
+			mDrawable.draw(canvas);
+		}
+	}
+}
@@ -0,0 +1,150 @@
+package com.devin.widget;
+
+import android.os.Build;
+import android.support.v4.view.ViewCompat;
+import android.widget.AbsListView;
+
+/**
+ * Scrolls a list once per vsync while the finger stays in its top or bottom edge zone.
+ * Speed grows with how deep the finger is in the zone and ramps up with the time spent there,
+ * so it doesn't depend on the touch sampling rate and keeps going when the finger holds still.
+ * It doesn't schedule frames itself, its owner calls {@link #doFrame(long)} from the frame tick it already runs.
+ *
+ * @author Devin Wong
+ *
+ */
+class EdgeAutoScroller {
+
+	public interface Callback {
+		/**
+		 * Called after every frame the list was scrolled by the auto-scroller.
+		 * @param dy pixels scrolled this frame, negative towards the top
+		 */
+		public void onAutoScrolled(int dy);
+	}
+
+	private static final float DEFAULT_MAX_SPEED_DP = 1200f;
+	private static final float DEFAULT_ZONE_RATIO = 1f / 5;
+	private static final long DEFAULT_RAMP_DURATION = 500L;
+
+	private final AbsListView mList;
+	private final Callback mCallback;
+
+	private float mMaxSpeed;
+	private float mZoneRatio = DEFAULT_ZONE_RATIO;
+	private long mRampDuration = DEFAULT_RAMP_DURATION;
+
+	private int mDirection;
+	private float mDepth;
+	private boolean mRunning;
+	private long mStartTimeNanos;
+	private long mLastFrameTimeNanos;
+	private float mRemainder;
+
+	public EdgeAutoScroller(AbsListView list, Callback callback) {
+		mList = list;
+		mCallback = callback;
+		mMaxSpeed = DEFAULT_MAX_SPEED_DP * list.getResources().getDisplayMetrics().density;
+	}
+
+	/**
+	 * @param pixelsPerSecond the speed with the finger at the very edge after ramping up
+	 */
+	public void setMaxSpeed(float pixelsPerSecond) {
+		mMaxSpeed = pixelsPerSecond;
+	}
+
+	/**
+	 * @param ratio height of each edge zone as a fraction of the list height
+	 */
+	public void setZoneRatio(float ratio) {
+		mZoneRatio = ratio;
+	}
+
+	public void setRampDuration(long millis) {
+		mRampDuration = millis;
+	}
+
+	public boolean isRunning() {
+		return mRunning;
+	}
+
+	/**
+	 * Feed the latest finger y, starts or stops scrolling as it enters or leaves a zone.
+	 */
+	public void update(int y) {
+		int height = mList.getHeight();
+		float zone = height * mZoneRatio;
+		if (zone <= 0) {
+			stop();
+			return;
+		}
+		int direction;
+		float depth;
+		if (y < zone) {
+			direction = -1;
+			depth = (zone - y) / zone;
+		} else if (y > height - zone) {
+			direction = 1;
+			depth = (y - (height - zone)) / zone;
+		} else {
+			stop();
+			return;
+		}
+		mDepth = Math.min(1f, depth);
+		if (mRunning && direction == mDirection) {
+			return;
+		}
+		if (!ViewCompat.canScrollVertically(mList, direction)) {
+			stop();
+			return;
+		}
+		mDirection = direction;
+		if (!mRunning) {
+			mRunning = true;
+			mStartTimeNanos = 0;
+			mRemainder = 0;
+		}
+	}
+
+	public void stop() {
+		mRunning = false;
+	}
+
+	/**
+	 * Scroll for the frame at frameTimeNanos, does nothing unless running.
+	 */
+	public void doFrame(long frameTimeNanos) {
+		if (!mRunning) {
+			return;
+		}
+		if (mStartTimeNanos == 0) {
+			mStartTimeNanos = frameTimeNanos;
+			mLastFrameTimeNanos = frameTimeNanos;
+			return;
+		}
+		if (!ViewCompat.canScrollVertically(mList, mDirection)) {
+			mRunning = false;
+			return;
+		}
+		float elapsed = (frameTimeNanos - mStartTimeNanos) / 1000000f;
+		float ramp = mRampDuration > 0 ? Math.min(1f, elapsed / mRampDuration) : 1f;
+		float seconds = (frameTimeNanos - mLastFrameTimeNanos) / 1000000000f;
+		mLastFrameTimeNanos = frameTimeNanos;
+		float distance = mMaxSpeed * mDepth * ramp * seconds + mRemainder;
+		int pixels = (int) distance;
+		mRemainder = distance - pixels;
+		if (pixels != 0) {
+			scrollBy(mDirection * pixels);
+			mCallback.onAutoScrolled(mDirection * pixels);
+		}
+	}
+
+	private void scrollBy(int dy) {
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+			mList.scrollListBy(dy);
+		} else {
+			mList.smoothScrollBy(dy, 0);
+		}
+	}
+}
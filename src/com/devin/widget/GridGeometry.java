@@ -0,0 +1,120 @@
+package com.devin.widget;
+
+import android.graphics.Rect;
+import android.view.View;
+import android.widget.AdapterView;
+import android.widget.GridView;
+
+import com.devin.widget.core.GridMetrics;
+
+/**
+ * Arithmetic model of a uniform grid layout.
+ * Column count, cell size, spacing and padding are captured once per layout pass into {@link GridMetrics},
+ * the first child's offset is read live so that scrolling never stales the model.
+ * A touch point is then turned into an adapter position in constant time.
+ *
+ * @author Devin Wong
+ *
+ */
+class GridGeometry {
+
+	private GridMetrics mMetrics = new GridMetrics();
+
+	/**
+	 * Capture the layout metrics of the grid. Call it after each layout pass.
+	 */
+	public void update(GridView grid) {
+		int childCount = grid.getChildCount();
+		if (childCount == 0) {
+			mMetrics.invalidate();
+			return;
+		}
+		int numColumns = grid.getNumColumns();
+		if (numColumns <= 0) {
+			numColumns = 1;
+		}
+		View first = grid.getChildAt(0);
+		int cellWidth = first.getWidth();
+		int cellHeight = 0;
+		int rowEnd = Math.min(numColumns, childCount);
+		for (int i = 0; i < rowEnd; i++) {
+			cellHeight = Math.max(cellHeight, grid.getChildAt(i).getHeight());
+		}
+		int columnStride = childCount > 1 && numColumns > 1
+				? grid.getChildAt(1).getLeft() - first.getLeft() : cellWidth;
+		int rowStride = childCount > numColumns
+				? grid.getChildAt(numColumns).getTop() - first.getTop() : cellHeight;
+		mMetrics.set(numColumns, cellWidth, cellHeight, columnStride, rowStride);
+		mMetrics.setPadding(grid.getPaddingLeft(), grid.getPaddingTop(),
+				grid.getPaddingRight(), grid.getPaddingBottom());
+	}
+
+	public void invalidate() {
+		mMetrics.invalidate();
+	}
+
+	public boolean isValid() {
+		return mMetrics.isValid();
+	}
+
+	public GridMetrics getMetrics() {
+		return mMetrics;
+	}
+
+	public int getNumColumns() {
+		return mMetrics.getNumColumns();
+	}
+
+	public int getColumnStride() {
+		return mMetrics.getColumnStride();
+	}
+
+	public int getRowStride() {
+		return mMetrics.getRowStride();
+	}
+
+	public int getSlotOffsetX(int from, int to) {
+		return mMetrics.getSlotOffsetX(from, to);
+	}
+
+	public int getSlotOffsetY(int from, int to) {
+		return mMetrics.getSlotOffsetY(from, to);
+	}
+
+	/**
+	 * Compute the layout rect of the slot of position, which may be outside the visible children.
+	 */
+	public void getSlotRect(GridView grid, int position, Rect out) {
+		View first = grid.getChildAt(0);
+		int firstPosition = grid.getFirstVisiblePosition();
+		int left = first.getLeft() + getSlotOffsetX(firstPosition, position);
+		int top = first.getTop() + getSlotOffsetY(firstPosition, position);
+		out.set(left, top, left + mMetrics.getCellWidth(), top + mMetrics.getCellHeight());
+	}
+
+	/**
+	 * @param validCount the number of leading children that can be hit
+	 * @return the adapter position under (x, y),
+	 * or {@link AdapterView#INVALID_POSITION} for gaps, padding and cells past validCount
+	 */
+	public int getPosition(GridView grid, int x, int y, int validCount) {
+		if (grid.getChildCount() == 0) {
+			return AdapterView.INVALID_POSITION;
+		}
+		View first = grid.getChildAt(0);
+		return mMetrics.positionAt(x, y, grid.getWidth(), grid.getHeight(),
+				first.getLeft(), first.getTop(), grid.getFirstVisiblePosition(), validCount);
+	}
+
+	/**
+	 * @return whether (x, y) is after the last of the validCount leading children, gaps between cells are not
+	 */
+	public boolean isPastLast(GridView grid, int x, int y, int validCount) {
+		if (grid.getChildCount() == 0) {
+			return false;
+		}
+		View first = grid.getChildAt(0);
+		return mMetrics.isPastLast(x, y, grid.getWidth(), grid.getHeight(),
+				first.getLeft(), first.getTop(), validCount);
+	}
+}
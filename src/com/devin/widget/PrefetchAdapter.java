@@ -0,0 +1,17 @@
+package com.devin.widget;
+
+/**
+ * Implemented by an adapter of a {@link DragGridView} to get ahead of the rows a drag is about to scroll in,
+ * typically by starting the async load of their data or images.
+ *
+ * @author Devin Wong
+ *
+ */
+public interface PrefetchAdapter {
+	/**
+	 * Called in idle time between frames for each position predicted to enter the viewport soon,
+	 * at most once per position and scroll direction during a drag. Return quickly, the grid keeps
+	 * prefetching only while its idle budget lasts.
+	 */
+	public void onPrefetch(int position);
+}
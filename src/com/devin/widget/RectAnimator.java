@@ -0,0 +1,97 @@
+package com.devin.widget;
+
+import android.animation.Animator;
+import android.animation.Animator.AnimatorListener;
+import android.animation.ValueAnimator;
+import android.animation.ValueAnimator.AnimatorUpdateListener;
+import android.graphics.Rect;
+import android.view.animation.Interpolator;
+
+/**
+ * A reusable animation driver which interpolates the four edges of a {@link Rect}.
+ * The animator and its listeners are created once, edges are interpolated as primitives,
+ * so restarting it for every drag allocates nothing.
+ *
+ * @author Devin Wong
+ *
+ */
+class RectAnimator implements AnimatorUpdateListener, AnimatorListener {
+
+	public interface Callback {
+		public void onRectAnimationStart(RectAnimator animator);
+
+		public void onRectAnimationUpdate(RectAnimator animator, Rect rect);
+
+		public void onRectAnimationEnd(RectAnimator animator);
+	}
+
+	private final ValueAnimator mAnimator;
+	private final Rect mFrom = new Rect();
+	private final Rect mTo = new Rect();
+	private final Rect mTarget;
+	private final Callback mCallback;
+
+	/**
+	 * @param target the rect written on every frame
+	 */
+	public RectAnimator(Rect target, Callback callback) {
+		mTarget = target;
+		mCallback = callback;
+		mAnimator = ValueAnimator.ofFloat(0f, 1f);
+		mAnimator.addUpdateListener(this);
+		mAnimator.addListener(this);
+	}
+
+	public void start(Rect from, Rect to, long duration, Interpolator interpolator) {
+		mAnimator.cancel();
+		mFrom.set(from);
+		mTo.set(to);
+		mAnimator.setInterpolator(interpolator);
+		mAnimator.setDuration(duration);
+		mAnimator.start();
+	}
+
+	public void cancel() {
+		mAnimator.cancel();
+	}
+
+	public boolean isRunning() {
+		return mAnimator.isRunning();
+	}
+
+	public ValueAnimator getAnimator() {
+		return mAnimator;
+	}
+
+	@Override
+	public void onAnimationUpdate(ValueAnimator animation) {
+		float fraction = animation.getAnimatedFraction();
+		mTarget.set(lerp(mFrom.left, mTo.left, fraction),
+				lerp(mFrom.top, mTo.top, fraction),
+				lerp(mFrom.right, mTo.right, fraction),
+				lerp(mFrom.bottom, mTo.bottom, fraction));
+		mCallback.onRectAnimationUpdate(this, mTarget);
+	}
+
+	private static int lerp(int start, int end, float fraction) {
+		return start + (int) ((end - start) * fraction);
+	}
+
+	@Override
+	public void onAnimationStart(Animator animation) {
+		mCallback.onRectAnimationStart(this);
+	}
+
+	@Override
+	public void onAnimationEnd(Animator animation) {
+		mCallback.onRectAnimationEnd(this);
+	}
+
+	@Override
+	public void onAnimationCancel(Animator animation) {
+	}
+
+	@Override
+	public void onAnimationRepeat(Animator animation) {
+	}
+}
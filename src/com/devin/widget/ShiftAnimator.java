@@ -0,0 +1,231 @@
+package com.devin.widget;
+
+import java.util.Arrays;
+
+import android.animation.Animator;
+import android.animation.Animator.AnimatorListener;
+import android.animation.ValueAnimator;
+import android.animation.ValueAnimator.AnimatorUpdateListener;
+import android.view.View;
+import android.view.animation.Interpolator;
+
+import com.devin.widget.core.PositionTable;
+
+/**
+ * Slides every displaced cell of a shift back to its slot with a single animator.
+ * Start offsets and velocities are kept in parallel primitive arrays and applied in one loop per frame,
+ * so a shift costs one animator however many cells it moves, and restarting it allocates nothing
+ * once the arrays have grown to the number of visible children.
+ *
+ * <p>Each cell follows a cubic Hermite curve from its start offset and velocity to its slot,
+ * arriving at the linear speed offset / duration. A cell leaving at that same speed moves linearly,
+ * while a shift started mid-animation retargets every cell from where it is, at the speed it has.
+ * Cells are found by item id in constant time, so retargeting costs O(n) in the cells it displaces.</p>
+ *
+ * @author Devin Wong
+ *
+ */
+class ShiftAnimator implements AnimatorUpdateListener, AnimatorListener {
+
+	private static final int INITIAL_CAPACITY = 16;
+
+	private final ValueAnimator mAnimator;
+
+	private View[] mViews = new View[INITIAL_CAPACITY];
+	private float[] mStartXs = new float[INITIAL_CAPACITY];
+	private float[] mStartYs = new float[INITIAL_CAPACITY];
+	/**
+	 * Start velocities in pixels per unit of animated fraction.
+	 */
+	private float[] mVelocityXs = new float[INITIAL_CAPACITY];
+	private float[] mVelocityYs = new float[INITIAL_CAPACITY];
+	private int mSize;
+	/**
+	 * Item id of each cell, entry indexes of the table match the indexes of the arrays.
+	 */
+	private PositionTable<View> mIds = new PositionTable<View>();
+
+	private PositionTable<View> mNextIds = new PositionTable<View>();
+	private View[] mNextViews = new View[INITIAL_CAPACITY];
+	private float[] mNextXs = new float[INITIAL_CAPACITY];
+	private float[] mNextYs = new float[INITIAL_CAPACITY];
+	private float[] mNextVelocityXs = new float[INITIAL_CAPACITY];
+	private float[] mNextVelocityYs = new float[INITIAL_CAPACITY];
+	private int mNextSize;
+
+	private long mDuration = 1;
+	private boolean mRetargeting;
+
+	public ShiftAnimator() {
+		mAnimator = ValueAnimator.ofFloat(0f, 1f);
+		mAnimator.addUpdateListener(this);
+		mAnimator.addListener(this);
+	}
+
+	/**
+	 * Queue view to slide from (dx, dy) off its slot for the next {@link #start(long, Interpolator)}.
+	 * @param id the item id view shows, unique among the queued views
+	 * @param velocityX current speed of the cell in pixels per millisecond, -dx / duration for a cell at rest
+	 * slides it linearly
+	 */
+	public void add(long id, View view, float dx, float dy, float velocityX, float velocityY) {
+		if (mNextSize == mNextViews.length) {
+			int capacity = mNextSize << 1;
+			mNextViews = Arrays.copyOf(mNextViews, capacity);
+			mNextXs = Arrays.copyOf(mNextXs, capacity);
+			mNextYs = Arrays.copyOf(mNextYs, capacity);
+			mNextVelocityXs = Arrays.copyOf(mNextVelocityXs, capacity);
+			mNextVelocityYs = Arrays.copyOf(mNextVelocityYs, capacity);
+		}
+		mNextIds.put(id, view, dx, dy);
+		mNextViews[mNextSize] = view;
+		mNextXs[mNextSize] = dx;
+		mNextYs[mNextSize] = dy;
+		mNextVelocityXs[mNextSize] = velocityX;
+		mNextVelocityYs[mNextSize] = velocityY;
+		mNextSize++;
+	}
+
+	/**
+	 * Animate the queued views, retargeting a running animation.
+	 * Cells of the running animation which aren't queued again are put back to their slots.
+	 */
+	public void start(long duration, Interpolator interpolator) {
+		if (mAnimator.isRunning()) {
+			mRetargeting = true;
+			mAnimator.cancel();
+			mRetargeting = false;
+			for (int i = 0; i < mSize; i++) {
+				mViews[i].setTranslationX(0);
+				mViews[i].setTranslationY(0);
+			}
+		}
+		clear();
+		if (mNextSize == 0) {
+			return;
+		}
+		swap();
+		mDuration = Math.max(1, duration);
+		for (int i = 0; i < mSize; i++) {
+			mVelocityXs[i] *= mDuration;
+			mVelocityYs[i] *= mDuration;
+		}
+		apply(0f);
+		mAnimator.setInterpolator(interpolator);
+		mAnimator.setDuration(mDuration);
+		mAnimator.start();
+	}
+
+	public void cancel() {
+		mAnimator.cancel();
+	}
+
+	public boolean isRunning() {
+		return mAnimator.isRunning();
+	}
+
+	/**
+	 * @return the index of the animated cell of the item with id, or -1 when none is or view shows it no longer
+	 */
+	public int indexOf(long id, View view) {
+		if (!mAnimator.isRunning()) {
+			return -1;
+		}
+		int index = mIds.indexOf(id);
+		return index >= 0 && mViews[index] == view ? index : -1;
+	}
+
+	/**
+	 * @return current horizontal speed of the cell at index in pixels per millisecond
+	 */
+	public float getVelocityXAt(int index) {
+		return velocity(mStartXs[index], mVelocityXs[index], mAnimator.getAnimatedFraction()) / mDuration;
+	}
+
+	public float getVelocityYAt(int index) {
+		return velocity(mStartYs[index], mVelocityYs[index], mAnimator.getAnimatedFraction()) / mDuration;
+	}
+
+	@Override
+	public void onAnimationUpdate(ValueAnimator animation) {
+		apply(animation.getAnimatedFraction());
+	}
+
+	/**
+	 * Offsets follow p(t) = p0 * h00(t) + v0 * h10(t) - p0 * h11(t), the Hermite curve ending at 0 with speed -p0.
+	 */
+	private void apply(float t) {
+		float t2 = t * t;
+		float t3 = t2 * t;
+		float startWeight = 2 * t3 - 3 * t2 + 1 - (t3 - t2);
+		float velocityWeight = t3 - 2 * t2 + t;
+		View[] views = mViews;
+		for (int i = 0; i < mSize; i++) {
+			float startX = mStartXs[i];
+			float startY = mStartYs[i];
+			float velocityX = mVelocityXs[i];
+			float velocityY = mVelocityYs[i];
+			if (startX != 0 || velocityX != 0) {
+				views[i].setTranslationX(startX * startWeight + velocityX * velocityWeight);
+			}
+			if (startY != 0 || velocityY != 0) {
+				views[i].setTranslationY(startY * startWeight + velocityY * velocityWeight);
+			}
+		}
+	}
+
+	private static float velocity(float start, float velocity, float t) {
+		float t2 = t * t;
+		return start * (6 * t2 - 6 * t - (3 * t2 - 2 * t)) + velocity * (3 * t2 - 4 * t + 1);
+	}
+
+	private void swap() {
+		PositionTable<View> ids = mIds;
+		mIds = mNextIds;
+		mNextIds = ids;
+		View[] views = mViews;
+		mViews = mNextViews;
+		mNextViews = views;
+		float[] xs = mStartXs;
+		mStartXs = mNextXs;
+		mNextXs = xs;
+		float[] ys = mStartYs;
+		mStartYs = mNextYs;
+		mNextYs = ys;
+		float[] velocityXs = mVelocityXs;
+		mVelocityXs = mNextVelocityXs;
+		mNextVelocityXs = velocityXs;
+		float[] velocityYs = mVelocityYs;
+		mVelocityYs = mNextVelocityYs;
+		mNextVelocityYs = velocityYs;
+		mSize = mNextSize;
+		mNextSize = 0;
+	}
+
+	private void clear() {
+		Arrays.fill(mViews, 0, mSize, null);
+		mIds.clear();
+		mSize = 0;
+	}
+
+	@Override
+	public void onAnimationStart(Animator animation) {
+	}
+
+	@Override
+	public void onAnimationEnd(Animator animation) {
+		if (mRetargeting) {
+			return;
+		}
+		apply(1f);
+		clear();
+	}
+
+	@Override
+	public void onAnimationCancel(Animator animation) {
+	}
+
+	@Override
+	public void onAnimationRepeat(Animator animation) {
+	}
+}
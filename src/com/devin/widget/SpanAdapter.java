@@ -0,0 +1,17 @@
+package com.devin.widget;
+
+import android.widget.ListAdapter;
+
+/**
+ * The adapter of a {@link SpanDragGridView}, sizing each tile in cells, e.g. 2x1 for a wide tile.
+ * Spans travel with their item when it's shifted, the grid reads them again on every data set change.
+ *
+ * @author Devin Wong
+ *
+ */
+public interface SpanAdapter extends ListAdapter {
+
+	public int getColumnSpan(int position);
+
+	public int getRowSpan(int position);
+}
@@ -0,0 +1,632 @@
+package com.devin.widget;
+
+import android.content.Context;
+import android.database.DataSetObserver;
+import android.graphics.Canvas;
+import android.graphics.Point;
+import android.graphics.Rect;
+import android.os.Build;
+import android.os.SystemClock;
+import android.util.AttributeSet;
+import android.view.Choreographer;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewConfiguration;
+import android.view.ViewGroup;
+import android.view.animation.Interpolator;
+import android.view.animation.LinearInterpolator;
+
+import com.devin.widget.DragGridView.OnShiftListener;
+import com.devin.widget.core.Reorder;
+import com.devin.widget.core.SpanGrid;
+
+/**
+ * A dragable grid of tiles spanning several columns and rows, e.g. a dashboard mixing 1x1, 2x1 and 2x2 tiles.
+ * The adapter sizes each tile, see {@link SpanAdapter}, and tiles are packed in adapter order by a {@link SpanGrid}.
+ * Long-press a tile to drag it, hovering another tile shifts the dragged one to its position through
+ * the {@link OnShiftListener}, and only the tiles the shift moved are laid out and slide to their new cells.
+ *
+ * Every item has a child, it doesn't recycle views as a {@link DragGridView} does, it's meant for dashboards
+ * of tens of tiles. Put it in a ScrollView when they don't fit, it keeps the touch while dragging.
+ *
+ * It shares the frame tick, the shadow in the overlay and the springback of a {@link DragGridView}, not the rest:
+ * there's no edge auto-scroll, undo, pinned position, drag metrics, touch resampling nor {@link DragCoordinator},
+ * and displaced tiles slide with animators of their own rather than a single shift animator.
+ *
+ * @author Devin Wong
+ *
+ */
+public class SpanDragGridView extends ViewGroup {
+
+	private static final int DRIFT_ALPHA = 255 * 6 / 10;
+
+	private static final long SHIFT_DELAY = 200L;
+	private static final long LONG_CLICK_DURATION = 500L;
+	private static final long SHIFT_ANIMATION_DURATION = 300L;
+	private static final long SPRINGBACK_MIN_DURATION = 700L;
+	private static final long SPRINGBACK_MAX_DURATION = 1200L;
+	private static final long FRAME_DELAY = 16L;
+
+	private static final int STATE_IDLE = 0;
+	private static final int STATE_PRESSED = 1;
+	private static final int STATE_DRAGGING = 2;
+	private static final int STATE_SPRINGING_BACK = 3;
+
+	public static final int INVALID_POSITION = SpanGrid.INVALID_POSITION;
+
+	private SpanAdapter mAdapter;
+	private SpanGrid mSpanGrid;
+	private int mNumColumns = 4;
+	private int mSpacing;
+	private int mRowHeight;
+	private int[] mColumnSpans = new int[0];
+	private int[] mRowSpans = new int[0];
+
+	private int mColumnWidth;
+	private int mCellHeight;
+
+	private OnShiftListener mOnShiftListener;
+	/**
+	 * The grid is calling the shift listener, the data set change it notifies is already applied to the children.
+	 */
+	private boolean mReordering;
+
+	private int mState = STATE_IDLE;
+	private int mDragPosition = INVALID_POSITION;
+	/**
+	 * The tile under the finger, the dragged one is shifted to it at mShiftDeadline.
+	 */
+	private int mMovingPosition = INVALID_POSITION;
+	private long mLongPressDeadline;
+	/**
+	 * Uptime the pending shift runs at, 0 when none is pending.
+	 */
+	private long mShiftDeadline;
+	private boolean mTouchPending;
+	private boolean mFramePosted;
+	private View mDragView;
+	private int mTouchSlop;
+	private Point mTouchDownPoint = new Point();
+	private Point mTouchPoint = new Point();
+	/**
+	 * Where the finger holds the shadow, relative to its top left.
+	 */
+	private Point mShadowOffset = new Point();
+	private Rect mShadowRect = new Rect();
+	private Rect mRect = new Rect();
+
+	private DragShadowPool mShadowPool = new DragShadowPool();
+	private DragShadowDrawable mShadowDrawable = new DragShadowDrawable();
+	private DragShadowView mShadowView;
+	private boolean mShadowInOverlay;
+
+	private Interpolator mShiftInterpolator = new LinearInterpolator();
+	private Interpolator mSpringBackInterpolator = new Interpolator() {
+
+		@Override
+		public float getInterpolation(float input) {
+			return (float) (Math.pow(input - 1, 5) + 1);
+		}
+	};
+
+	public SpanDragGridView(Context context) {
+		super(context);
+		init(context);
+	}
+
+	public SpanDragGridView(Context context, AttributeSet attrs) {
+		super(context, attrs);
+		init(context);
+	}
+
+	public SpanDragGridView(Context context, AttributeSet attrs, int defStyle) {
+		super(context, attrs, defStyle);
+		init(context);
+	}
+
+	private void init(Context context) {
+		mTouchSlop = ViewConfiguration.get(context).getScaledTouchSlop();
+		mSpanGrid = new SpanGrid(mNumColumns);
+		setWillNotDraw(false);
+	}
+
+	public void setAdapter(SpanAdapter adapter) {
+		if (mAdapter != null) {
+			mAdapter.unregisterDataSetObserver(mDataSetObserver);
+		}
+		mAdapter = adapter;
+		if (adapter != null) {
+			adapter.registerDataSetObserver(mDataSetObserver);
+		}
+		populate();
+	}
+
+	public SpanAdapter getAdapter() {
+		return mAdapter;
+	}
+
+	public void setOnShiftListener(OnShiftListener listener) {
+		mOnShiftListener = listener;
+	}
+
+	public void setNumColumns(int numColumns) {
+		if (numColumns == mNumColumns) {
+			return;
+		}
+		mNumColumns = numColumns;
+		mSpanGrid = new SpanGrid(numColumns);
+		populate();
+	}
+
+	public int getNumColumns() {
+		return mNumColumns;
+	}
+
+	/**
+	 * @param spacing pixels between two columns and between two rows
+	 */
+	public void setSpacing(int spacing) {
+		mSpacing = spacing;
+		requestLayout();
+	}
+
+	/**
+	 * @param rowHeight pixels of a row, 0 makes cells square
+	 */
+	public void setRowHeight(int rowHeight) {
+		mRowHeight = rowHeight;
+		requestLayout();
+	}
+
+	public boolean isDragging() {
+		return mState == STATE_DRAGGING || mState == STATE_SPRINGING_BACK;
+	}
+
+	/**
+	 * Changes not made by the shift listener re-read the spans and rebind every tile.
+	 */
+	private DataSetObserver mDataSetObserver = new DataSetObserver() {
+
+		@Override
+		public void onChanged() {
+			if (!mReordering) {
+				populate();
+			}
+		}
+
+		@Override
+		public void onInvalidated() {
+			populate();
+		}
+	};
+
+	/**
+	 * Pack the spans of the adapter and bind a child to each item, children are passed back as convert views.
+	 */
+	private void populate() {
+		endDrag();
+		int count = mAdapter == null ? 0 : mAdapter.getCount();
+		if (mColumnSpans.length < count) {
+			mColumnSpans = new int[count];
+			mRowSpans = new int[count];
+		}
+		for (int i = 0; i < count; i++) {
+			mColumnSpans[i] = mAdapter.getColumnSpan(i);
+			mRowSpans[i] = mAdapter.getRowSpan(i);
+		}
+		mSpanGrid.setSpans(mColumnSpans, mRowSpans, count);
+		for (int i = 0; i < count; i++) {
+			View old = i < getChildCount() ? getChildAt(i) : null;
+			View view = mAdapter.getView(i, old, this);
+			if (view != old) {
+				if (old != null) {
+					removeViewInLayout(old);
+				}
+				LayoutParams params = view.getLayoutParams();
+				addViewInLayout(view, i, params != null ? params : generateDefaultLayoutParams(), true);
+			}
+		}
+		if (getChildCount() > count) {
+			removeViewsInLayout(count, getChildCount() - count);
+		}
+		requestLayout();
+		invalidate();
+	}
+
+	@Override
+	protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+		int width = MeasureSpec.getSize(widthMeasureSpec);
+		int inner = width - getPaddingLeft() - getPaddingRight() - (mNumColumns - 1) * mSpacing;
+		mColumnWidth = Math.max(0, inner / mNumColumns);
+		mCellHeight = mRowHeight > 0 ? mRowHeight : mColumnWidth;
+		int childCount = getChildCount();
+		for (int i = 0; i < childCount; i++) {
+			getSlotRect(i, mRect);
+			getChildAt(i).measure(MeasureSpec.makeMeasureSpec(mRect.width(), MeasureSpec.EXACTLY),
+					MeasureSpec.makeMeasureSpec(mRect.height(), MeasureSpec.EXACTLY));
+		}
+		int rows = mSpanGrid.getRowCount();
+		int height = getPaddingTop() + getPaddingBottom() + Math.max(0, rows * (mCellHeight + mSpacing) - mSpacing);
+		setMeasuredDimension(width, resolveSize(height, heightMeasureSpec));
+	}
+
+	@Override
+	protected void onLayout(boolean changed, int l, int t, int r, int b) {
+		int childCount = getChildCount();
+		for (int i = 0; i < childCount; i++) {
+			getSlotRect(i, mRect);
+			getChildAt(i).layout(mRect.left, mRect.top, mRect.right, mRect.bottom);
+		}
+	}
+
+	/**
+	 * @param out receives the rect of the tile at position, in the grid's coordinates
+	 */
+	void getSlotRect(int position, Rect out) {
+		int columnSpan = mSpanGrid.getColumnSpan(position);
+		int rowSpan = mSpanGrid.getRowSpan(position);
+		int left = getPaddingLeft() + mSpanGrid.getColumn(position) * (mColumnWidth + mSpacing);
+		int top = getPaddingTop() + mSpanGrid.getRow(position) * (mCellHeight + mSpacing);
+		out.set(left, top, left + columnSpan * (mColumnWidth + mSpacing) - mSpacing,
+				top + rowSpan * (mCellHeight + mSpacing) - mSpacing);
+	}
+
+	/**
+	 * @return the tile under the point, or {@link #INVALID_POSITION} over a hole, a gap or the padding
+	 */
+	public int pointToPosition(int x, int y) {
+		if (mColumnWidth <= 0 || mCellHeight <= 0) {
+			return INVALID_POSITION;
+		}
+		return mSpanGrid.positionAt(x - getPaddingLeft(), y - getPaddingTop(), mColumnWidth, mCellHeight,
+				mColumnWidth + mSpacing, mCellHeight + mSpacing);
+	}
+
+	@Override
+	public boolean dispatchTouchEvent(MotionEvent ev) {
+		if (mState == STATE_SPRINGING_BACK) {
+			return super.dispatchTouchEvent(ev);
+		}
+		int x = (int) ev.getX();
+		int y = (int) ev.getY();
+		switch (ev.getActionMasked()) {
+		case MotionEvent.ACTION_DOWN:
+			mTouchDownPoint.set(x, y);
+			mDragPosition = pointToPosition(x, y);
+			if (mDragPosition != INVALID_POSITION && mOnShiftListener != null) {
+				mState = STATE_PRESSED;
+				mLongPressDeadline = SystemClock.uptimeMillis() + LONG_CLICK_DURATION;
+				scheduleFrame();
+			}
+			break;
+		case MotionEvent.ACTION_MOVE:
+			if (mState == STATE_DRAGGING) {
+				mTouchPoint.set(x, y);
+				mTouchPending = true;
+				scheduleFrame();
+				return true;
+			}
+			if (mState == STATE_PRESSED
+					&& (Math.abs(x - mTouchDownPoint.x) > mTouchSlop || Math.abs(y - mTouchDownPoint.y) > mTouchSlop)) {
+				mState = STATE_IDLE;
+				cancelFrame();
+			}
+			break;
+		case MotionEvent.ACTION_UP:
+		case MotionEvent.ACTION_CANCEL:
+			if (mState == STATE_DRAGGING) {
+				drop(ev.getActionMasked() == MotionEvent.ACTION_CANCEL);
+				return true;
+			}
+			if (mState == STATE_PRESSED) {
+				mState = STATE_IDLE;
+				cancelFrame();
+			}
+			break;
+		default:
+			break;
+		}
+		return super.dispatchTouchEvent(ev);
+	}
+
+	/**
+	 * Drives {@link #doFrame()} off the Choreographer, static so a pending callback doesn't pin more than the grid.
+	 */
+	private static class FrameCallback implements Choreographer.FrameCallback {
+
+		private final SpanDragGridView mGrid;
+
+		FrameCallback(SpanDragGridView grid) {
+			mGrid = grid;
+		}
+
+		@Override
+		public void doFrame(long frameTimeNanos) {
+			mGrid.doFrame();
+		}
+
+		void post() {
+			Choreographer.getInstance().postFrameCallback(this);
+		}
+
+		void remove() {
+			Choreographer.getInstance().removeFrameCallback(this);
+		}
+	}
+
+	private FrameCallback mFrameCallback;
+	/**
+	 * Runs the tick every FRAME_DELAY through the message queue before JELLY_BEAN.
+	 */
+	private Runnable mFrameRunnable = new Runnable() {
+
+		@Override
+		public void run() {
+			doFrame();
+		}
+	};
+
+	/**
+	 * Advanced once per frame while a press or a drag is going on. Touch events only store their sample,
+	 * the long-press and shift deadlines and the shadow are evaluated here against the latest one.
+	 */
+	private void doFrame() {
+		mFramePosted = false;
+		long now = SystemClock.uptimeMillis();
+		switch (mState) {
+		case STATE_PRESSED:
+			if (now >= mLongPressDeadline) {
+				startDrag();
+			}
+			break;
+		case STATE_DRAGGING:
+			applyTouchSample();
+			if (mShiftDeadline != 0 && now >= mShiftDeadline) {
+				mShiftDeadline = 0;
+				runShift();
+			}
+			break;
+		default:
+			break;
+		}
+		if (mState == STATE_PRESSED || mState == STATE_DRAGGING) {
+			scheduleFrame();
+		}
+	}
+
+	private void scheduleFrame() {
+		if (mFramePosted) {
+			return;
+		}
+		mFramePosted = true;
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+			if (mFrameCallback == null) {
+				mFrameCallback = new FrameCallback(this);
+			}
+			mFrameCallback.post();
+		} else {
+			postDelayed(mFrameRunnable, FRAME_DELAY);
+		}
+	}
+
+	private void cancelFrame() {
+		if (mFrameCallback != null) {
+			mFrameCallback.remove();
+		}
+		removeCallbacks(mFrameRunnable);
+		mFramePosted = false;
+	}
+
+	/**
+	 * Lift the pressed tile into the shadow, the finger keeps holding it where it pressed.
+	 */
+	private void startDrag() {
+		if (mDragPosition == INVALID_POSITION || mDragPosition >= getChildCount()) {
+			mState = STATE_IDLE;
+			return;
+		}
+		mDragView = getChildAt(mDragPosition);
+		mShadowDrawable.setBitmap(mShadowPool.render(mDragView));
+		getSlotRect(mDragPosition, mShadowRect);
+		mShadowOffset.set(mTouchDownPoint.x - mShadowRect.left, mTouchDownPoint.y - mShadowRect.top);
+		attachShadow();
+		setShadowRect(mShadowRect);
+		mDragView.setVisibility(View.INVISIBLE);
+		mMovingPosition = mDragPosition;
+		mShiftDeadline = 0;
+		mTouchPoint.set(mTouchDownPoint.x, mTouchDownPoint.y);
+		mState = STATE_DRAGGING;
+		// the children lose the press, and a scrolling parent doesn't take the drag over
+		long now = SystemClock.uptimeMillis();
+		MotionEvent cancel = MotionEvent.obtain(now, now, MotionEvent.ACTION_CANCEL, 0, 0, 0);
+		super.dispatchTouchEvent(cancel);
+		cancel.recycle();
+		if (getParent() != null) {
+			getParent().requestDisallowInterceptTouchEvent(true);
+		}
+	}
+
+	/**
+	 * Move the shadow and update the moving position to the latest touch sample.
+	 */
+	private void applyTouchSample() {
+		if (!mTouchPending) {
+			return;
+		}
+		mTouchPending = false;
+		int x = mTouchPoint.x;
+		int y = mTouchPoint.y;
+		mShadowRect.offsetTo(x - mShadowOffset.x, y - mShadowOffset.y);
+		setShadowRect(mShadowRect);
+		updateMovingPosition(x, y);
+	}
+
+	/**
+	 * Entering another tile and hovering it for SHIFT_DELAY shifts the dragged one there, leaving it cancels the shift.
+	 */
+	private void updateMovingPosition(int x, int y) {
+		int position = pointToPosition(x, y);
+		if (position == mMovingPosition) {
+			return;
+		}
+		mMovingPosition = position;
+		mShiftDeadline = position != INVALID_POSITION && position != mDragPosition
+				? SystemClock.uptimeMillis() + SHIFT_DELAY : 0;
+	}
+
+	/**
+	 * Shift the dragged tile to the moving position. The children follow their items, the grid re-packs
+	 * from the first tile the shift moves, and only the tiles it moved are laid out again, sliding from
+	 * where they're drawn to their new cells. Tiles of other spans may land under the finger then, it has
+	 * to enter another tile to shift again.
+	 */
+	private void runShift() {
+		int from = mDragPosition;
+		int to = mMovingPosition;
+		if (mState != STATE_DRAGGING || to == INVALID_POSITION || to == from) {
+			return;
+		}
+		mReordering = true;
+		mOnShiftListener.onShift(from, to);
+		mReordering = false;
+		View dragView = getChildAt(from);
+		detachViewFromParent(from);
+		attachViewToParent(dragView, to, dragView.getLayoutParams());
+		int rowCount = mSpanGrid.getRowCount();
+		mSpanGrid.shift(from, to);
+		mDragPosition = to;
+		int last = mSpanGrid.getChangedLast();
+		for (int i = mSpanGrid.getChangedFirst(); i <= last && i != INVALID_POSITION; i++) {
+			View child = getChildAt(i);
+			float x = child.getLeft() + child.getTranslationX();
+			float y = child.getTop() + child.getTranslationY();
+			getSlotRect(i, mRect);
+			child.layout(mRect.left, mRect.top, mRect.right, mRect.bottom);
+			if (child == dragView) {
+				continue;
+			}
+			child.animate().cancel();
+			child.setTranslationX(x - mRect.left);
+			child.setTranslationY(y - mRect.top);
+			if (child.getTranslationX() != 0 || child.getTranslationY() != 0) {
+				child.animate().translationX(0).translationY(0).setDuration(SHIFT_ANIMATION_DURATION)
+						.setInterpolator(mShiftInterpolator);
+			}
+		}
+		if (mSpanGrid.getRowCount() != rowCount) {
+			requestLayout();
+		}
+		mMovingPosition = pointToPosition(mTouchPoint.x, mTouchPoint.y);
+	}
+
+	/**
+	 * The shift the finger was waiting for is committed, then the shadow springs back to the dragged tile's cell.
+	 */
+	private void drop(boolean canceled) {
+		applyTouchSample();
+		if (mShiftDeadline != 0 && !canceled) {
+			runShift();
+		}
+		mShiftDeadline = 0;
+		cancelFrame();
+		getSlotRect(mDragPosition, mRect);
+		mState = STATE_SPRINGING_BACK;
+		long duration = Reorder.springbackDuration(mRect.left - mShadowRect.left, mRect.top - mShadowRect.top,
+				SPRINGBACK_MIN_DURATION, SPRINGBACK_MAX_DURATION);
+		mSpringbackAnimator.start(mShadowRect, mRect, duration, mSpringBackInterpolator);
+	}
+
+	private RectAnimator mSpringbackAnimator = new RectAnimator(mShadowRect, new RectAnimator.Callback() {
+
+		@Override
+		public void onRectAnimationStart(RectAnimator animator) {
+		}
+
+		@Override
+		public void onRectAnimationUpdate(RectAnimator animator, Rect rect) {
+			setShadowRect(rect);
+		}
+
+		@Override
+		public void onRectAnimationEnd(RectAnimator animator) {
+			endDrag();
+		}
+	});
+
+	/**
+	 * Show the dragged tile again and drop the shadow, nothing happens unless a drag is going on.
+	 */
+	private void endDrag() {
+		cancelFrame();
+		mShiftDeadline = 0;
+		mTouchPending = false;
+		int state = mState;
+		mState = STATE_IDLE;
+		if (state != STATE_DRAGGING && state != STATE_SPRINGING_BACK) {
+			return;
+		}
+		mSpringbackAnimator.cancel();
+		if (mDragView != null) {
+			mDragView.setVisibility(View.VISIBLE);
+			mDragView = null;
+		}
+		detachShadow();
+		invalidate(mShadowDrawable.getBounds());
+		mShadowPool.release(mShadowDrawable.getBitmap());
+		mShadowDrawable.setBitmap(null);
+		mDragPosition = INVALID_POSITION;
+		mMovingPosition = INVALID_POSITION;
+	}
+
+	/**
+	 * The shadow goes in a view of the overlay from JELLY_BEAN_MR2, so moving it redraws no tile,
+	 * before that it's drawn over the children.
+	 */
+	private void attachShadow() {
+		if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2) {
+			if (mShadowView == null) {
+				mShadowView = new DragShadowView(getContext());
+				mShadowView.setAlpha(DRIFT_ALPHA / 255f);
+			}
+			mShadowDrawable.setAlpha(255);
+			mShadowView.setDrawable(mShadowDrawable);
+			getOverlay().add(mShadowView);
+			mShadowInOverlay = true;
+		} else {
+			mShadowDrawable.setAlpha(DRIFT_ALPHA);
+		}
+	}
+
+	private void detachShadow() {
+		if (mShadowInOverlay) {
+			getOverlay().remove(mShadowView);
+			mShadowView.setDrawable(null);
+			mShadowInOverlay = false;
+		}
+	}
+
+	private void setShadowRect(Rect rect) {
+		if (mShadowInOverlay) {
+			mShadowView.moveTo(rect);
+		} else {
+			invalidate(mShadowDrawable.getBounds());
+			mShadowDrawable.setBounds(rect);
+			invalidate(rect);
+		}
+	}
+
+	@Override
+	protected void dispatchDraw(Canvas canvas) {
+		super.dispatchDraw(canvas);
+		if (!mShadowInOverlay && mShadowDrawable.getBitmap() != null) {
+			mShadowDrawable.draw(canvas);
+		}
+	}
+
+	@Override
+	protected void onDetachedFromWindow() {
+		super.onDetachedFromWindow();
+		endDrag();
+		mShadowPool.clear();
+	}
+}
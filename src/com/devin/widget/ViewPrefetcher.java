@@ -0,0 +1,105 @@
+package com.devin.widget;
+
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.widget.GridView;
+import android.widget.ListAdapter;
+
+/**
+ * Predicts from the scroll direction and speed which adapter positions are about to enter the viewport
+ * and hands them to a {@link PrefetchAdapter} while the main thread is idle between frames.
+ * Each idle pass stops once its budget is spent and the rest waits for the next one,
+ * so prefetching never delays a frame it doesn't already fit in.
+ *
+ * @author Devin Wong
+ *
+ */
+class ViewPrefetcher implements MessageQueue.IdleHandler {
+
+	/**
+	 * How far ahead to prefetch, in frames at the current scroll speed.
+	 */
+	private static final int LOOKAHEAD_FRAMES = 12;
+	private static final long IDLE_BUDGET_NANOS = 4000000L;
+
+	private final GridView mGrid;
+	private final GridGeometry mGeometry;
+
+	private int mDirection;
+	/**
+	 * Next position to prefetch, and the last one predicted so far, in scroll direction.
+	 */
+	private int mNext = -1;
+	private int mLast = -1;
+	private boolean mQueued;
+
+	public ViewPrefetcher(GridView grid, GridGeometry geometry) {
+		mGrid = grid;
+		mGeometry = geometry;
+	}
+
+	/**
+	 * Feed a scroll of dy pixels, expected to keep going at the same speed every frame.
+	 */
+	public void onScrolled(int dy) {
+		ListAdapter adapter = mGrid.getAdapter();
+		if (dy == 0 || !(adapter instanceof PrefetchAdapter) || !mGeometry.isValid()
+				|| mGrid.getChildCount() == 0) {
+			return;
+		}
+		int direction = dy > 0 ? 1 : -1;
+		int columns = mGeometry.getNumColumns();
+		int rows = 1 + Math.abs(dy) * LOOKAHEAD_FRAMES / Math.max(1, mGeometry.getRowStride());
+		int edge;
+		int last;
+		if (direction > 0) {
+			edge = mGrid.getLastVisiblePosition() + 1;
+			last = Math.min(adapter.getCount() - 1, edge + rows * columns - 1);
+		} else {
+			edge = mGrid.getFirstVisiblePosition() - 1;
+			last = Math.max(0, edge - rows * columns + 1);
+		}
+		if (direction != mDirection) {
+			mDirection = direction;
+			mNext = edge;
+		} else if ((mNext - edge) * direction < 0) {
+			// scrolled past what was prefetched
+			mNext = edge;
+		}
+		mLast = last;
+		if ((mLast - mNext) * mDirection >= 0 && !mQueued) {
+			mQueued = true;
+			Looper.myQueue().addIdleHandler(this);
+		}
+	}
+
+	public void stop() {
+		if (mQueued) {
+			mQueued = false;
+			Looper.myQueue().removeIdleHandler(this);
+		}
+		mDirection = 0;
+		mNext = -1;
+		mLast = -1;
+	}
+
+	@Override
+	public boolean queueIdle() {
+		ListAdapter adapter = mGrid.getAdapter();
+		if (!(adapter instanceof PrefetchAdapter)) {
+			mQueued = false;
+			return false;
+		}
+		PrefetchAdapter prefetch = (PrefetchAdapter) adapter;
+		long deadline = System.nanoTime() + IDLE_BUDGET_NANOS;
+		while ((mLast - mNext) * mDirection >= 0) {
+			prefetch.onPrefetch(mNext);
+			mNext += mDirection;
+			if (System.nanoTime() >= deadline) {
+				break;
+			}
+		}
+		mQueued = (mLast - mNext) * mDirection >= 0;
+		return mQueued;
+	}
+}
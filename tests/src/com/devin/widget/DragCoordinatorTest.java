@@ -0,0 +1,121 @@
+package com.devin.widget;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.app.Activity;
+import android.view.ViewGroup;
+import android.widget.LinearLayout;
+
+import com.devin.widget.DragGestureHarness.CountingAdapter;
+import com.devin.widget.core.GestureScript;
+
+/**
+ * A drag handed off between a dock and a catalog side by side.
+ *
+ * @author Devin Wong
+ *
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 19)
+public class DragCoordinatorTest {
+
+	private static final int ITEM_COUNT = 6;
+	private static final int COLUMNS = 2;
+
+	private DragGestureHarness mDock;
+	private DragGestureHarness mCatalog;
+
+	@Before
+	public void setUp() {
+		Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+		DragGridView dock = DragGestureHarness.newGrid(activity,
+				DragGestureHarness.newAdapter(activity, ITEM_COUNT, "d"), COLUMNS);
+		DragGridView catalog = DragGestureHarness.newGrid(activity,
+				DragGestureHarness.newAdapter(activity, ITEM_COUNT, "c"), COLUMNS);
+		LinearLayout root = new LinearLayout(activity);
+		root.addView(dock, new LinearLayout.LayoutParams(DragGestureHarness.WIDTH / 2, DragGestureHarness.HEIGHT));
+		root.addView(catalog, new LinearLayout.LayoutParams(DragGestureHarness.WIDTH / 2, DragGestureHarness.HEIGHT));
+		activity.setContentView(root, new ViewGroup.LayoutParams(DragGestureHarness.WIDTH, DragGestureHarness.HEIGHT));
+		mDock = new DragGestureHarness(dock);
+		mCatalog = new DragGestureHarness(catalog);
+		mDock.settle();
+
+		DragCoordinator coordinator = new DragCoordinator(root);
+		for (DragGestureHarness harness : new DragGestureHarness[] {mDock, mCatalog}) {
+			harness.getGrid().setOnShiftListener(harness.getAdapter());
+			harness.getGrid().setOnTransferListener(harness.getAdapter());
+			coordinator.register(harness.getGrid());
+		}
+	}
+
+	@Test
+	public void dropOverAnotherGridMovesTheItem() {
+		int catalogLeft = mCatalog.getGrid().getLeft();
+		mDock.play(new GestureScript(120)
+				.down(mDock.centerX(0), mDock.centerY(0))
+				.hold(600)
+				.moveTo(catalogLeft + mCatalog.centerX(1), mCatalog.centerY(1), 200)
+				.jitter(300)
+				.up());
+		assertContents(mDock.getAdapter(), "d1", "d2", "d3", "d4", "d5");
+		assertContents(mCatalog.getAdapter(), "c0", "d0", "c1", "c2", "c3", "c4", "c5");
+		assertEquals("the dock didn't shift while the pointer was away", 0, mDock.getAdapter().getShiftCount());
+	}
+
+	@Test
+	public void dropOverNoGridPutsTheItemBack() {
+		mDock.play(new GestureScript(120)
+				.down(mDock.centerX(0), mDock.centerY(0))
+				.hold(600)
+				.moveTo(mDock.centerX(3), mDock.centerY(3), 100)
+				.jitter(500)
+				.moveTo(mDock.centerX(1), DragGestureHarness.HEIGHT + 100, 200)
+				.jitter(300)
+				.up());
+		assertContents(mDock.getAdapter(), "d1", "d2", "d3", "d0", "d4", "d5");
+		assertContents(mCatalog.getAdapter(), "c0", "c1", "c2", "c3", "c4", "c5");
+	}
+
+	@Test
+	public void dropInAGapKeepsTheInsertPosition() {
+		int catalogLeft = mCatalog.getGrid().getLeft();
+		// the spacing below the catalog's second item
+		int gapY = mCatalog.getGrid().getChildAt(1).getBottom() + DragGestureHarness.SPACING / 2;
+		mDock.play(new GestureScript(120)
+				.down(mDock.centerX(0), mDock.centerY(0))
+				.hold(600)
+				.moveTo(catalogLeft + mCatalog.centerX(1), mCatalog.centerY(1), 200)
+				.jitter(300)
+				.moveTo(catalogLeft + mCatalog.centerX(1), gapY, 50)
+				.jitter(300)
+				.up());
+		assertContents(mCatalog.getAdapter(), "c0", "d0", "c1", "c2", "c3", "c4", "c5");
+	}
+
+	@Test
+	public void aPinnedSlotTakesTheInsertAfterIt() {
+		mCatalog.getGrid().getPinnedPositions().pin(1);
+		int catalogLeft = mCatalog.getGrid().getLeft();
+		mDock.play(new GestureScript(120)
+				.down(mDock.centerX(0), mDock.centerY(0))
+				.hold(600)
+				.moveTo(catalogLeft + mCatalog.centerX(1), mCatalog.centerY(1), 200)
+				.jitter(300)
+				.up());
+		assertContents(mCatalog.getAdapter(), "c0", "c1", "d0", "c2", "c3", "c4", "c5");
+	}
+
+	private static void assertContents(CountingAdapter adapter, String... expected) {
+		assertEquals(expected.length, adapter.getCount());
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals("position " + i, expected[i], adapter.get(i));
+		}
+	}
+}
@@ -0,0 +1,338 @@
+package com.devin.widget;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.robolectric.shadow.api.Shadow;
+import org.robolectric.shadows.ShadowChoreographer;
+import org.robolectric.shadows.ShadowLooper;
+import org.robolectric.util.ReflectionHelpers;
+
+import android.animation.ValueAnimator;
+import android.app.Activity;
+import android.graphics.Color;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.os.SystemClock;
+import android.view.Choreographer;
+import android.view.Gravity;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.AbsListView;
+import android.widget.TextView;
+
+import com.devin.widget.core.GestureScript;
+import com.devin.widget.core.GestureTrace;
+
+/**
+ * Inflates a {@link DragGridView} with an adapter modeled on MainActivity.CustomAdapter,
+ * pushes a {@link GestureScript} through dispatchTouchEvent and advances the main looper,
+ * the animators and the Choreographer in fake time, counting the work done.
+ *
+ * @author Devin Wong
+ *
+ */
+public class DragGestureHarness {
+
+	public static final int WIDTH = 1080;
+	public static final int HEIGHT = 1920;
+	public static final int CELL_SIZE = 200;
+	public static final int SPACING = 10;
+
+	private static final long SETTLE_MILLIS = 2000L;
+	private static final int FRAME_MILLIS = 16;
+
+	private final DragGridView mGrid;
+	private final CountingAdapter mAdapter;
+	private final DragPerfCounters mCounters = new DragPerfCounters();
+
+	private int mFrameCount;
+	private int mMaxRunningAnimators;
+	private long mAllocatedBytes;
+
+	private Choreographer.FrameCallback mFrameCounter = new Choreographer.FrameCallback() {
+
+		@Override
+		public void doFrame(long frameTimeNanos) {
+			mFrameCount++;
+			mMaxRunningAnimators = Math.max(mMaxRunningAnimators, runningAnimators());
+			Choreographer.getInstance().postFrameCallback(this);
+		}
+	};
+
+	public DragGestureHarness(Activity activity, int itemCount, int columns) {
+		this(newGrid(activity, newAdapter(activity, itemCount, ""), columns));
+		activity.setContentView(mGrid, new ViewGroup.LayoutParams(WIDTH, HEIGHT));
+		settle();
+	}
+
+	/**
+	 * Drive a grid made by {@link #newGrid(Activity, CountingAdapter, int)} the test lays out itself,
+	 * call {@link #settle()} once it's in the content view.
+	 */
+	public DragGestureHarness(DragGridView grid) {
+		setUpChoreographer();
+		mGrid = grid;
+		mAdapter = (CountingAdapter) grid.getAdapter();
+		mGrid.setPerfCounters(mCounters);
+	}
+
+	/**
+	 * @param prefix prepended to the index of each item
+	 */
+	public static CountingAdapter newAdapter(Activity activity, int itemCount, String prefix) {
+		List<String> list = new ArrayList<String>();
+		for (int i = 0; i < itemCount; i++) {
+			list.add(prefix + i);
+		}
+		return new CountingAdapter(activity, list);
+	}
+
+	public static DragGridView newGrid(Activity activity, CountingAdapter adapter, int columns) {
+		DragGridView grid = new DragGridView(activity);
+		grid.setNumColumns(columns);
+		grid.setVerticalSpacing(SPACING);
+		grid.setHorizontalSpacing(SPACING);
+		grid.setGravity(Gravity.CENTER);
+		grid.setAdapter(adapter);
+		return grid;
+	}
+
+	public DragGridView getGrid() {
+		return mGrid;
+	}
+
+	public CountingAdapter getAdapter() {
+		return mAdapter;
+	}
+
+	public DragPerfCounters getCounters() {
+		return mCounters;
+	}
+
+	/**
+	 * @return the center of the cell showing position, the grid must have laid it out
+	 */
+	public int centerX(int position) {
+		View child = mGrid.getChildAt(position - mGrid.getFirstVisiblePosition());
+		return (child.getLeft() + child.getRight()) / 2;
+	}
+
+	public int centerY(int position) {
+		View child = mGrid.getChildAt(position - mGrid.getFirstVisiblePosition());
+		return (child.getTop() + child.getBottom()) / 2;
+	}
+
+	/**
+	 * Play script sample by sample at its original timing, then let every animation settle.
+	 */
+	public void play(GestureScript script) {
+		mCounters.reset();
+		mAdapter.resetBindCount();
+		mFrameCount = 0;
+		mMaxRunningAnimators = 0;
+		Choreographer.getInstance().postFrameCallback(mFrameCounter);
+		long allocatedBefore = allocatedBytes();
+		dispatch(mGrid, script);
+		advance(SETTLE_MILLIS);
+		mAllocatedBytes = allocatedBytes() - allocatedBefore;
+		Choreographer.getInstance().removeFrameCallback(mFrameCounter);
+	}
+
+	/**
+	 * Play script into any view, e.g. a {@link SpanDragGridView}, then let every animation settle.
+	 */
+	public static void play(View view, GestureScript script) {
+		setUpChoreographer();
+		dispatch(view, script);
+		advance(SETTLE_MILLIS);
+	}
+
+	private static void dispatch(View view, GestureScript script) {
+		long downTime = SystemClock.uptimeMillis();
+		long elapsed = 0;
+		for (int i = 0; i < script.size(); i++) {
+			long time = script.timeAt(i);
+			if (time > elapsed) {
+				advance(time - elapsed);
+				elapsed = time;
+			}
+			MotionEvent event = MotionEvent.obtain(downTime, downTime + time,
+					script.actionAt(i), script.xAt(i), script.yAt(i), 0);
+			view.dispatchTouchEvent(event);
+			event.recycle();
+		}
+	}
+
+	/**
+	 * Replay trace through a {@link DragGestureReplayer} at speed, then let every animation settle.
+	 */
+	public void replay(GestureTrace trace, float speed) {
+		DragGestureReplayer replayer = new DragGestureReplayer(trace);
+		replayer.start(mGrid, speed);
+		advance(replayer.getDuration());
+		do {
+			advance(SETTLE_MILLIS);
+		} while (replayer.isRunning());
+	}
+
+	/**
+	 * Advance fake time by millis, frame by frame, leaving running animations where they got.
+	 */
+	public void step(long millis) {
+		advance(millis);
+	}
+
+	/**
+	 * Let every animation started outside a gesture settle.
+	 */
+	public void settle() {
+		advance(SETTLE_MILLIS);
+	}
+
+	/**
+	 * Let every animation settle, for views driven without a harness.
+	 */
+	public static void idle() {
+		setUpChoreographer();
+		advance(SETTLE_MILLIS);
+	}
+
+	private static void setUpChoreographer() {
+		ShadowChoreographer.setPostFrameCallbackDelay(FRAME_MILLIS);
+		ShadowChoreographer.setPostCallbackDelay(FRAME_MILLIS);
+		ShadowChoreographer.setFrameInterval(0);
+	}
+
+	/**
+	 * Advance the main looper frame by frame. Robolectric's Choreographer steps its frame time per read
+	 * instead of following the clock, it's pinned to the clock at each frame so animators see real durations.
+	 */
+	private static void advance(long millis) {
+		ShadowChoreographer choreographer = Shadow.extract(Choreographer.getInstance());
+		while (millis > 0) {
+			long step = Math.min(millis, FRAME_MILLIS);
+			ReflectionHelpers.setField(choreographer, "nanoTime",
+					TimeUnit.MILLISECONDS.toNanos(SystemClock.uptimeMillis()));
+			ShadowLooper.idleMainLooper(step, TimeUnit.MILLISECONDS);
+			runIdleHandlers();
+			millis -= step;
+		}
+	}
+
+	/**
+	 * The main looper of Robolectric never goes idle by itself, idle handlers get their turn between frames here.
+	 */
+	private static void runIdleHandlers() {
+		MessageQueue queue = Looper.myQueue();
+		ArrayList<MessageQueue.IdleHandler> handlers = ReflectionHelpers.getField(queue, "mIdleHandlers");
+		MessageQueue.IdleHandler[] pending = handlers.toArray(new MessageQueue.IdleHandler[handlers.size()]);
+		for (MessageQueue.IdleHandler handler : pending) {
+			if (!handler.queueIdle()) {
+				queue.removeIdleHandler(handler);
+			}
+		}
+	}
+
+	public int getFrameCount() {
+		return mFrameCount;
+	}
+
+	/**
+	 * @return the most animators running at once in a frame of the last gesture, the shadow's included
+	 */
+	public int getMaxRunningAnimators() {
+		return mMaxRunningAnimators;
+	}
+
+	/**
+	 * Read the animators the framework steps this frame, ViewPropertyAnimators included, from its handler.
+	 */
+	private static int runningAnimators() {
+		ThreadLocal<?> handlers = ReflectionHelpers.getStaticField(ValueAnimator.class, "sAnimationHandler");
+		Object handler = handlers.get();
+		if (handler == null) {
+			return 0;
+		}
+		List<?> animations = ReflectionHelpers.getField(handler, "mAnimations");
+		return animations.size();
+	}
+
+	public long getAllocatedBytesPerFrame() {
+		return mFrameCount == 0 ? mAllocatedBytes : mAllocatedBytes / mFrameCount;
+	}
+
+	public int getBindCount() {
+		return mAdapter.getBindCount();
+	}
+
+	private static long allocatedBytes() {
+		return ((com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean())
+				.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+
+	public static class CountingAdapter extends DragGridAdapter<String> {
+
+		private final Activity mActivity;
+		private int mBindCount;
+		private int mPrefetchCount;
+		private int mShiftCount;
+		private long mLastShiftTime;
+
+		public CountingAdapter(Activity activity, List<String> list) {
+			super(list);
+			mActivity = activity;
+		}
+
+		public int getBindCount() {
+			return mBindCount;
+		}
+
+		public void resetBindCount() {
+			mBindCount = 0;
+		}
+
+		public int getPrefetchCount() {
+			return mPrefetchCount;
+		}
+
+		@Override
+		public void onPrefetch(int position) {
+			mPrefetchCount++;
+		}
+
+		public int getShiftCount() {
+			return mShiftCount;
+		}
+
+		public long getLastShiftTime() {
+			return mLastShiftTime;
+		}
+
+		@Override
+		public void onShift(int dragPos, int movePos) {
+			mShiftCount++;
+			mLastShiftTime = SystemClock.uptimeMillis();
+			super.onShift(dragPos, movePos);
+		}
+
+		@Override
+		public View getView(int position, View convertView, ViewGroup parent) {
+			mBindCount++;
+			if (convertView == null) {
+				convertView = new TextView(mActivity);
+				TextView text = (TextView) convertView;
+				AbsListView.LayoutParams p = new AbsListView.LayoutParams(CELL_SIZE, CELL_SIZE);
+				text.setGravity(Gravity.CENTER);
+				text.setBackgroundColor(Color.BLUE);
+				text.setLayoutParams(p);
+			}
+			TextView textview = (TextView) convertView;
+			textview.setText(get(position));
+			return convertView;
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package com.devin.widget;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.app.Activity;
+
+import com.devin.widget.core.GestureScript;
+import com.devin.widget.core.GestureTrace;
+
+/**
+ * A recorded drag session, encoded and decoded, replays to the same result on a fresh grid.
+ *
+ * @author Devin Wong
+ *
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 19)
+public class DragGestureReplayTest {
+
+	private static final int ITEM_COUNT = 20;
+	private static final int COLUMNS = 5;
+
+	@Test
+	public void replayReproducesDrops() throws IOException {
+		DragGestureHarness recorded = newHarness();
+		DragGestureRecorder recorder = new DragGestureRecorder();
+		recorded.getGrid().setGestureRecorder(recorder);
+		recorded.play(new GestureScript(120)
+				.down(recorded.centerX(0), recorded.centerY(0))
+				.hold(600)
+				.jitter(200)
+				.moveTo(recorded.centerX(8), recorded.centerY(8), 300)
+				.jitter(300)
+				.up());
+		recorded.play(new GestureScript(120)
+				.down(recorded.centerX(12), recorded.centerY(12))
+				.hold(600)
+				.jitter(200)
+				.moveTo(recorded.centerX(2), recorded.centerY(2), 300)
+				.up());
+		recorded.getGrid().setGestureRecorder(null);
+
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		recorder.getTrace().writeTo(out);
+		int samples = recorder.getTrace().size();
+		assertTrue(out.size() + " bytes for " + samples + " records", out.size() <= 8 * samples);
+		GestureTrace trace = GestureTrace.readFrom(new ByteArrayInputStream(out.toByteArray()));
+		assertEquals(samples, trace.size());
+
+		DragGestureHarness replayed = newHarness();
+		replayed.replay(trace, 1f);
+		for (int i = 0; i < ITEM_COUNT; i++) {
+			assertEquals(recorded.getAdapter().get(i), replayed.getAdapter().get(i));
+		}
+		assertEquals("12", replayed.getAdapter().get(2));
+		assertEquals("0", replayed.getAdapter().get(9));
+	}
+
+	private static DragGestureHarness newHarness() {
+		Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+		DragGestureHarness harness = new DragGestureHarness(activity, ITEM_COUNT, COLUMNS);
+		harness.getGrid().setOnShiftListener(harness.getAdapter());
+		return harness;
+	}
+}
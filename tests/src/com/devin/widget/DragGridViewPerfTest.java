@@ -0,0 +1,266 @@
+package com.devin.widget;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.app.Activity;
+import android.graphics.Bitmap;
+import android.os.SystemClock;
+import android.view.View;
+
+import com.devin.widget.core.GestureScript;
+
+/**
+ * Performance budgets of the drag path, so fixes to it can't silently regress.
+ * Budgets are the measured values plus a small margin. Allocations include Robolectric's own overhead,
+ * they're measured after the drag path has been played once in the JVM so the JIT doesn't count.
+ *
+ * @author Devin Wong
+ *
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 19)
+public class DragGridViewPerfTest {
+
+	private static final int ITEM_COUNT = 200;
+	private static final int COLUMNS = 5;
+	private static final int SAMPLE_RATE = 120;
+	private static final long LONG_PRESS = 600L;
+	/**
+	 * Shift deadlines are checked once per frame.
+	 */
+	private static final long FRAME = 16L;
+
+	/**
+	 * AbsListView lays its children out once when it confirms the tap of a down.
+	 */
+	private static final int TAP_LAYOUTS = 1;
+
+	/**
+	 * Measured about 6KB for a press and 9KB for a drop, 34KB while auto-scrolling binds new rows.
+	 */
+	private static final long MAX_BYTES_PER_FRAME = 16 * 1024;
+	private static final long MAX_SCROLLING_BYTES_PER_FRAME = 48 * 1024;
+	/**
+	 * The shift animator and the shadow's drift or springback, never one animator per cell.
+	 */
+	private static final int MAX_RUNNING_ANIMATORS = 2;
+
+	private static boolean sWarmedUp;
+
+	private DragGestureHarness mHarness;
+
+	@Before
+	public void setUp() {
+		if (!sWarmedUp) {
+			sWarmedUp = true;
+			for (int i = 0; i < 2; i++) {
+				DragGestureHarness warmUp = newHarness();
+				warmUp.play(multiCellDrag(warmUp));
+			}
+		}
+		mHarness = newHarness();
+	}
+
+	private static DragGestureHarness newHarness() {
+		Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+		DragGestureHarness harness = new DragGestureHarness(activity, ITEM_COUNT, COLUMNS);
+		harness.getGrid().setOnShiftListener(harness.getAdapter());
+		return harness;
+	}
+
+	private static GestureScript multiCellDrag(DragGestureHarness harness) {
+		return new GestureScript(SAMPLE_RATE)
+				.down(harness.centerX(0), harness.centerY(0))
+				.hold(LONG_PRESS)
+				.jitter(400)
+				.moveTo(harness.centerX(4), harness.centerY(4), 300)
+				.moveTo(harness.centerX(4), DragGestureHarness.HEIGHT - 20, 300)
+				.jitter(1000)
+				.up();
+	}
+
+	@Test
+	public void longPress() {
+		GestureScript script = new GestureScript(SAMPLE_RATE)
+				.down(mHarness.centerX(0), mHarness.centerY(0))
+				.hold(LONG_PRESS)
+				.up();
+		mHarness.play(script);
+		assertEquals(0, mHarness.getBindCount());
+		assertEquals(TAP_LAYOUTS, mHarness.getCounters().getLayoutCount());
+		assertAnimators();
+		assertBytesPerFrame(MAX_BYTES_PER_FRAME);
+	}
+
+	@Test
+	public void repeatedLongPressReusesShadow() {
+		CountingShadowPool pool = new CountingShadowPool();
+		mHarness.getGrid().setDragShadowPool(pool);
+		GestureScript script = new GestureScript(SAMPLE_RATE)
+				.down(mHarness.centerX(0), mHarness.centerY(0))
+				.hold(LONG_PRESS)
+				.up();
+		mHarness.play(script);
+		mHarness.play(script);
+		assertEquals(1, pool.mRenderCount);
+	}
+
+	@Test
+	public void drift() {
+		GestureScript script = new GestureScript(SAMPLE_RATE)
+				.down(mHarness.centerX(6), mHarness.centerY(6))
+				.hold(LONG_PRESS)
+				.jitter(400)
+				.up();
+		mHarness.play(script);
+		assertEquals(0, mHarness.getBindCount());
+		assertEquals(TAP_LAYOUTS, mHarness.getCounters().getLayoutCount());
+		assertAnimators();
+		assertBytesPerFrame(MAX_BYTES_PER_FRAME);
+	}
+
+	@Test
+	public void multiCellDragWithAutoScroll() {
+		mHarness.play(multiCellDrag(mHarness));
+		// measured 66 invalidates, 3 layouts and 122 binds over about 290 frames
+		assertTrue("invalidates " + mHarness.getCounters().getInvalidateCount(),
+				mHarness.getCounters().getInvalidateCount() <= 80);
+		assertTrue("layouts " + mHarness.getCounters().getLayoutCount(), mHarness.getCounters().getLayoutCount() <= 4);
+		assertTrue("binds " + mHarness.getBindCount(), mHarness.getBindCount() <= 140);
+		assertAnimators();
+		assertTrue("prefetched " + mHarness.getAdapter().getPrefetchCount(), mHarness.getAdapter().getPrefetchCount() > 0);
+		assertBytesPerFrame(MAX_SCROLLING_BYTES_PER_FRAME);
+	}
+
+	@Test
+	public void deferredDragWithAutoScroll() {
+		Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+		mHarness = new DragGestureHarness(activity, ITEM_COUNT, COLUMNS);
+		mHarness.getGrid().setOnDropListener(mHarness.getAdapter());
+		mHarness.play(multiCellDrag(mHarness));
+		// children scrolled past are dropped from the offsets, the ones back in view are at rest all the same
+		assertTrue("moved on drop", !"0".equals(mHarness.getAdapter().get(0)));
+		DragGridView grid = mHarness.getGrid();
+		for (int i = 0; i < grid.getChildCount(); i++) {
+			View child = grid.getChildAt(i);
+			assertEquals("child " + i + " at rest", 0f, child.getTranslationX() + child.getTranslationY(), 0f);
+			assertEquals("child " + i + " shown", View.VISIBLE, child.getVisibility());
+		}
+		assertBytesPerFrame(MAX_SCROLLING_BYTES_PER_FRAME);
+	}
+
+	@Test
+	public void drop() {
+		GestureScript script = new GestureScript(SAMPLE_RATE)
+				.down(mHarness.centerX(0), mHarness.centerY(0))
+				.hold(LONG_PRESS)
+				.jitter(400)
+				.moveTo(mHarness.centerX(3), mHarness.centerY(3), 200)
+				.jitter(400)
+				.up();
+		mHarness.play(script);
+		assertEquals("0", mHarness.getAdapter().get(3));
+		// the shift rebinds the visible children once
+		assertTrue("binds " + mHarness.getBindCount(), mHarness.getBindCount() <= mHarness.getGrid().getChildCount() + 2);
+		assertTrue("layouts " + mHarness.getCounters().getLayoutCount(), mHarness.getCounters().getLayoutCount() <= 3);
+		assertAnimators();
+		assertBytesPerFrame(MAX_BYTES_PER_FRAME);
+	}
+
+	@Test
+	public void shiftsRetargetMidAnimation() {
+		GestureScript script = new GestureScript(SAMPLE_RATE)
+				.down(mHarness.centerX(0), mHarness.centerY(0))
+				.hold(LONG_PRESS)
+				.moveTo(mHarness.centerX(1), mHarness.centerY(1), 50)
+				.jitter(150)
+				.moveTo(mHarness.centerX(2), mHarness.centerY(2), 50)
+				.jitter(150)
+				.moveTo(mHarness.centerX(3), mHarness.centerY(3), 50)
+				.jitter(600)
+				.up();
+		mHarness.play(script);
+		assertEquals("0", mHarness.getAdapter().get(3));
+		assertEquals("3", mHarness.getAdapter().get(2));
+		for (int i = 0; i < mHarness.getGrid().getChildCount(); i++) {
+			assertEquals(0f, mHarness.getGrid().getChildAt(i).getTranslationX(), 0f);
+			assertEquals(0f, mHarness.getGrid().getChildAt(i).getTranslationY(), 0f);
+		}
+		assertAnimators();
+	}
+
+	@Test
+	public void predictiveTargetingShiftsBeforeTheFingerStops() {
+		mHarness.getGrid().setPredictiveTargeting(true);
+		int x = mHarness.centerX(0);
+		int y = mHarness.centerY(0);
+		int cell = DragGestureHarness.CELL_SIZE + DragGestureHarness.SPACING;
+		GestureScript script = new GestureScript(SAMPLE_RATE)
+				.down(x, y)
+				.hold(LONG_PRESS)
+				.jitter(400)
+				.moveTo(x + cell, y, 70)
+				.moveTo(x + cell * 2, y, 120)
+				.moveTo(x + cell * 5 / 2, y, 120)
+				.moveTo(x + cell * 3, y, 120)
+				.jitter(400)
+				.up();
+		long start = SystemClock.uptimeMillis();
+		mHarness.play(script);
+		assertEquals("0", mHarness.getAdapter().get(3));
+		assertEquals("cells crossed aren't shifted to", 1, mHarness.getAdapter().getShiftCount());
+		long stop = start + script.getDuration() - 400;
+		assertTrue("shifted " + (mHarness.getAdapter().getLastShiftTime() - stop) + "ms after the finger stopped",
+				mHarness.getAdapter().getLastShiftTime() <= stop + FRAME);
+	}
+
+	@Test
+	public void predictiveTargetingShortensTheWaitOfACrawlingFinger() {
+		mHarness.getGrid().setPredictiveTargeting(true);
+		int y = mHarness.centerY(0);
+		int cell = DragGestureHarness.CELL_SIZE + DragGestureHarness.SPACING;
+		GestureScript script = new GestureScript(SAMPLE_RATE)
+				.down(mHarness.centerX(0), y)
+				.hold(LONG_PRESS)
+				.jitter(400)
+				.moveTo(mHarness.centerX(0) + cell / 2 - 10, y, 100)
+				.moveTo(mHarness.centerX(0) + cell / 2 + 20, y, 300)
+				.jitter(400)
+				.up();
+		long start = SystemClock.uptimeMillis();
+		mHarness.play(script);
+		assertEquals("0", mHarness.getAdapter().get(1));
+		long stop = start + script.getDuration() - 400;
+		assertTrue("shifted " + (mHarness.getAdapter().getLastShiftTime() - stop) + "ms after the finger stopped",
+				mHarness.getAdapter().getLastShiftTime() <= stop + FRAME);
+	}
+
+	private static class CountingShadowPool extends DragShadowPool {
+
+		int mRenderCount;
+
+		@Override
+		public Bitmap render(View view) {
+			mRenderCount++;
+			return super.render(view);
+		}
+	}
+
+	private void assertAnimators() {
+		assertTrue("animators running at once " + mHarness.getMaxRunningAnimators(),
+				mHarness.getMaxRunningAnimators() <= MAX_RUNNING_ANIMATORS);
+	}
+
+	private void assertBytesPerFrame(long budget) {
+		assertTrue("allocated " + mHarness.getAllocatedBytesPerFrame() + " bytes per frame",
+				mHarness.getAllocatedBytesPerFrame() <= budget);
+	}
+}
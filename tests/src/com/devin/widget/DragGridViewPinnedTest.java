@@ -0,0 +1,77 @@
+package com.devin.widget;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.app.Activity;
+
+import com.devin.widget.core.GestureScript;
+
+/**
+ * Pinned positions keep their items while a drag shifts the others around them.
+ *
+ * @author Devin Wong
+ *
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 19)
+public class DragGridViewPinnedTest {
+
+	private static final int ITEM_COUNT = 20;
+	private static final int COLUMNS = 5;
+
+	private DragGestureHarness mHarness;
+
+	@Before
+	public void setUp() {
+		Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+		mHarness = new DragGestureHarness(activity, ITEM_COUNT, COLUMNS);
+		DragGridView grid = mHarness.getGrid();
+		grid.setOnShiftListener(mHarness.getAdapter());
+		grid.setUndoDepth(8);
+		grid.getPinnedPositions().pin(2);
+		grid.getPinnedPositions().pin(5, 6);
+	}
+
+	@Test
+	public void shiftsAroundPinnedAndUndoes() {
+		mHarness.play(new GestureScript(120)
+				.down(mHarness.centerX(0), mHarness.centerY(0))
+				.hold(600)
+				.moveTo(mHarness.centerX(3), mHarness.centerY(3), 100)
+				.jitter(300)
+				.moveTo(mHarness.centerX(8), mHarness.centerY(8), 200)
+				.jitter(300)
+				.up());
+		String[] expected = {"1", "3", "2", "4", "7", "5", "6", "8", "0", "9"};
+		for (int i = 0; i < expected.length; i++) {
+			assertEquals("position " + i, expected[i], mHarness.getAdapter().get(i));
+		}
+
+		assertTrue(mHarness.getGrid().undo());
+		mHarness.settle();
+		for (int i = 0; i < ITEM_COUNT; i++) {
+			assertEquals(String.valueOf(i), mHarness.getAdapter().get(i));
+		}
+	}
+
+	@Test
+	public void hoveringPinnedTargetsTheClosestUnpinned() {
+		mHarness.play(new GestureScript(120)
+				.down(mHarness.centerX(9), mHarness.centerY(9))
+				.hold(600)
+				.moveTo(mHarness.centerX(6), mHarness.centerY(6), 100)
+				.jitter(300)
+				.up());
+		assertEquals("9", mHarness.getAdapter().get(7));
+		assertEquals("5", mHarness.getAdapter().get(5));
+		assertEquals("6", mHarness.getAdapter().get(6));
+	}
+}
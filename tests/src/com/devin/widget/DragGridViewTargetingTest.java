@@ -0,0 +1,69 @@
+package com.devin.widget;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.app.Activity;
+import android.view.View;
+
+import com.devin.widget.core.GestureScript;
+
+/**
+ * The cell a drag targets: gaps between cells keep it, only past the last item is the end.
+ *
+ * @author Devin Wong
+ *
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 19)
+public class DragGridViewTargetingTest {
+
+	private static final int ITEM_COUNT = 18;
+	private static final int COLUMNS = 5;
+
+	private DragGestureHarness mHarness;
+
+	@Before
+	public void setUp() {
+		Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+		mHarness = new DragGestureHarness(activity, ITEM_COUNT, COLUMNS);
+		mHarness.getGrid().setOnShiftListener(mHarness.getAdapter());
+	}
+
+	@Test
+	public void restingInAGapKeepsTheTarget() {
+		View target = mHarness.getGrid().getChildAt(2);
+		int gapX = target.getRight() + DragGestureHarness.SPACING / 2;
+		mHarness.play(new GestureScript(120)
+				.down(mHarness.centerX(0), mHarness.centerY(0))
+				.hold(600)
+				.moveTo(mHarness.centerX(2), mHarness.centerY(2), 100)
+				.jitter(300)
+				.moveTo(gapX, mHarness.centerY(2), 50)
+				.jitter(400)
+				.up());
+		assertEquals("0", mHarness.getAdapter().get(2));
+		assertEquals(String.valueOf(ITEM_COUNT - 1), mHarness.getAdapter().get(ITEM_COUNT - 1));
+	}
+
+	@Test
+	public void pastTheLastItemIsTheEnd() {
+		// right of the last item, on its row
+		View last = mHarness.getGrid().getChildAt(ITEM_COUNT - 1);
+		int x = last.getRight() + DragGestureHarness.CELL_SIZE / 2;
+		mHarness.play(new GestureScript(120)
+				.down(mHarness.centerX(0), mHarness.centerY(0))
+				.hold(600)
+				.moveTo(x, mHarness.centerY(ITEM_COUNT - 1), 100)
+				.jitter(300)
+				.up());
+		assertEquals("0", mHarness.getAdapter().get(ITEM_COUNT - 1));
+		assertEquals("1", mHarness.getAdapter().get(0));
+	}
+}
@@ -0,0 +1,165 @@
+package com.devin.widget;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+
+import android.app.Activity;
+import android.view.View;
+
+import com.devin.widget.core.GestureScript;
+
+/**
+ * A drag is undone and redone as one step, through the listener that made it.
+ *
+ * @author Devin Wong
+ *
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 19)
+public class DragGridViewUndoTest {
+
+	private static final int ITEM_COUNT = 20;
+	private static final int COLUMNS = 5;
+	private static final long FRAME = 16L;
+	private static final long SHIFT_DURATION = 300L;
+
+	private DragGestureHarness mHarness;
+
+	@Before
+	public void setUp() {
+		Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+		mHarness = new DragGestureHarness(activity, ITEM_COUNT, COLUMNS);
+		mHarness.getGrid().setOnShiftListener(mHarness.getAdapter());
+		mHarness.getGrid().setUndoDepth(8);
+	}
+
+	@Test
+	public void undoAndRedoADrag() {
+		mHarness.play(new GestureScript(120)
+				.down(mHarness.centerX(0), mHarness.centerY(0))
+				.hold(600)
+				.moveTo(mHarness.centerX(1), mHarness.centerY(1), 100)
+				.jitter(300)
+				.moveTo(mHarness.centerX(3), mHarness.centerY(3), 100)
+				.jitter(300)
+				.up());
+		assertEquals("0", mHarness.getAdapter().get(3));
+
+		DragGridView grid = mHarness.getGrid();
+		assertTrue(grid.undo());
+		mHarness.settle();
+		assertFalse("a drag is one step", grid.canUndo());
+		for (int i = 0; i < ITEM_COUNT; i++) {
+			assertEquals(String.valueOf(i), mHarness.getAdapter().get(i));
+		}
+
+		assertTrue(grid.redo());
+		mHarness.settle();
+		assertFalse(grid.canRedo());
+		assertEquals("0", mHarness.getAdapter().get(3));
+		assertEquals("3", mHarness.getAdapter().get(2));
+	}
+
+	@Test
+	public void aChangeFromOutsideClearsHistory() {
+		mHarness.play(new GestureScript(120)
+				.down(mHarness.centerX(0), mHarness.centerY(0))
+				.hold(600)
+				.moveTo(mHarness.centerX(2), mHarness.centerY(2), 100)
+				.jitter(300)
+				.up());
+		DragGridView grid = mHarness.getGrid();
+		assertTrue("the grid's own shifts are kept", grid.canUndo());
+
+		mHarness.getAdapter().insert(0, "new");
+		mHarness.getAdapter().notifyDataSetChanged();
+		mHarness.settle();
+		assertFalse("positions moved under the history", grid.canUndo());
+		assertFalse(grid.undo());
+	}
+
+	@Test
+	public void aFreshShiftSlidesLinearly() {
+		mHarness.play(new GestureScript(120)
+				.down(mHarness.centerX(0), mHarness.centerY(0))
+				.hold(600)
+				.moveTo(mHarness.centerX(1), mHarness.centerY(1), 100)
+				.jitter(300)
+				.up());
+		assertEquals("0", mHarness.getAdapter().get(1));
+
+		DragGridView grid = mHarness.getGrid();
+		assertTrue(grid.undo());
+		View moving = null;
+		float last = 0;
+		int frames = 0;
+		float stride = DragGestureHarness.CELL_SIZE + DragGestureHarness.SPACING;
+		// 300ms from one cell over to its slot, a constant 16ms / 300ms of the cell per frame
+		float perFrame = stride * FRAME / SHIFT_DURATION;
+		for (int i = 0; i < SHIFT_DURATION / FRAME - 2; i++) {
+			mHarness.step(FRAME);
+			if (moving == null) {
+				for (int j = 0; j < grid.getChildCount() && moving == null; j++) {
+					if (grid.getChildAt(j).getTranslationX() != 0) {
+						moving = grid.getChildAt(j);
+					}
+				}
+			} else {
+				float delta = Math.abs(moving.getTranslationX() - last);
+				assertEquals("moved at frame " + frames, perFrame, delta, 1f);
+				frames++;
+			}
+			if (moving != null) {
+				last = moving.getTranslationX();
+			}
+		}
+		assertTrue("frames " + frames, frames >= 10);
+		mHarness.settle();
+	}
+
+	/**
+	 * In a scrolled grid the end is the last adapter position, not the last child.
+	 */
+	@Test
+	public void theEndOfAScrolledGridIsTheLastItem() {
+		Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+		mHarness = new DragGestureHarness(activity, 58, COLUMNS);
+		DragGridView grid = mHarness.getGrid();
+		grid.setOnShiftListener(mHarness.getAdapter());
+		grid.setUndoDepth(8);
+		grid.setSelection(57);
+		mHarness.settle();
+		int first = grid.getFirstVisiblePosition();
+		assertTrue("scrolled " + first, first > 0);
+		View last = grid.getChildAt(57 - first);
+		int drag = first + 12;
+		int target = first + 17;
+		mHarness.play(new GestureScript(120)
+				.down(mHarness.centerX(drag), mHarness.centerY(drag))
+				.hold(600)
+				.moveTo(last.getRight() + DragGestureHarness.CELL_SIZE / 2, mHarness.centerY(57), 100)
+				.jitter(600)
+				.moveTo(mHarness.centerX(target), mHarness.centerY(target), 100)
+				.jitter(300)
+				.up());
+		assertEquals(String.valueOf(drag), mHarness.getAdapter().get(target));
+		assertEquals("57", mHarness.getAdapter().get(57));
+		for (int i = 0; i < grid.getChildCount(); i++) {
+			assertEquals("child " + i + " shown", View.VISIBLE, grid.getChildAt(i).getVisibility());
+		}
+
+		assertTrue(grid.undo());
+		mHarness.settle();
+		for (int i = 0; i < 58; i++) {
+			assertEquals(String.valueOf(i), mHarness.getAdapter().get(i));
+		}
+	}
+}
@@ -0,0 +1,90 @@
+package com.devin.widget;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.util.ReflectionHelpers;
+
+import android.app.Activity;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+
+import com.devin.widget.core.GestureScript;
+
+/**
+ * A drag session reports its metrics once springback ends, its start latency once the shadow has drawn.
+ *
+ * @author Devin Wong
+ *
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 19)
+public class DragMetricsTest {
+
+	private DragGestureHarness mHarness;
+	private int mReportCount;
+	private long mDragStartLatency;
+	private int mShiftCount;
+	private long mSessionNanos;
+
+	@Before
+	public void setUp() {
+		Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+		mHarness = new DragGestureHarness(activity, 20, 5);
+		mHarness.getGrid().setOnShiftListener(mHarness.getAdapter());
+		mHarness.getGrid().setDragMetricsListener(new DragMetricsListener() {
+
+			@Override
+			public void onDragMetrics(DragMetrics metrics) {
+				mReportCount++;
+				mDragStartLatency = metrics.getDragStartLatencyNanos();
+				mShiftCount = metrics.getShiftCount();
+				mSessionNanos = metrics.getSessionNanos();
+			}
+		});
+	}
+
+	@Test
+	public void dragStartLatencyWaitsForTheShadowToDraw() {
+		// frames run, but Robolectric never draws the window
+		mHarness.play(drag());
+		assertEquals(1, mReportCount);
+		assertEquals(1, mShiftCount);
+		assertEquals(-1, mDragStartLatency);
+	}
+
+	@Test
+	public void dragStartLatencyEndsWhenTheShadowFirstDraws() {
+		mHarness.play(new GestureScript(120)
+				.down(mHarness.centerX(0), mHarness.centerY(0))
+				.hold(600)
+				.jitter(100));
+		// Robolectric's View.draw skips onDraw, the overlay's draw pass is played by hand
+		DragShadowView shadow = ReflectionHelpers.getField(mHarness.getGrid(), "mShadowView");
+		long before = System.nanoTime();
+		shadow.onDraw(new Canvas(Bitmap.createBitmap(1, 1, Bitmap.Config.ARGB_8888)));
+		long drawn = System.nanoTime();
+		shadow.onDraw(new Canvas(Bitmap.createBitmap(1, 1, Bitmap.Config.ARGB_8888)));
+		long up = System.nanoTime();
+		mHarness.play(new GestureScript(120).up());
+		assertEquals(1, mReportCount);
+		assertTrue("latency " + mDragStartLatency, mDragStartLatency > 0);
+		assertTrue("stopped by the first draw", mDragStartLatency <= mSessionNanos - (up - drawn));
+		assertTrue("not before it", mDragStartLatency >= mSessionNanos - (System.nanoTime() - before));
+	}
+
+	private GestureScript drag() {
+		return new GestureScript(120)
+				.down(mHarness.centerX(0), mHarness.centerY(0))
+				.hold(600)
+				.moveTo(mHarness.centerX(2), mHarness.centerY(2), 100)
+				.jitter(300)
+				.up();
+	}
+}
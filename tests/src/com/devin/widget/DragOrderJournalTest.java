@@ -0,0 +1,113 @@
+package com.devin.widget;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+import org.robolectric.util.ReflectionHelpers;
+
+/**
+ * Orders restored after the moves a grid feeds, the journal is read on its own thread
+ * and the order handed back on the UI thread.
+ *
+ * @author Devin Wong
+ *
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 19)
+public class DragOrderJournalTest {
+
+	private static final long TIMEOUT = 5000L;
+
+	@Rule
+	public TemporaryFolder mFolder = new TemporaryFolder();
+
+	private File mDir;
+
+	@Before
+	public void setUp() throws IOException {
+		mDir = mFolder.newFolder();
+	}
+
+	@Test
+	public void nothingPersistedRestoresNull() throws IOException {
+		DragOrderJournal journal = new DragOrderJournal(mDir);
+		assertNull(restore(journal));
+		close(journal);
+	}
+
+	@Test
+	public void restoresTheOrderAfterShiftsAndSwaps() throws IOException {
+		DragOrderJournal journal = new DragOrderJournal(mDir);
+		assertNull(restore(journal));
+		journal.reset(new long[] { 10, 11, 12, 13, 14 });
+		// 10 dragged to the end, 11 12 13 14 10
+		journal.shift(0, 4, 10);
+		// 14 swapped with 11, 14 12 13 11 10
+		journal.swap(3, 0, 14);
+		// 13 dragged to the start, 13 14 12 11 10
+		journal.shift(2, 0, 13);
+		close(journal);
+
+		DragOrderJournal reopened = new DragOrderJournal(mDir);
+		assertArrayEquals(new long[] { 13, 14, 12, 11, 10 }, restore(reopened));
+		close(reopened);
+	}
+
+	/**
+	 * Close and wait for the journal's thread to write it through, so the next one opens it whole.
+	 */
+	private static void close(DragOrderJournal journal) {
+		journal.close();
+		ExecutorService executor = ReflectionHelpers.getField(journal, "mExecutor");
+		try {
+			assertTrue(executor.awaitTermination(TIMEOUT, TimeUnit.MILLISECONDS));
+		} catch (InterruptedException e) {
+			throw new AssertionError(e);
+		}
+	}
+
+	private static long[] restore(DragOrderJournal journal) throws IOException {
+		final long[][] order = new long[1][];
+		final IOException[] failure = new IOException[1];
+		final boolean[] done = new boolean[1];
+		journal.restore(new DragOrderJournal.OnRestoreListener() {
+
+			@Override
+			public void onRestored(long[] ids) {
+				order[0] = ids;
+				done[0] = true;
+			}
+
+			@Override
+			public void onRestoreFailed(IOException e) {
+				failure[0] = e;
+				done[0] = true;
+			}
+		});
+		// the journal's thread posts the order, the UI thread only takes it
+		long deadline = System.currentTimeMillis() + TIMEOUT;
+		while (!done[0] && System.currentTimeMillis() < deadline) {
+			ShadowLooper.runUiThreadTasks();
+			Thread.yield();
+		}
+		assertTrue("restored within " + TIMEOUT + "ms", done[0]);
+		if (failure[0] != null) {
+			throw failure[0];
+		}
+		return order[0];
+	}
+}
@@ -0,0 +1,132 @@
+package com.devin.widget;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.shadows.ShadowLooper;
+
+import android.app.Activity;
+import android.graphics.Bitmap;
+import android.view.View;
+
+/**
+ * Every bitmap a cache gets from its pool goes back to it once the shadows are dropped,
+ * whether processing them succeeds or throws.
+ *
+ * @author Devin Wong
+ *
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 19)
+public class DragShadowCacheTest {
+
+	private CountingPool mPool;
+	private DragShadowCache mCache;
+	private View mView;
+	private int mReplacedCount;
+	private List<Runnable> mProcessing = new ArrayList<Runnable>();
+
+	@Before
+	public void setUp() {
+		Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+		mView = new View(activity);
+		mView.layout(0, 0, 40, 30);
+		mPool = new CountingPool();
+		mCache = new DragShadowCache(mPool, new DragShadowCache.Callback() {
+
+			@Override
+			public void onShadowReplaced(Bitmap old, Bitmap processed) {
+				mReplacedCount++;
+			}
+		});
+		mCache.setExecutor(new Executor() {
+
+			@Override
+			public void execute(Runnable command) {
+				mProcessing.add(command);
+			}
+		});
+	}
+
+	/**
+	 * Run the queued processors, as the thread pool would once the drag has started, then their results.
+	 */
+	private void process() {
+		for (Runnable command : mProcessing) {
+			command.run();
+		}
+		mProcessing.clear();
+		ShadowLooper.runUiThreadTasks();
+	}
+
+	@Test
+	public void aProcessedShadowReplacesTheTakenOne() {
+		mCache.setProcessor(new DragShadowProcessor() {
+
+			@Override
+			public void process(Bitmap shadow, Bitmap target) {
+			}
+		});
+		Bitmap taken = mCache.take(1, mView);
+		assertEquals("the shadow and its target", 2, mPool.mOutstanding);
+		process();
+		assertEquals(1, mReplacedCount);
+		assertSame("the rendered shadow went back to the pool", taken, mPool.mLastReleased);
+		assertEquals("the processed shadow is held", 1, mPool.mOutstanding);
+		mCache.release();
+		mCache.clear();
+		assertEquals(0, mPool.mOutstanding);
+	}
+
+	@Test
+	public void aThrowingProcessorKeepsTheShadowAndLeaksNothing() {
+		mCache.setProcessor(new DragShadowProcessor() {
+
+			@Override
+			public void process(Bitmap shadow, Bitmap target) {
+				throw new IllegalArgumentException("unsupported config");
+			}
+		});
+		mCache.prepare(1, mView);
+		Bitmap taken = mCache.take(2, mView);
+		process();
+		assertEquals(0, mReplacedCount);
+		assertEquals("the two rendered shadows are held", 2, mPool.mOutstanding);
+		// processing is over, both can be evicted and released
+		mCache.setMemoryBudget(0);
+		assertEquals("the taken shadow is kept for its drag", 1, mPool.mOutstanding);
+		mCache.release();
+		mCache.clear();
+		assertEquals(0, mPool.mOutstanding);
+		assertSame(taken, mPool.mLastReleased);
+	}
+
+	private static class CountingPool extends DragShadowPool {
+
+		int mOutstanding;
+		Bitmap mLastReleased;
+
+		@Override
+		public Bitmap obtain(int width, int height, Bitmap.Config config) {
+			mOutstanding++;
+			return super.obtain(width, height, config);
+		}
+
+		@Override
+		public void release(Bitmap bitmap) {
+			mOutstanding--;
+			mLastReleased = bitmap;
+			super.release(bitmap);
+		}
+	}
+}
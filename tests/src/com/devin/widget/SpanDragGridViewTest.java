@@ -0,0 +1,233 @@
+package com.devin.widget;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+import java.util.Arrays;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.Robolectric;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.annotation.Config;
+import org.robolectric.util.ReflectionHelpers;
+
+import android.app.Activity;
+import android.graphics.Rect;
+import android.os.SystemClock;
+import android.view.MotionEvent;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import com.devin.widget.core.GestureScript;
+import com.devin.widget.core.SpanGrid;
+
+/**
+ * A dashboard of 2x2, 2x1 and 1x1 tiles, dragged tiles land where packing the new order from scratch puts them.
+ *
+ * @author Devin Wong
+ *
+ */
+@RunWith(RobolectricTestRunner.class)
+@Config(sdk = 19)
+public class SpanDragGridViewTest {
+
+	private static final int COLUMNS = 4;
+	private static final int SPACING = 10;
+
+	private SpanDragGridView mGrid;
+	private DashboardAdapter mAdapter;
+
+	@Before
+	public void setUp() {
+		Activity activity = Robolectric.buildActivity(Activity.class).setup().get();
+		// a 2x2, then 1x1 tiles around it and a 2x1 that goes below
+		mAdapter = new DashboardAdapter(activity, "a2x2", "b1x1", "c1x1", "d1x1", "e2x1", "f1x1", "g1x1", "h1x1");
+		mGrid = new SpanDragGridView(activity);
+		mGrid.setNumColumns(COLUMNS);
+		mGrid.setSpacing(SPACING);
+		mGrid.setAdapter(mAdapter);
+		mGrid.setOnShiftListener(mAdapter);
+		activity.setContentView(mGrid, new ViewGroup.LayoutParams(DragGestureHarness.WIDTH, DragGestureHarness.HEIGHT));
+		DragGestureHarness.idle();
+	}
+
+	@Test
+	public void packsTheAdapterSpans() {
+		assertLaidOut("a2x2", "b1x1", "c1x1", "d1x1", "e2x1", "f1x1", "g1x1", "h1x1");
+		Rect rect = new Rect();
+		mGrid.getSlotRect(0, rect);
+		assertEquals(0, mGrid.pointToPosition(rect.right - 1, rect.bottom - 1));
+		mGrid.getSlotRect(4, rect);
+		assertEquals(2, rect.width() / rect.height());
+	}
+
+	@Test
+	public void dragShiftsTheTileAndMovesOnlyWhatItDisplaced() {
+		int[] before = places();
+		drag(2, 3);
+		assertLaidOut("a2x2", "b1x1", "d1x1", "c1x1", "e2x1", "f1x1", "g1x1", "h1x1");
+		assertEquals(1, mAdapter.mShiftCount);
+		assertEquals(View.VISIBLE, mGrid.getChildAt(3).getVisibility());
+		// the packing is back on its old track after the two tiles swapped cells
+		int[] after = places();
+		for (int i : new int[] {0, 1, 4, 5, 6, 7}) {
+			assertEquals("tile " + i, before[i], after[i]);
+		}
+	}
+
+	@Test
+	public void aTileOfAnotherSpanLandingUnderTheFingerIsntShiftedTo() {
+		// b lands left of the cell it's dropped on, g takes it, staying there doesn't shift b again
+		drag(1, 5);
+		assertLaidOut("a2x2", "c1x1", "d1x1", "e2x1", "f1x1", "b1x1", "g1x1", "h1x1");
+		assertEquals(1, mAdapter.mShiftCount);
+	}
+
+	@Test
+	public void dragOverTheTileItselfChangesNothing() {
+		drag(2, 2);
+		assertLaidOut("a2x2", "b1x1", "c1x1", "d1x1", "e2x1", "f1x1", "g1x1", "h1x1");
+		assertEquals(0, mAdapter.mShiftCount);
+	}
+
+	@Test
+	public void theShadowIsDrawnInTheOverlay() {
+		DragGestureHarness.play(mGrid, new GestureScript(120)
+				.down(centerX(2), centerY(2))
+				.hold(600)
+				.moveTo(centerX(2) + 20, centerY(2) + 20, 100));
+		View shadow = ReflectionHelpers.getField(mGrid, "mShadowView");
+		assertNotNull("lifted into the overlay", shadow.getParent());
+		assertEquals(View.INVISIBLE, mGrid.getChildAt(2).getVisibility());
+
+		long now = SystemClock.uptimeMillis();
+		MotionEvent up = MotionEvent.obtain(now, now, MotionEvent.ACTION_UP, centerX(2) + 20, centerY(2) + 20, 0);
+		mGrid.dispatchTouchEvent(up);
+		up.recycle();
+		DragGestureHarness.idle();
+		assertNull("dropped from the overlay", shadow.getParent());
+		assertEquals(View.VISIBLE, mGrid.getChildAt(2).getVisibility());
+	}
+
+	@Test
+	public void changeFromOutsideRepacks() {
+		mAdapter.insert(1, "z2x1");
+		mAdapter.notifyDataSetChanged();
+		DragGestureHarness.idle();
+		assertLaidOut("a2x2", "z2x1", "b1x1", "c1x1", "d1x1", "e2x1", "f1x1", "g1x1", "h1x1");
+	}
+
+	private void drag(int from, int to) {
+		DragGestureHarness.play(mGrid, new GestureScript(120)
+				.down(centerX(from), centerY(from))
+				.hold(600)
+				.moveTo(centerX(to), centerY(to), 100)
+				.jitter(300)
+				.up());
+	}
+
+	private int centerX(int position) {
+		View child = mGrid.getChildAt(position);
+		return (child.getLeft() + child.getRight()) / 2;
+	}
+
+	private int centerY(int position) {
+		View child = mGrid.getChildAt(position);
+		return (child.getTop() + child.getBottom()) / 2;
+	}
+
+	/**
+	 * @return the top left corner of each tile, as left * 10000 + top
+	 */
+	private int[] places() {
+		int[] places = new int[mGrid.getChildCount()];
+		for (int i = 0; i < places.length; i++) {
+			places[i] = mGrid.getChildAt(i).getLeft() * 10000 + mGrid.getChildAt(i).getTop();
+		}
+		return places;
+	}
+
+	/**
+	 * The adapter holds items in order, each child shows its item at rest in the cells a fresh packing gives it.
+	 */
+	private void assertLaidOut(String... items) {
+		assertEquals(Arrays.asList(items).toString(), mAdapter.getItems());
+		int[] columnSpans = new int[items.length];
+		int[] rowSpans = new int[items.length];
+		for (int i = 0; i < items.length; i++) {
+			columnSpans[i] = DashboardAdapter.columnSpan(items[i]);
+			rowSpans[i] = DashboardAdapter.rowSpan(items[i]);
+		}
+		SpanGrid packing = new SpanGrid(COLUMNS);
+		packing.setSpans(columnSpans, rowSpans, items.length);
+		int columnWidth = (DragGestureHarness.WIDTH - (COLUMNS - 1) * SPACING) / COLUMNS;
+		int stride = columnWidth + SPACING;
+		assertEquals(items.length, mGrid.getChildCount());
+		for (int i = 0; i < items.length; i++) {
+			TextView child = (TextView) mGrid.getChildAt(i);
+			assertEquals(items[i], child.getText().toString());
+			assertEquals(items[i] + " left", packing.getColumn(i) * stride, child.getLeft());
+			assertEquals(items[i] + " top", packing.getRow(i) * stride, child.getTop());
+			assertEquals(items[i] + " width", columnSpans[i] * stride - SPACING, child.getWidth());
+			assertEquals(items[i] + " height", rowSpans[i] * stride - SPACING, child.getHeight());
+			assertEquals(items[i] + " at rest", 0f, child.getTranslationX() + child.getTranslationY(), 0f);
+		}
+	}
+
+	/**
+	 * Items are named with their spans, e.g. a2x1 spans 2 columns and 1 row.
+	 */
+	private static class DashboardAdapter extends DragGridAdapter<String> implements SpanAdapter {
+
+		private final Activity mActivity;
+		private int mShiftCount;
+
+		DashboardAdapter(Activity activity, String... items) {
+			super(Arrays.asList(items));
+			mActivity = activity;
+		}
+
+		static int columnSpan(String item) {
+			return item.charAt(1) - '0';
+		}
+
+		static int rowSpan(String item) {
+			return item.charAt(3) - '0';
+		}
+
+		String getItems() {
+			String[] items = new String[getCount()];
+			for (int i = 0; i < items.length; i++) {
+				items[i] = get(i);
+			}
+			return Arrays.asList(items).toString();
+		}
+
+		@Override
+		public int getColumnSpan(int position) {
+			return columnSpan(get(position));
+		}
+
+		@Override
+		public int getRowSpan(int position) {
+			return rowSpan(get(position));
+		}
+
+		@Override
+		public void onShift(int dragPos, int movePos) {
+			mShiftCount++;
+			super.onShift(dragPos, movePos);
+		}
+
+		@Override
+		public View getView(int position, View convertView, ViewGroup parent) {
+			TextView text = convertView != null ? (TextView) convertView : new TextView(mActivity);
+			text.setText(get(position));
+			return text;
+		}
+	}
+}
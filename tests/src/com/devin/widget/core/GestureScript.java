@@ -0,0 +1,144 @@
+package com.devin.widget.core;
+
+import java.util.Arrays;
+
+/**
+ * A scripted single-pointer gesture: a sequence of (action, x, y, time) samples
+ * at a fixed touch sampling rate, kept in primitive arrays.
+ * Action codes match MotionEvent: {@link #ACTION_DOWN}, {@link #ACTION_UP}, {@link #ACTION_MOVE}, {@link #ACTION_CANCEL}.
+ *
+ * <pre>
+ * 	GestureScript drag = new GestureScript(120)
+ * 			.down(100, 100)
+ * 			.hold(600)
+ * 			.moveTo(500, 900, 400)
+ * 			.up();
+ * </pre>
+ *
+ * @author Devin Wong
+ *
+ */
+public class GestureScript {
+
+	public static final int ACTION_DOWN = 0;
+	public static final int ACTION_UP = 1;
+	public static final int ACTION_MOVE = 2;
+	public static final int ACTION_CANCEL = 3;
+
+	private final long mSampleIntervalMillis;
+
+	private int[] mActions = new int[64];
+	private float[] mXs = new float[64];
+	private float[] mYs = new float[64];
+	private long[] mTimes = new long[64];
+	private int mSize;
+
+	private float mX;
+	private float mY;
+	private long mTime;
+
+	/**
+	 * @param sampleRateHz touch sampling rate of moves and holds
+	 */
+	public GestureScript(int sampleRateHz) {
+		mSampleIntervalMillis = Math.max(1, 1000 / sampleRateHz);
+	}
+
+	public GestureScript down(float x, float y) {
+		mX = x;
+		mY = y;
+		add(ACTION_DOWN);
+		return this;
+	}
+
+	/**
+	 * Keep the finger still for millis, without samples, as a resting finger reports nothing.
+	 */
+	public GestureScript hold(long millis) {
+		mTime += millis;
+		return this;
+	}
+
+	/**
+	 * Keep the finger still for millis, reporting a move at every sampling interval.
+	 */
+	public GestureScript jitter(long millis) {
+		long end = mTime + millis;
+		while (mTime + mSampleIntervalMillis <= end) {
+			mTime += mSampleIntervalMillis;
+			add(ACTION_MOVE);
+		}
+		mTime = end;
+		return this;
+	}
+
+	/**
+	 * Move linearly to (x, y) in millis.
+	 */
+	public GestureScript moveTo(float x, float y, long millis) {
+		float startX = mX;
+		float startY = mY;
+		long start = mTime;
+		long steps = Math.max(1, millis / mSampleIntervalMillis);
+		for (long i = 1; i <= steps; i++) {
+			float fraction = (float) i / steps;
+			mX = startX + (x - startX) * fraction;
+			mY = startY + (y - startY) * fraction;
+			mTime = start + millis * i / steps;
+			add(ACTION_MOVE);
+		}
+		return this;
+	}
+
+	public GestureScript up() {
+		add(ACTION_UP);
+		return this;
+	}
+
+	public GestureScript cancel() {
+		add(ACTION_CANCEL);
+		return this;
+	}
+
+	public int size() {
+		return mSize;
+	}
+
+	public int actionAt(int index) {
+		return mActions[index];
+	}
+
+	public float xAt(int index) {
+		return mXs[index];
+	}
+
+	public float yAt(int index) {
+		return mYs[index];
+	}
+
+	/**
+	 * @return millis since the down of the gesture
+	 */
+	public long timeAt(int index) {
+		return mTimes[index];
+	}
+
+	public long getDuration() {
+		return mSize == 0 ? 0 : mTimes[mSize - 1];
+	}
+
+	private void add(int action) {
+		if (mSize == mActions.length) {
+			int capacity = mSize << 1;
+			mActions = Arrays.copyOf(mActions, capacity);
+			mXs = Arrays.copyOf(mXs, capacity);
+			mYs = Arrays.copyOf(mYs, capacity);
+			mTimes = Arrays.copyOf(mTimes, capacity);
+		}
+		mActions[mSize] = action;
+		mXs[mSize] = mX;
+		mYs[mSize] = mY;
+		mTimes[mSize] = mTime;
+		mSize++;
+	}
+}